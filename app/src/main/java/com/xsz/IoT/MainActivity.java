@@ -1,14 +1,22 @@
 package com.xsz.IoT;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.text.InputType;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
+import android.view.ViewTreeObserver;
+import android.widget.EditText;
 import android.widget.TextView;
 
+import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -16,22 +24,43 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.snackbar.Snackbar;
 import com.xsz.IoT.adapter.GaugeAdapter;
 import com.xsz.IoT.databinding.ActivityMainBinding;
+import com.xsz.IoT.metrics.MetricsReport;
 import com.xsz.IoT.model.AnalogInput;
 import com.xsz.IoT.model.IoTDataManager;
+import com.xsz.IoT.view.DrawCost;
+import com.xsz.IoT.view.GaugeWallView;
+import com.xsz.IoT.view.RenderScheduler;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
 public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGaugeClickListener {
+    private static final String TAG = "MainActivity";
+    // Samples per second per channel generated by the simulation menu action
+    private static final int SIMULATION_RATE_HZ = 1000;
+    private static final long SIMULATION_SEED = 42;
+    private static final long HUD_INTERVAL_MILLIS = 1000;
 
     private ActivityMainBinding binding;
     private IoTDataManager dataManager;
     private GaugeAdapter gaugeAdapter;
-    private Handler updateHandler;
-    private Runnable updateRunnable;
+    // Redraws at most once per display frame, and only after new samples arrived
+    private RenderScheduler renderScheduler;
+    private TextView lastUpdateText;
+    private SimpleDateFormat lastUpdateFormat;
+    private long lastUpdateSecond = -1;
     private boolean isUpdating = false;
+    // Wall mode draws all gauges on one surface from its own render thread instead of the grid
+    private GaugeWallView gaugeWall;
+    private boolean wallMode;
     private MenuItem simulationMenuItem;
+    // Optional overlay with the interval readings of the data manager's metrics
+    private TextView perfHudText;
+    private MetricsReport perfReport;
+    private boolean perfHudEnabled;
+    private final Handler hudHandler = new Handler(Looper.getMainLooper());
+    private final Runnable hudUpdater = this::updatePerfHud;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -39,6 +68,7 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
 
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
+        reportFirstFrame(binding.getRoot());
 
         setSupportActionBar(binding.toolbar);
 
@@ -46,25 +76,33 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
         dataManager = IoTDataManager.getInstance();
         dataManager.setContext(this);
 
-        // Setup RecyclerView
+        // Acquisition runs on its own I/O thread and only signals here when new frames arrived
+        renderScheduler = new RenderScheduler(this::onRenderFrame);
+        renderScheduler.setMetrics(dataManager.getMetrics());
+        renderScheduler.setFrameIntervalNanos((long) (1e9 / getWindowManager().getDefaultDisplay().getRefreshRate()));
+        dataManager.setOnSamplesAvailableListener(renderScheduler::requestRender);
+
+        // Debug builds log the average onDraw cost of each gauge type
+        DrawCost.setEnabled((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0);
+
+        // Setup RecyclerView; it shows placeholder gauges until the saved settings are loaded
         setupRecyclerView();
+        gaugeWall = findViewById(R.id.gauge_wall);
+        perfHudText = findViewById(R.id.tv_perf_hud);
+        perfReport = new MetricsReport(dataManager.getMetrics());
+        dataManager.loadSettingsAsync(this::onSettingsLoaded);
 
         // Menu will handle simulation control
 
         // Individual gauge settings are now handled by each gauge card
-
-        // Initialize status
-        updateConnectionStatus(true);
-        
-        // Generate initial data to show values immediately
-        //dataManager.generateSimulatedData();
-        //gaugeAdapter.notifyDataSetChanged();
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.menu_iot, menu);
         simulationMenuItem = menu.findItem(R.id.action_simulation);
+        menu.findItem(R.id.action_wall_mode).setChecked(wallMode);
+        menu.findItem(R.id.action_perf_hud).setChecked(perfHudEnabled);
         updateSimulationMenuItem();
         return true;
     }
@@ -76,6 +114,17 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
         if (id == R.id.action_simulation) {
             toggleSimulation();
             return true;
+        } else if (id == R.id.action_wall_mode) {
+            setWallMode(!wallMode);
+            item.setChecked(wallMode);
+            return true;
+        } else if (id == R.id.action_perf_hud) {
+            setPerfHudEnabled(!perfHudEnabled);
+            item.setChecked(perfHudEnabled);
+            return true;
+        } else if (id == R.id.action_gauge_count) {
+            showGaugeCountDialog();
+            return true;
         } else if (id == R.id.action_settings) {
             // Handle settings action if needed
             return true;
@@ -96,6 +145,82 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
         updateSimulationMenuItem();
     }
 
+    private void setWallMode(boolean enabled) {
+        if (enabled == wallMode) return;
+        wallMode = enabled;
+        findViewById(R.id.recycler_gauges).setVisibility(enabled ? View.GONE : View.VISIBLE);
+        gaugeWall.setVisibility(enabled ? View.VISIBLE : View.GONE);
+        if (enabled) {
+            startWall();
+        } else {
+            stopWall();
+            renderScheduler.requestRender();
+        }
+    }
+
+    private void setPerfHudEnabled(boolean enabled) {
+        perfHudEnabled = enabled;
+        perfHudText.setVisibility(enabled ? View.VISIBLE : View.GONE);
+        hudHandler.removeCallbacks(hudUpdater);
+        if (enabled) {
+            // The first reading is the baseline, the overlay fills in one interval later
+            perfHudText.setText("");
+            perfReport.update(System.nanoTime());
+            hudHandler.postDelayed(hudUpdater, HUD_INTERVAL_MILLIS);
+        }
+    }
+
+    private void updatePerfHud() {
+        if (perfReport.update(System.nanoTime())) {
+            perfHudText.setText(perfReport.toString());
+        }
+        hudHandler.postDelayed(hudUpdater, HUD_INTERVAL_MILLIS);
+    }
+
+    private void showGaugeCountDialog() {
+        // The saved configuration would replace a count chosen before it finished loading
+        if (!dataManager.isSettingsLoaded()) return;
+        EditText countInput = new EditText(this);
+        countInput.setInputType(InputType.TYPE_CLASS_NUMBER);
+        countInput.setHint(getString(R.string.gauge_count_hint, IoTDataManager.MAX_SOURCES));
+        countInput.setText(String.valueOf(dataManager.getAnalogInputs().size()));
+        countInput.setSelectAllOnFocus(true);
+        new AlertDialog.Builder(this)
+                .setTitle(R.string.action_gauge_count)
+                .setView(countInput)
+                .setPositiveButton(android.R.string.ok, (dialog, which) -> {
+                    try {
+                        setGaugeCount(Integer.parseInt(countInput.getText().toString().trim()));
+                    } catch (NumberFormatException e) {
+                        // Leaves the dashboard as it is
+                    }
+                })
+                .setNegativeButton(android.R.string.cancel, null)
+                .show();
+    }
+
+    private void setGaugeCount(int count) {
+        dataManager.setInputCount(Math.min(count, IoTDataManager.MAX_SOURCES));
+        gaugeAdapter.updateData(dataManager.getAnalogInputs());
+        gaugeAdapter.prefetchViews();
+        if (wallMode) gaugeWall.setInputs(dataManager.getAnalogInputs(), dataManager);
+    }
+
+    // The wall's render thread takes over the acquired snapshots until stopWall()
+    private void startWall() {
+        renderScheduler.pause();
+        gaugeWall.setInputs(dataManager.getAnalogInputs(), dataManager);
+        gaugeWall.start();
+        dataManager.setOnSamplesAvailableListener(gaugeWall::requestRender);
+    }
+
+    private void stopWall() {
+        dataManager.setOnSamplesAvailableListener(renderScheduler::requestRender);
+        // Joins the render thread, so the main thread is the only consumer again
+        gaugeWall.stop();
+        renderScheduler.resume();
+    }
+
     private void updateSimulationMenuItem() {
         if (simulationMenuItem != null) {
             if (isUpdating) {
@@ -120,9 +245,32 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
         gaugeAdapter = new GaugeAdapter(dataManager.getAnalogInputs());
         gaugeAdapter.setOnGaugeClickListener(this);
         gaugeAdapter.setColumnCount(columnCount);
+        recyclerView.setRecycledViewPool(gaugeAdapter.getViewPool());
         recyclerView.setAdapter(gaugeAdapter);
     }
 
+    private void onSettingsLoaded() {
+        gaugeAdapter.updateData(dataManager.getAnalogInputs());
+        gaugeAdapter.prefetchViews();
+        if (wallMode) gaugeWall.setInputs(dataManager.getAnalogInputs(), dataManager);
+        reportFullyDrawn();
+        Log.i(TAG, "Settings shown " + (SystemClock.uptimeMillis() - Process.getStartUptimeMillis())
+                + " ms after process start (load took " + dataManager.getSettingsLoadMillis() + " ms)");
+    }
+
+    // Logs time-to-first-frame, measured from process start
+    private void reportFirstFrame(View root) {
+        root.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                Log.i(TAG, "First frame " + (SystemClock.uptimeMillis() - Process.getStartUptimeMillis())
+                        + " ms after process start");
+                return true;
+            }
+        });
+    }
+
     private int calculateOptimalColumnCount() {
         // Always use 4 columns for 2x4 grid layout (2 rows, 4 columns)
         return 4;
@@ -130,40 +278,29 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
 
     private void startDataSimulation() {
         if (isUpdating) return;
-        
+
         isUpdating = true;
-        // Reset simulation timer for consistent trending data
-        dataManager.resetSimulationTimer();
-        updateHandler = new Handler(Looper.getMainLooper());
-        
-        updateRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isUpdating) {
-                    // Generate simulated data
-                    dataManager.generateSimulatedData();
-                    
-                    // Update UI directly without recreating views
-                    gaugeAdapter.updateAllGaugesDirectly();
-                    updateLastUpdateTime();
-                    
-                    // Schedule next update
-                    updateHandler.postDelayed(this, 50); // Update every 500ms
-                }
-            }
-        };
-        
-        updateHandler.post(updateRunnable);
+        // Simulated frames arrive through the same path as hardware ones, see onAcquiredSamples()
+        dataManager.startLoadSimulation(SIMULATION_RATE_HZ, SIMULATION_SEED);
+        updateConnectionStatus(false);
     }
 
     private void stopDataSimulation() {
         isUpdating = false;
-        if (updateHandler != null && updateRunnable != null) {
-            updateHandler.removeCallbacks(updateRunnable);
-        }
+        dataManager.stopLoadSimulation();
+        updateConnectionStatus(dataManager.isSimulationRunning());
         updateSimulationMenuItem();
     }
 
+    private void onRenderFrame(long frameTimeNanos) {
+        if (dataManager.applyAcquiredSamples()) {
+            gaugeAdapter.updateChangedGauges(dataManager.getChannelBank());
+            updateLastUpdateTime();
+            // The gauges are drawn in this frame's traversal, right after this callback
+            dataManager.getMetrics().recordIngestToDraw(System.nanoTime() - dataManager.getAppliedPublishNanos());
+        }
+    }
+
     private void updateConnectionStatus(boolean connected) {
         View statusIndicator = findViewById(R.id.status_indicator);
         TextView statusText = findViewById(R.id.tv_connection_status);
@@ -178,9 +315,15 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
     }
 
     private void updateLastUpdateTime() {
-        TextView lastUpdateText = findViewById(R.id.tv_last_update);
-        SimpleDateFormat timeFormat = new SimpleDateFormat(getString(R.string.time_format), Locale.getDefault());
-        lastUpdateText.setText(getString(R.string.last_update_format, timeFormat.format(new Date())));
+        // The label shows whole seconds, so it only needs formatting when the second changes
+        long now = System.currentTimeMillis();
+        if (now / 1000 == lastUpdateSecond) return;
+        lastUpdateSecond = now / 1000;
+        if (lastUpdateText == null) {
+            lastUpdateText = findViewById(R.id.tv_last_update);
+            lastUpdateFormat = new SimpleDateFormat(getString(R.string.time_format), Locale.getDefault());
+        }
+        lastUpdateText.setText(getString(R.string.last_update_format, lastUpdateFormat.format(new Date(now))));
     }
 
     @Override
@@ -199,6 +342,32 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (wallMode) {
+            startWall();
+        } else {
+            renderScheduler.resume();
+            // Picks up samples that arrived while stopped and re-arms the samples listener
+            renderScheduler.requestRender();
+        }
+        dataManager.startSimulation();
+        updateConnectionStatus(dataManager.isSimulationRunning());
+        if (perfHudEnabled) setPerfHudEnabled(true);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        dataManager.stopSimulation();
+        if (isUpdating) stopDataSimulation();
+        dataManager.flushSettingsAsync();
+        if (wallMode) stopWall();
+        renderScheduler.pause();
+        hudHandler.removeCallbacks(hudUpdater);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -210,6 +379,7 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
         if (gaugeAdapter != null) {
             // Update the adapter with fresh data from the data manager
             gaugeAdapter.updateData(dataManager.getAnalogInputs());
+            if (wallMode) gaugeWall.setInputs(dataManager.getAnalogInputs(), dataManager);
             updateLastUpdateTime();
         }
     }
@@ -220,5 +390,7 @@ public class MainActivity extends AppCompatActivity implements GaugeAdapter.OnGa
     protected void onDestroy() {
         super.onDestroy();
         stopDataSimulation();
+        // Leaving for good: make sure the last edits reach the disk
+        if (isFinishing()) dataManager.flushSettings();
     }
 }
\ No newline at end of file
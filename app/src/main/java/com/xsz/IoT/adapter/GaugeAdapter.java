@@ -1,5 +1,7 @@
 package com.xsz.IoT.adapter;
 
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,20 +12,42 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.xsz.IoT.R;
 import com.xsz.IoT.dialog.GaugeSettingsDialog;
+import com.xsz.IoT.format.FormattedText;
 import com.xsz.IoT.model.AnalogInput;
+import com.xsz.IoT.model.ChannelBank;
+import com.xsz.IoT.model.ChannelHistory;
+import com.xsz.IoT.model.HistoryWindow;
+import com.xsz.IoT.model.IoTDataManager;
+import com.xsz.IoT.model.RollupWindow;
 import com.xsz.IoT.view.BarChartView;
 import com.xsz.IoT.view.RoundGaugeView;
 import com.xsz.IoT.view.TrendChartView;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHolder> {
+    // Payload for notifyItemChanged(): the input's settings changed, its trace and views stay
+    public static final Object PAYLOAD_CONFIG = new Object();
+
+    // One view type per AnalogInput.GaugeType (its ordinal), plus cards of disabled inputs
+    private static final int VIEW_TYPE_DISABLED = AnalogInput.GaugeType.values().length;
+    // Fixed 2x4 layout: always 2 rows on screen
+    private static final int VISIBLE_ROWS = 2;
+
     private List<AnalogInput> analogInputs;
     private OnGaugeClickListener listener;
-    private List<GaugeViewHolder> activeViewHolders = new ArrayList<>();
     private int columnCount = 4;
     private int screenHeight = 0;
+    private final HistoryWindow historyWindow = new HistoryWindow();
+    // Ranges a trend chart cycles through when tapped; the first is the live sweep
+    private static final long[] TREND_SPAN_MILLIS = {0, 10 * 60 * 1000L, 60 * 60 * 1000L, 24 * 60 * 60 * 1000L};
+    private static final int[] TREND_SPAN_LABELS = {0, R.string.trend_span_10_min, R.string.trend_span_1_h,
+            R.string.trend_span_24_h};
+    // A rollup range is requeried at most this often while its chart gets new samples
+    private static final long TREND_SPAN_REFRESH_MILLIS = 1000;
+    // Holders per view type, shared by the grids showing this adapter and filled by prefetchViews()
+    private final RecyclerView.RecycledViewPool viewPool = new RecyclerView.RecycledViewPool();
+    private boolean prefetchScheduled;
 
     public interface OnGaugeClickListener {
         void onGaugeClick(AnalogInput analogInput);
@@ -31,6 +55,7 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
 
     public GaugeAdapter(List<AnalogInput> analogInputs) {
         this.analogInputs = analogInputs;
+        sizeViewPool();
     }
 
     public void setOnGaugeClickListener(OnGaugeClickListener listener) {
@@ -39,6 +64,28 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
 
     public void setColumnCount(int columnCount) {
         this.columnCount = columnCount;
+        sizeViewPool();
+    }
+
+    private void sizeViewPool() {
+        // A screen of one type plus a row, e.g. after all visible gauges switched type
+        for (int viewType = 0; viewType <= VIEW_TYPE_DISABLED; viewType++) {
+            viewPool.setMaxRecycledViews(viewType, getPoolSize());
+        }
+    }
+
+    private int getPoolSize() {
+        return columnCount * (VISIBLE_ROWS + 1);
+    }
+
+    public RecyclerView.RecycledViewPool getViewPool() {
+        return viewPool;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        AnalogInput input = analogInputs.get(position);
+        return input.isEnabled() ? input.getGaugeType().ordinal() : VIEW_TYPE_DISABLED;
     }
 
     public void setScreenHeight(int screenHeight) {
@@ -48,8 +95,15 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
     @NonNull
     @Override
     public GaugeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_gauge, parent, false);
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        View view = inflater.inflate(R.layout.item_gauge, parent, false);
+
+        // Only the gauge this view type shows is inflated; disabled inputs get none
+        int gaugeLayout = getGaugeLayout(viewType);
+        if (gaugeLayout != 0) {
+            ViewGroup gaugeContainer = view.findViewById(R.id.gauge_container);
+            inflater.inflate(gaugeLayout, gaugeContainer, true);
+        }
         
         // Calculate and set dynamic height for gauge items
         adjustGaugeItemHeight(view, parent);
@@ -57,6 +111,20 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
         return new GaugeViewHolder(view);
     }
 
+    private static int getGaugeLayout(int viewType) {
+        if (viewType == VIEW_TYPE_DISABLED) return 0;
+        switch (AnalogInput.GaugeType.values()[viewType]) {
+            case ROUND_GAUGE:
+                return R.layout.gauge_round;
+            case BAR_CHART:
+                return R.layout.gauge_bar;
+            case TREND_CHART:
+                return R.layout.gauge_trend;
+            default:
+                return 0;
+        }
+    }
+
     private void adjustGaugeItemHeight(View itemView, ViewGroup parent) {
         android.util.DisplayMetrics displayMetrics = parent.getContext().getResources().getDisplayMetrics();
         int screenHeight = displayMetrics.heightPixels;
@@ -72,8 +140,7 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
         
         int availableHeight = screenHeight - statusBarHeight - toolbarHeight - headerHeight - paddingHeight - navigationBarHeight;
         
-        // Fixed 2x4 layout: always 2 rows, 4 columns
-        int rowCount = 2;
+        int rowCount = VISIBLE_ROWS;
         
         // Calculate item height to fill available space optimally for 2 rows
         int calculatedItemHeight = (availableHeight / rowCount) - (int) (24 * displayMetrics.density); // Account for margins
@@ -115,12 +182,14 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
         AnalogInput input = analogInputs.get(position);
         holder.bind(input);
     }
-    
+
     @Override
-    public void onViewRecycled(@NonNull GaugeViewHolder holder) {
-        super.onViewRecycled(holder);
-        // Remove from tracking to prevent memory leaks
-        activeViewHolders.remove(holder);
+    public void onBindViewHolder(@NonNull GaugeViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.bindConfig(analogInputs.get(position));
+        }
     }
 
     @Override
@@ -135,20 +204,36 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
     
     public void refreshGauge(int position) {
         // Refresh a specific gauge to apply settings changes
-        notifyItemChanged(position);
+        notifyItemChanged(position, PAYLOAD_CONFIG);
     }
-    
-    public void updateAllGaugesDirectly(List<AnalogInput> newData) {
-        // Update all gauges directly without rebinding ViewHolders to prevent flickering
-        this.analogInputs = newData;  // Update the data reference
-        
-        for (GaugeViewHolder holder : activeViewHolders) {
-            int position = holder.getAdapterPosition();
-            if (position != RecyclerView.NO_POSITION && position < newData.size()) {
-                AnalogInput input = newData.get(position);
-                holder.updateGaugeDirectly(input);
+
+    // Creates spare holders for the view types in use beyond what is on screen, one per idle pass
+    // of the main thread, so scrolling a large dashboard does not inflate cards mid-frame
+    public void prefetchViews() {
+        if (prefetchScheduled) return;
+        prefetchScheduled = true;
+        Looper.myQueue().addIdleHandler(() -> {
+            RecyclerView parent = recyclerView;
+            for (int viewType = 0; parent != null && viewType <= VIEW_TYPE_DISABLED; viewType++) {
+                if (viewPool.getRecycledViewCount(viewType) < getPrefetchCount(parent, viewType)) {
+                    viewPool.putRecycledView(createViewHolder(parent, viewType));
+                    return true;
+                }
             }
+            prefetchScheduled = false;
+            return false;
+        });
+    }
+
+    private int getPrefetchCount(RecyclerView parent, int viewType) {
+        int offScreen = 0;
+        for (int i = 0; i < analogInputs.size(); i++) {
+            if (getItemViewType(i) == viewType) offScreen++;
         }
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            if (parent.getChildViewHolder(parent.getChildAt(i)).getItemViewType() == viewType) offScreen--;
+        }
+        return Math.min(offScreen, getPoolSize());
     }
 
     class GaugeViewHolder extends RecyclerView.ViewHolder {
@@ -161,6 +246,16 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
         private BarChartView barChart;
         private TrendChartView trendChart;
         private View btnGaugeSettings;
+        // Value labels are written into these buffers and shown without creating Strings
+        private final FormattedText mappedText = new FormattedText();
+        private final FormattedText rawText = new FormattedText();
+        private double shownRawValue = Double.NaN;
+        // Trend holders only: index into TREND_SPAN_MILLIS, the input it was chosen for, and the
+        // buckets it shows
+        private int trendSpan;
+        private AnalogInput trendSpanInput;
+        private long trendSpanQueriedAt;
+        private RollupWindow rollupWindow;
 
         public GaugeViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -169,13 +264,18 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
             tvMappedValue = itemView.findViewById(R.id.tv_mapped_value);
             tvRawValue = itemView.findViewById(R.id.tv_raw_value);
             tvDescription = itemView.findViewById(R.id.tv_description);
+            // At most one of these exists, matching the holder's view type
             roundGauge = itemView.findViewById(R.id.round_gauge);
             barChart = itemView.findViewById(R.id.bar_chart);
             trendChart = itemView.findViewById(R.id.trend_chart);
             btnGaugeSettings = itemView.findViewById(R.id.btn_gauge_settings);
-            
-            // Track this ViewHolder
-            activeViewHolders.add(this);
+            if (trendChart != null) {
+                rollupWindow = new RollupWindow();
+                trendChart.setOnClickListener(v -> {
+                    trendSpan = (trendSpan + 1) % TREND_SPAN_MILLIS.length;
+                    showTrendSpan();
+                });
+            }
 
             itemView.setOnClickListener(v -> {
                 if (listener != null) {
@@ -187,6 +287,8 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
             });
 
             btnGaugeSettings.setOnClickListener(v -> {
+                // Placeholders are replaced once settings are loaded; editing them would be lost
+                if (!IoTDataManager.getInstance().isSettingsLoaded()) return;
                 int position = getAdapterPosition();
                 if (position != RecyclerView.NO_POSITION) {
                     AnalogInput input = analogInputs.get(position);
@@ -195,11 +297,11 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
                             input, 
                             updatedInput -> {
                                 // Update the input in the data manager (this will save to preferences)
-                                com.xsz.IoT.model.IoTDataManager.getInstance().updateAnalogInput(updatedInput);
+                                IoTDataManager.getInstance().updateAnalogInput(updatedInput);
                                 // Update the input in the list
                                 analogInputs.set(position, updatedInput);
-                                // Notify that this specific item changed
-                                notifyItemChanged(position);
+                                // Rebind the settings only; the holder and its trace are kept
+                                notifyItemChanged(position, PAYLOAD_CONFIG);
                                 // Notify the main activity
                                 if (listener != null) {
                                     listener.onGaugeClick(updatedInput);
@@ -212,10 +314,47 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
         }
 
         public void bind(AnalogInput input) {
+            bindConfig(input);
+
+            // Restore the trace from the data layer so recycling or a type change keeps it
+            int position = getAdapterPosition();
+            ChannelHistory history = IoTDataManager.getInstance().getChannelHistory();
+            if (trendChart != null && position != RecyclerView.NO_POSITION && position < history.getChannelCount()) {
+                // The chart spans the whole history window and decimates it to its pixel width
+                trendChart.setMaxDataPoints(history.getCapacity());
+                trendChart.setHistory(history.latest(position, trendChart.getMaxDataPoints(), historyWindow));
+                // A recycled holder keeps its range only for the same input
+                if (input != trendSpanInput) {
+                    trendSpanInput = input;
+                    trendSpan = 0;
+                }
+                showTrendSpan();
+            }
+        }
+
+        // Shows the live sweep, or the chosen range of the input's rollups in its current units
+        private void showTrendSpan() {
+            int position = getAdapterPosition();
+            if (trendSpan == 0 || position == RecyclerView.NO_POSITION) {
+                trendChart.showLive();
+                return;
+            }
+            long now = System.currentTimeMillis();
+            long from = now - TREND_SPAN_MILLIS[trendSpan];
+            IoTDataManager.getInstance().queryRollup(position, from, now, trendChart.getWidth(), rollupWindow);
+            trendChart.showRollup(rollupWindow, from, now, itemView.getContext().getString(TREND_SPAN_LABELS[trendSpan]));
+            trendSpanQueriedAt = SystemClock.uptimeMillis();
+        }
+
+        // Applies the input's settings. A gauge type change never lands here: it changes the view
+        // type, so RecyclerView binds a holder of the new type instead.
+        void bindConfig(AnalogInput input) {
             tvInputName.setText(input.getName());
             String inputTypeText = input.getInputType().getDisplayName();
             if (input.isEnabled()) {
-                inputTypeText += itemView.getContext().getString(R.string.source_format, input.getDataSource());
+                inputTypeText += input.getBoardId() == 0
+                        ? itemView.getContext().getString(R.string.source_format, input.getDataSource())
+                        : itemView.getContext().getString(R.string.board_source_format, input.getBoardId(), input.getDataSource());
             }
             tvInputType.setText(inputTypeText);
             tvDescription.setText(input.getDescription());
@@ -225,59 +364,45 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
                 // Show "Not Configured" state
                 tvMappedValue.setText(itemView.getContext().getString(R.string.not_configured));
                 tvRawValue.setText(itemView.getContext().getString(R.string.click_to_configure));
-                
-                // Hide all gauges
-                roundGauge.setVisibility(View.GONE);
-                barChart.setVisibility(View.GONE);
-                trendChart.setVisibility(View.GONE);
+                shownRawValue = Double.NaN;
                 
                 // Show configure message in gauge container
                 showConfigureMessage();
                 return;
             }
 
-            // Input is enabled, show normal gauge
-            tvMappedValue.setText(input.getFormattedValue());
-            tvRawValue.setText(input.getFormattedRawValue());
-
-            // Hide all gauges first
-            roundGauge.setVisibility(View.GONE);
-            barChart.setVisibility(View.GONE);
-            trendChart.setVisibility(View.GONE);
-
-            // Show the selected gauge type
-            switch (input.getGaugeType()) {
-                case ROUND_GAUGE:
-                    roundGauge.setVisibility(View.VISIBLE);
-                    roundGauge.setValue((float) input.getMappedValue());
-                    roundGauge.setRange((float) input.getMinMappedValue(), (float) input.getMaxMappedValue());
-                    roundGauge.setUnit(input.getUnit());
-                    // Title removed - already shown in card header
-                    break;
-                case BAR_CHART:
-                    barChart.setVisibility(View.VISIBLE);
-                    barChart.setValue((float) input.getMappedValue());
-                    barChart.setRange((float) input.getMinMappedValue(), (float) input.getMaxMappedValue());
-                    barChart.setUnit(input.getUnit());
-                    // Title removed - already shown in card header
-                    break;
-                case TREND_CHART:
-                    trendChart.setVisibility(View.VISIBLE);
-                    trendChart.setRange((float) input.getMinMappedValue(), (float) input.getMaxMappedValue());
-                    trendChart.setUnit(input.getUnit());
-                    // Title removed - already shown in card header
-                    
-                    // Only initialize with history if chart is empty, otherwise just add new data
-                    /*if (trendChart.getDataPointsCount() == 0) {
-                        trendChart.initializeWithHistory((float) input.getMappedValue());
-                    } else {
-                        // Just add the new data point to continue the trend
-                        trendChart.setCurrentValue((float) input.getMappedValue());
-                    }*/
-                    break;
+            // Input is enabled, show normal gauge; the mapping may have changed, so reformat
+            shownRawValue = Double.NaN;
+            showValues(input);
+
+            // Range goes first: setValue() clamps to the current range and skips unchanged values
+            // Titles removed - already shown in card header
+            if (roundGauge != null) {
+                roundGauge.setRange((float) input.getMinMappedValue(), (float) input.getMaxMappedValue());
+                roundGauge.setUnit(input.getUnit());
+                roundGauge.setValue((float) input.getMappedValue());
+            } else if (barChart != null) {
+                barChart.setRange((float) input.getMinMappedValue(), (float) input.getMaxMappedValue());
+                barChart.setUnit(input.getUnit());
+                barChart.setValue((float) input.getMappedValue());
+            } else if (trendChart != null) {
+                trendChart.setRange((float) input.getMinMappedValue(), (float) input.getMaxMappedValue());
+                trendChart.setUnit(input.getUnit());
+                // The buckets hold raw values; map them with the new settings
+                if (trendSpan != 0 && input == trendSpanInput) showTrendSpan();
             }
         }
         
+        private void showValues(AnalogInput input) {
+            // The mapped value only changes with the raw one (binding resets this after edits)
+            if (input.getRawValue() == shownRawValue) return;
+            shownRawValue = input.getRawValue();
+            input.formatValue(mappedText.clear());
+            tvMappedValue.setText(mappedText.getChars(), 0, mappedText.length());
+            input.formatRawValue(rawText.clear());
+            tvRawValue.setText(rawText.getChars(), 0, rawText.length());
+        }
+
         private void showConfigureMessage() {
             // This will be handled by the gauge container showing a message
             // For now, we'll just hide the gauges and show the configure text
@@ -289,47 +414,42 @@ public class GaugeAdapter extends RecyclerView.Adapter<GaugeAdapter.GaugeViewHol
                 // For disabled inputs, just update the text values
                 tvMappedValue.setText(itemView.getContext().getString(R.string.not_configured));
                 tvRawValue.setText(itemView.getContext().getString(R.string.click_to_configure));
+                shownRawValue = Double.NaN;
                 return;
             }
             
             // Update the displayed values for all gauge types
-            tvMappedValue.setText(input.getFormattedValue());
-            tvRawValue.setText(input.getFormattedRawValue());
+            showValues(input);
             
-            // Update the specific gauge type directly
-            switch (input.getGaugeType()) {
-                case ROUND_GAUGE:
-                    if (roundGauge.getVisibility() == View.VISIBLE) {
-                        roundGauge.setValue((float) input.getMappedValue());
-                    }
-                    break;
-                case BAR_CHART:
-                    if (barChart.getVisibility() == View.VISIBLE) {
-                        barChart.setValue((float) input.getMappedValue());
-                    }
-                    break;
-                case TREND_CHART:
-                    if (trendChart.getVisibility() == View.VISIBLE) {
-                        // Only add new data point, don't rebind
-                        trendChart.setCurrentValue((float) input.getMappedValue());
-                    }
-                    break;
+            // Update the holder's gauge directly
+            if (roundGauge != null) {
+                roundGauge.setValue((float) input.getMappedValue());
+            } else if (barChart != null) {
+                barChart.setValue((float) input.getMappedValue());
+            } else if (trendChart != null) {
+                // Only add new data point, don't rebind
+                trendChart.setCurrentValue((float) input.getMappedValue());
+                if (trendSpan != 0 && SystemClock.uptimeMillis() - trendSpanQueriedAt >= TREND_SPAN_REFRESH_MILLIS) {
+                    showTrendSpan();
+                }
             }
         }
     }
     
-    // Method to update all gauges directly without recreating views
-    public void updateAllGaugesDirectly() {
-        for (int i = 0; i < analogInputs.size(); i++) {
-            // Find the ViewHolder for this position if it's currently visible
-            RecyclerView.ViewHolder viewHolder = recyclerView != null ? 
-                recyclerView.findViewHolderForAdapterPosition(i) : null;
-            
-            if (viewHolder instanceof GaugeViewHolder) {
-                GaugeViewHolder gaugeViewHolder = (GaugeViewHolder) viewHolder;
-                gaugeViewHolder.updateGaugeDirectly(analogInputs.get(i));
+    // Updates the holders of channels that got new samples, then clears the bank's changes. The
+    // cost follows the number of changed channels, not the size of the dashboard.
+    public void updateChangedGauges(ChannelBank bank) {
+        if (recyclerView != null) {
+            int count = analogInputs.size();
+            for (int channel = bank.nextChangedChannel(0); channel >= 0 && channel < count;
+                    channel = bank.nextChangedChannel(channel + 1)) {
+                RecyclerView.ViewHolder viewHolder = recyclerView.findViewHolderForAdapterPosition(channel);
+                if (viewHolder instanceof GaugeViewHolder) {
+                    ((GaugeViewHolder) viewHolder).updateGaugeDirectly(analogInputs.get(channel));
+                }
             }
         }
+        bank.clearChanged();
     }
     
     private RecyclerView recyclerView;
@@ -17,6 +17,8 @@ import androidx.appcompat.app.AlertDialog;
 import com.google.android.material.button.MaterialButton;
 import com.xsz.IoT.R;
 import com.xsz.IoT.model.AnalogInput;
+import com.xsz.IoT.model.ChannelAddress;
+import com.xsz.IoT.model.IoTDataManager;
 
 public class GaugeSettingsDialog extends Dialog {
     private AnalogInput analogInput;
@@ -47,6 +49,7 @@ public class GaugeSettingsDialog extends Dialog {
 
     private void setupViews(View view) {
         Switch switchEnabled = view.findViewById(R.id.switch_enabled);
+        Spinner spinnerBoard = view.findViewById(R.id.spinner_board);
         Spinner spinnerDataSource = view.findViewById(R.id.spinner_data_source);
         Spinner spinnerInputType = view.findViewById(R.id.spinner_input_type);
         Spinner spinnerGaugeType = view.findViewById(R.id.spinner_gauge_type);
@@ -59,27 +62,33 @@ public class GaugeSettingsDialog extends Dialog {
         MaterialButton btnSave = view.findViewById(R.id.btn_save);
 
         // Setup spinners
-        setupSpinners(spinnerDataSource, spinnerInputType, spinnerGaugeType);
+        setupSpinners(spinnerBoard, spinnerDataSource, spinnerInputType, spinnerGaugeType);
 
         // Setup listeners
         switchEnabled.setOnCheckedChangeListener((buttonView, isChecked) -> {
             analogInput.setEnabled(isChecked);
         });
 
+        spinnerBoard.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                analogInput.setBoardId(position);
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) {}
+        });
+
         spinnerDataSource.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                int selectedSource = position + 1; // 1-8
+                int selectedSource = position + 1; // channel on the selected board
                 analogInput.setDataSource(selectedSource);
                 
-                // Auto-update input type based on data source
-                if (selectedSource <= 4) {
-                    analogInput.setInputType(AnalogInput.InputType.VOLTAGE_0_10V);
-                    spinnerInputType.setSelection(0);
-                } else {
-                    analogInput.setInputType(AnalogInput.InputType.CURRENT_4_20MA);
-                    spinnerInputType.setSelection(1);
-                }
+                // Auto-update input type based on the board's channel layout
+                AnalogInput.InputType inputType = ChannelAddress.defaultInputType(selectedSource);
+                analogInput.setInputType(inputType);
+                spinnerInputType.setSelection(inputType.ordinal());
             }
 
             @Override
@@ -133,12 +142,24 @@ public class GaugeSettingsDialog extends Dialog {
         });
     }
 
-    private void setupSpinners(Spinner dataSourceSpinner, Spinner inputTypeSpinner, Spinner gaugeTypeSpinner) {
-        // Data Source Spinner (1-8)
-        String[] dataSources = new String[8];
-        for (int i = 0; i < 8; i++) {
+    private void setupSpinners(Spinner boardSpinner, Spinner dataSourceSpinner, Spinner inputTypeSpinner, Spinner gaugeTypeSpinner) {
+        // Board Spinner: every board in use plus the next one, so a new board can be added
+        int boardCount = Math.max(IoTDataManager.getInstance().getBoardCount(), analogInput.getBoardId() + 1) + 1;
+        String[] boards = new String[boardCount];
+        for (int i = 0; i < boardCount; i++) {
+            boards[i] = context.getString(R.string.board_format, i);
+        }
+        ArrayAdapter<String> boardAdapter = new ArrayAdapter<>(
+                context, R.layout.spinner_item_dark, boards);
+        boardAdapter.setDropDownViewResource(R.layout.spinner_dropdown_item_dark);
+        boardSpinner.setAdapter(boardAdapter);
+
+        // Data Source Spinner (channels of one board)
+        String[] dataSources = new String[ChannelAddress.CHANNELS_PER_BOARD];
+        for (int i = 0; i < dataSources.length; i++) {
             int sourceNum = i + 1;
-            String inputType = sourceNum <= 4 ? context.getString(R.string.voltage_0_10v) : context.getString(R.string.current_4_20ma);
+            String inputType = ChannelAddress.defaultInputType(sourceNum) == AnalogInput.InputType.VOLTAGE_0_10V
+                    ? context.getString(R.string.voltage_0_10v) : context.getString(R.string.current_4_20ma);
             dataSources[i] = context.getString(R.string.input_format, sourceNum, inputType);
         }
         ArrayAdapter<String> dataSourceAdapter = new ArrayAdapter<>(
@@ -163,6 +184,7 @@ public class GaugeSettingsDialog extends Dialog {
         View view = findViewById(android.R.id.content);
         
         Switch switchEnabled = view.findViewById(R.id.switch_enabled);
+        Spinner spinnerBoard = view.findViewById(R.id.spinner_board);
         Spinner spinnerDataSource = view.findViewById(R.id.spinner_data_source);
         Spinner spinnerInputType = view.findViewById(R.id.spinner_input_type);
         Spinner spinnerGaugeType = view.findViewById(R.id.spinner_gauge_type);
@@ -174,6 +196,7 @@ public class GaugeSettingsDialog extends Dialog {
 
         // Populate fields with current values
         switchEnabled.setChecked(analogInput.isEnabled());
+        spinnerBoard.setSelection(analogInput.getBoardId());
         spinnerDataSource.setSelection(analogInput.getDataSource() - 1); // Convert 1-8 to 0-7
         spinnerInputType.setSelection(analogInput.getInputType().ordinal());
         spinnerGaugeType.setSelection(analogInput.getGaugeType().ordinal());
@@ -2,33 +2,169 @@ package com.xsz.IoT.model;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
 
-import com.google.firebase.crashlytics.buildtools.reloc.com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
-import java.lang.reflect.Type;
+import com.xsz.IoT.acquisition.AcquisitionEngine;
+import com.xsz.IoT.acquisition.LoadSimulator;
+import com.xsz.IoT.metrics.PerfMetrics;
+import com.xsz.IoT.storage.SampleStore;
+import com.xsz.IoT.storage.SettingsStore;
+
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 public class IoTDataManager {
     private static IoTDataManager instance;
     private List<AnalogInput> analogInputs;
-    private Random random;
+    private ChannelBank channelBank;
+    private ChannelHistory channelHistory;
+    private int historyCapacity = DEFAULT_HISTORY_CAPACITY;
     private boolean isSimulationRunning;
     private Context context;
+    // Settings used to be one JSON list in SharedPreferences; it is migrated on first load
     private static final String PREFS_NAME = "iot_gauge_settings";
     private static final String KEY_ANALOG_INPUTS = "analog_inputs";
+    private static final String SETTINGS_DIR = "settings";
+    private static final String TAG = "IoTDataManager";
+    private static final String HISTORY_DIR = "history";
+    // How far back the in-memory history is refilled from disk on startup
+    private static final long HISTORY_RESTORE_MILLIS = 60 * 60 * 1000L;
+    // Live history gets one point per applied snapshot, so at most one per display frame (60 Hz);
+    // the restore keeps samples this far apart so the ring spans the same time either way
+    private static final long HISTORY_POINT_MILLIS = 16;
+    public static final int DEFAULT_INPUT_COUNT = 8;
+    // Samples kept per channel in memory (rounded up to a power of two)
+    public static final int DEFAULT_HISTORY_CAPACITY = 1024;
+    // Distinct (board, channel) sources the dashboard can track at once
+    public static final int MAX_SOURCES = 1024;
+
+    // Frames from the acquisition thread are recorded and published as snapshots through here
+    private final SampleIngest ingest = new SampleIngest(MAX_SOURCES);
+    // Always on; see MainActivity's performance overlay
+    private final PerfMetrics metrics = new PerfMetrics(MAX_SOURCES);
+    // Fed every acquired sample by the ingest; sized to the source count by rebuildSourceMap()
+    private final ChannelRollup channelRollup = new ChannelRollup();
+    private long appliedSnapshotVersion;
+    private long appliedPublishNanos;
+    private long sourceMapGeneration;
+    private IOException reportedStoreError;
+    private AcquisitionEngine acquisitionEngine;
+    private LoadSimulator loadSimulator;
+    private boolean resumeAcquisitionAfterLoad;
+    // One file per input, written in the background only for the inputs that changed
+    private SettingsStore settingsStore;
+    private boolean settingsLoaded;
+    private boolean settingsLoading;
+    private long settingsLoadMillis = -1;
+    private Runnable onSettingsLoadedListener;
 
     private IoTDataManager() {
         analogInputs = new ArrayList<>();
-        random = new Random();
         isSimulationRunning = false;
-        initializeAnalogInputs();
+        initializeAnalogInputs(DEFAULT_INPUT_COUNT);
+        attachChannelBank();
+        ingest.setMetrics(metrics);
+        ingest.setRollup(channelRollup);
+        metrics.setGcCounter(IoTDataManager::readGcCount);
+    }
+
+    // ART's count of garbage collections since the process started
+    private static long readGcCount() {
+        String count = Debug.getRuntimeStat("art.gc.gc-count");
+        try {
+            return count != null ? Long.parseLong(count) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public PerfMetrics getMetrics() {
+        return metrics;
     }
     
     public void setContext(Context context) {
-        this.context = context;
-        loadSettings();
+        this.context = context.getApplicationContext();
+        if (settingsStore == null) {
+            settingsStore = new SettingsStore(new File(this.context.getFilesDir(), SETTINGS_DIR));
+        }
+    }
+
+    // Reads the saved settings, opens the sample history and restores its last hour on a background
+    // thread, then applies them on the main thread and runs the listener there. Until then the
+    // dashboard shows the default inputs as placeholders. Runs the listener right away if loading
+    // already finished.
+    public void loadSettingsAsync(Runnable onLoaded) {
+        if (settingsLoaded) {
+            onLoaded.run();
+            return;
+        }
+        onSettingsLoadedListener = onLoaded;
+        if (settingsLoading || context == null) return;
+        settingsLoading = true;
+
+        long startTime = SystemClock.uptimeMillis();
+        int capacity = historyCapacity;
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        Thread loader = new Thread(() -> {
+            List<AnalogInput> savedInputs = readSettings();
+            SampleStore store = null;
+            ChannelHistory restored = null;
+            try {
+                store = new SampleStore(new File(context.getFilesDir(), HISTORY_DIR));
+                // The default inputs start disabled, so only a saved configuration has anything to restore
+                if (savedInputs != null && !savedInputs.isEmpty()) {
+                    restored = restoreHistory(store, savedInputs, capacity,
+                            System.currentTimeMillis() - HISTORY_RESTORE_MILLIS);
+                }
+            } catch (IOException e) {
+                Log.e(TAG, store == null ? "Unable to open sample history" : "Unable to restore sample history", e);
+            }
+            SampleStore openedStore = store;
+            ChannelHistory restoredHistory = restored;
+            mainHandler.post(() -> applyLoadedSettings(savedInputs, openedStore, restoredHistory, startTime));
+        }, "settings-loader");
+        loader.start();
+    }
+
+    public boolean isSettingsLoaded() {
+        return settingsLoaded;
+    }
+
+    // Time the last settings load took from start to applied, or -1 if none finished yet
+    public long getSettingsLoadMillis() {
+        return settingsLoadMillis;
+    }
+
+    private void applyLoadedSettings(List<AnalogInput> savedInputs, SampleStore store, ChannelHistory restored,
+                                     long startTime) {
+        if (savedInputs != null && !savedInputs.isEmpty()) {
+            analogInputs = savedInputs;
+            attachChannelBank();
+        }
+        // Built for exactly these inputs on the loader thread; only the references change here
+        if (restored != null && restored.getChannelCount() == analogInputs.size()) {
+            channelHistory = restored.getCapacity() == channelHistory.getCapacity()
+                    ? restored
+                    : new ChannelHistory(analogInputs.size(), historyCapacity, restored);
+            channelBank.setHistory(channelHistory);
+        }
+        if (store != null) ingest.setSampleStore(store);
+
+        settingsLoading = false;
+        settingsLoaded = true;
+        settingsLoadMillis = SystemClock.uptimeMillis() - startTime;
+        Log.i(TAG, "Loaded " + analogInputs.size() + " inputs in " + settingsLoadMillis + " ms");
+
+        Runnable listener = onSettingsLoadedListener;
+        onSettingsLoadedListener = null;
+        if (listener != null) listener.run();
     }
 
     public static synchronized IoTDataManager getInstance() {
@@ -38,8 +174,8 @@ public class IoTDataManager {
         return instance;
     }
 
-    private void initializeAnalogInputs() {
-        for (int i = 1; i <= 8; i++) {
+    private void initializeAnalogInputs(int count) {
+        for (int i = analogInputs.size() + 1; i <= count; i++) {
             AnalogInput input = new AnalogInput(i);
             
             // Set minimal default configuration - user will configure each gauge
@@ -54,10 +190,103 @@ public class IoTDataManager {
         }
     }
 
+    // Grows or shrinks the dashboard; new inputs continue the board-by-board layout
+    public void setInputCount(int count) {
+        count = Math.max(1, count);
+        if (count == analogInputs.size()) return;
+
+        int previousCount = analogInputs.size();
+        if (count < previousCount) {
+            analogInputs.subList(count, previousCount).clear();
+            for (int i = count; i < previousCount; i++) {
+                removeInputSettings(i);
+            }
+        } else {
+            initializeAnalogInputs(count);
+            for (int i = previousCount; i < count; i++) {
+                saveInputSettings(i);
+            }
+        }
+        attachChannelBank();
+    }
+
+    // Moves the live values of all inputs into one struct-of-arrays bank, indexed like analogInputs
+    private void attachChannelBank() {
+        channelBank = new ChannelBank(analogInputs.size());
+        channelHistory = new ChannelHistory(analogInputs.size(), historyCapacity, channelHistory);
+        channelBank.setHistory(channelHistory);
+        for (int i = 0; i < analogInputs.size(); i++) {
+            analogInputs.get(i).attach(channelBank, i);
+        }
+        rebuildSourceMap();
+    }
+
+    // Assigns one slot per distinct (board, channel) in use and hands the new map to the
+    // acquisition thread. Gauges sharing a physical input share its slot.
+    private void rebuildSourceMap() {
+        SourceMap.Builder builder = new SourceMap.Builder(++sourceMapGeneration);
+        for (int i = 0; i < analogInputs.size(); i++) {
+            AnalogInput input = analogInputs.get(i);
+            int slot = builder.add(input.getBoardId(), input.getDataSource());
+            channelBank.setSource(i, slot < MAX_SOURCES ? slot : -1);
+        }
+        SourceMap map = builder.build();
+        channelRollup.configure(map);
+        ingest.setSourceMap(map);
+    }
+
+    // Number of boards referenced by the configuration (board ids are 0 .. count - 1)
+    public int getBoardCount() {
+        int maxBoardId = 0;
+        for (int i = 0; i < analogInputs.size(); i++) {
+            maxBoardId = Math.max(maxBoardId, analogInputs.get(i).getBoardId());
+        }
+        return maxBoardId + 1;
+    }
+
+    // Slot of a physical input in the acquired snapshots, or -1 if no gauge uses it
+    public int getSourceSlot(int boardId, int channel) {
+        return ingest.getSourceMap().slotOf(boardId, channel);
+    }
+
     public List<AnalogInput> getAnalogInputs() {
         return analogInputs;
     }
 
+    public ChannelBank getChannelBank() {
+        return channelBank;
+    }
+
+    // Per-channel sample history, indexed like getAnalogInputs()
+    public ChannelHistory getChannelHistory() {
+        return channelHistory;
+    }
+
+    // Min/max/avg buckets of every acquired sample per physical input, at 1 s, 1 min and 1 h
+    public ChannelRollup getChannelRollup() {
+        return channelRollup;
+    }
+
+    // Buckets of the input's source covering [fromTimestamp, toTimestamp) at the level that suits
+    // pixelWidth columns, in the input's mapped units; empty if the input is out of range
+    public RollupWindow queryRollup(int index, long fromTimestamp, long toTimestamp, int pixelWidth,
+                                    RollupWindow out) {
+        if (index < 0 || index >= analogInputs.size()) {
+            return channelRollup.query(-1, fromTimestamp, toTimestamp, pixelWidth, out);
+        }
+        AnalogInput input = analogInputs.get(index);
+        channelRollup.query(ChannelAddress.key(input.getBoardId(), input.getDataSource()),
+                fromTimestamp, toTimestamp, pixelWidth, out);
+        return channelBank.mapRollup(index, out);
+    }
+
+    // Retention in samples per channel; existing history is kept up to the new capacity
+    public void setHistoryCapacity(int samplesPerChannel) {
+        historyCapacity = Math.max(2, samplesPerChannel);
+        channelHistory = new ChannelHistory(analogInputs.size(), historyCapacity, channelHistory);
+        channelBank.setHistory(channelHistory);
+    }
+
     public AnalogInput getAnalogInput(int inputNumber) {
         if (inputNumber >= 1 && inputNumber <= analogInputs.size()) {
             return analogInputs.get(inputNumber - 1);
@@ -73,95 +302,288 @@ public class IoTDataManager {
     }
 
     public void startSimulation() {
-        isSimulationRunning = true;
-        // In a real implementation, this would start a background thread
-        // to continuously update values from ESP board
+        startAcquisition(AcquisitionEngine.Transport.UDP, AcquisitionEngine.DEFAULT_PORT);
     }
 
+    public void startAcquisition(AcquisitionEngine.Transport transport, int port) {
+        if (isSimulationRunning || loadSimulator != null) return;
+
+        // Frames are decoded on the engine's I/O thread; only the latest value per source is kept
+        acquisitionEngine = new AcquisitionEngine(transport, port, ingest);
+        acquisitionEngine.setMetrics(metrics);
+        try {
+            acquisitionEngine.start();
+            isSimulationRunning = true;
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to start acquisition on port " + port, e);
+            acquisitionEngine = null;
+        }
+    }
+
+    // Stops acquisition and any load simulation, which is then not resumed
     public void stopSimulation() {
+        if (loadSimulator != null) {
+            loadSimulator.stop();
+            loadSimulator = null;
+            resumeAcquisitionAfterLoad = false;
+        }
+        if (acquisitionEngine != null) {
+            acquisitionEngine.stop();
+            acquisitionEngine = null;
+        }
         isSimulationRunning = false;
+
+        // The writer thread is gone, so the store can be synced from here
+        flushSampleStore();
     }
 
-    private long simulationStartTime = System.currentTimeMillis();
-    
-    public void resetSimulationTimer() {
-        simulationStartTime = System.currentTimeMillis();
+    private void flushSampleStore() {
+        ingest.flush();
+        IOException error = ingest.getLastError();
+        if (error != null && error != reportedStoreError) {
+            reportedStoreError = error;
+            Log.e(TAG, "Sample history disabled", error);
+        }
     }
-    
-    public void generateSimulatedData() {
-        long currentTime = System.currentTimeMillis();
-        double timeInSeconds = (currentTime - simulationStartTime) / 1000.0;
-        
-        for (int i = 0; i < analogInputs.size(); i++) {
-            AnalogInput input = analogInputs.get(i);
-            if (input.isEnabled()) {
-                double rawValue;
-                
-                // Generate more realistic trending data with different patterns for each input
-                double baseFrequency = 0.1 + (i * 0.05); // Different frequency for each input
-                double amplitude, offset;
-                
-                if (input.getDataSource() <= 4) {
-                    // 0-10V inputs
-                    amplitude = 4.0; // ±4V variation
-                    offset = 5.0;    // Center at 5V
-                    rawValue = offset + amplitude * Math.sin(timeInSeconds * baseFrequency);
-                    // Add some noise
-                    rawValue += (random.nextDouble() - 0.5) * 0.5;
-                    rawValue = Math.max(0, Math.min(10, rawValue));
-                } else {
-                    // 4-20mA inputs  
-                    amplitude = 6.0; // ±6mA variation
-                    offset = 12.0;   // Center at 12mA
-                    rawValue = offset + amplitude * Math.sin(timeInSeconds * baseFrequency);
-                    // Add some noise
-                    rawValue += (random.nextDouble() - 0.5) * 0.3;
-                    rawValue = Math.max(4, Math.min(20, rawValue));
-                }
-                
-                input.setRawValue(rawValue);
+
+    // Returns the newest acquired snapshot and re-arms the samples listener. Snapshots have a single
+    // consumer: the main thread through applyAcquiredSamples(), or another renderer (such as the
+    // gauge wall) while it replaces the gauge grid; hand over only while neither side is reading.
+    public ValueSnapshot acquireSamples() {
+        return ingest.acquire();
+    }
+
+    // Snapshots whose generation differs were written for another slot layout
+    public long getSourceMapGeneration() {
+        return ingest.getSourceMap().getGeneration();
+    }
+
+    // Invoked on the acquisition thread at most once per batch of frames. The listener should hand
+    // off to the main thread, which then calls applyAcquiredSamples() and refreshes the gauges.
+    public void setOnSamplesAvailableListener(Runnable listener) {
+        ingest.setOnSamplesAvailableListener(listener);
+    }
+
+    // Copies the latest acquired snapshot into the analog inputs. Must be called on the main thread,
+    // which is the only thread that ever reads or writes AnalogInput values.
+    public boolean applyAcquiredSamples() {
+        ValueSnapshot snapshot = acquireSamples();
+        if (snapshot.getVersion() == appliedSnapshotVersion) return false;
+        appliedSnapshotVersion = snapshot.getVersion();
+        // Written for a previous slot layout; a fresh snapshot follows with the next frame
+        if (snapshot.getGeneration() != ingest.getSourceMap().getGeneration()) return false;
+
+        long start = System.nanoTime();
+        channelBank.applySnapshot(snapshot);
+        metrics.recordMapping(System.nanoTime() - start);
+        appliedPublishNanos = snapshot.getPublishNanos();
+        return true;
+    }
+
+    // When the snapshot last applied by applyAcquiredSamples() was published, in System.nanoTime()
+    public long getAppliedPublishNanos() {
+        return appliedPublishNanos;
+    }
+
+    // Replaces the hardware with a load simulator feeding the same ingest path. Acquisition is
+    // paused meanwhile, since SampleIngest expects frames from a single thread.
+    public void startLoadSimulation(int sampleRateHz, long seed) {
+        if (loadSimulator != null) return;
+        resumeAcquisitionAfterLoad = isSimulationRunning;
+        stopSimulation();
+
+        LoadSimulator simulator = new LoadSimulator(getBoardCount(), ChannelAddress.CHANNELS_PER_BOARD,
+                sampleRateHz, seed, ingest);
+        for (int channel = 1; channel <= ChannelAddress.CHANNELS_PER_BOARD; channel++) {
+            if (ChannelAddress.defaultInputType(channel) == AnalogInput.InputType.VOLTAGE_0_10V) {
+                simulator.setChannelRange(channel, 0f, 10f);
+            } else {
+                simulator.setChannelRange(channel, 4f, 20f);
             }
         }
+        simulator.setWaveforms(LoadSimulator.Waveform.SINE, LoadSimulator.Waveform.TRIANGLE,
+                LoadSimulator.Waveform.SAWTOOTH, LoadSimulator.Waveform.SQUARE);
+        loadSimulator = simulator;
+        simulator.start();
+    }
+
+    public void stopLoadSimulation() {
+        LoadSimulator simulator = loadSimulator;
+        if (simulator == null) return;
+        simulator.stop();
+        loadSimulator = null;
+        if (resumeAcquisitionAfterLoad) {
+            startSimulation();
+        } else {
+            flushSampleStore();
+        }
+    }
+
+    public boolean isLoadSimulationRunning() {
+        return loadSimulator != null;
     }
 
     public boolean isSimulationRunning() {
         return isSimulationRunning;
     }
     
+    // Rewrites the settings of every input; edits only need saveInputSettings()
     public void saveSettings() {
-        if (context == null) return;
-        
-        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        
-        Gson gson = new Gson();
-        String json = gson.toJson(analogInputs);
-        editor.putString(KEY_ANALOG_INPUTS, json);
-        editor.apply();
+        for (int i = 0; i < analogInputs.size(); i++) {
+            saveInputSettings(i);
+        }
     }
-    
-    private void loadSettings() {
-        if (context == null) return;
-        
+
+    private void saveInputSettings(int index) {
+        if (settingsStore == null) return;
+        settingsStore.put(index, AnalogInputCodec.toJson(analogInputs.get(index)));
+    }
+
+    private void removeInputSettings(int index) {
+        if (settingsStore == null) return;
+        settingsStore.remove(index);
+    }
+
+    // Starts writing pending settings changes now instead of after the debounce delay; does not
+    // wait for the disk, so it is fine from onStop()
+    public void flushSettingsAsync() {
+        if (settingsStore != null) settingsStore.flushAsync();
+    }
+
+    // Writes pending settings changes and waits until they are synced; only for teardown, where
+    // the process may be gone before a background write finishes
+    public void flushSettings() {
+        if (settingsStore != null) settingsStore.flush();
+    }
+
+    // Loader thread: fills a new history for the given inputs from the store. Takes the first
+    // sample of every source in each HISTORY_POINT_MILLIS step of the newest stretch that fills
+    // the rings (from no earlier than fromTimestamp), seeking to every step through the store's
+    // time index, and appends them mapped with the inputs' settings. Works on its own bank and
+    // source map laid out like attachChannelBank() does, never on the live ones. The rollups are
+    // not restored: the steps skip the samples in between.
+    private static ChannelHistory restoreHistory(SampleStore store, List<AnalogInput> inputs, int historyCapacity,
+                                                  long fromTimestamp) throws IOException {
+        int channels = inputs.size();
+        ChannelBank bank = new ChannelBank(channels);
+        SourceMap.Builder builder = new SourceMap.Builder(0);
+        for (int i = 0; i < channels; i++) {
+            AnalogInput input = inputs.get(i);
+            bank.configure(i, input);
+            int slot = builder.add(input.getBoardId(), input.getDataSource());
+            bank.setSource(i, slot < MAX_SOURCES ? slot : -1);
+        }
+        SourceMap map = builder.build();
+        ChannelHistory history = new ChannelHistory(channels, historyCapacity);
+        int capacity = history.getCapacity();
+
+        // Channels fed by each source slot, as linked lists since gauges may share an input
+        int[] firstChannel = new int[MAX_SOURCES];
+        int[] nextChannel = new int[channels];
+        Arrays.fill(firstChannel, -1);
+        int wantedSlots = 0;
+        for (int channel = channels - 1; channel >= 0; channel--) {
+            int slot = bank.getSource(channel);
+            if (!bank.isEnabled(channel) || slot < 0) continue;
+            if (firstChannel[slot] < 0) wantedSlots++;
+            nextChannel[channel] = firstChannel[slot];
+            firstChannel[slot] = channel;
+        }
+        long lastTimestamp = store.getLastTimestamp();
+        if (wantedSlots == 0 || lastTimestamp < fromTimestamp) return history;
+
+        // One step per ring slot, ending with the newest sample
+        long from = Math.max(fromTimestamp, lastTimestamp + 1 - capacity * HISTORY_POINT_MILLIS);
+        double[] values = new double[channels * capacity];
+        long[] timestamps = new long[channels * capacity];
+        int[] counts = new int[channels];
+        // Step each slot was last found in, and how many wanted slots the current step found
+        long[] foundInStep = new long[MAX_SOURCES];
+        Arrays.fill(foundInStep, -1);
+        long[] step = {-1};
+        int[] found = {0};
+        int wanted = wantedSlots;
+        store.scanSteps(from, lastTimestamp + 1, HISTORY_POINT_MILLIS, (timestamp, sourceKey, value) -> {
+            long stepIndex = (timestamp - from) / HISTORY_POINT_MILLIS;
+            if (stepIndex != step[0]) {
+                step[0] = stepIndex;
+                found[0] = 0;
+            }
+            int slot = map.slotOf(sourceKey);
+            if (slot < 0 || slot >= MAX_SOURCES || firstChannel[slot] < 0 || foundInStep[slot] == stepIndex) {
+                return true;
+            }
+            foundInStep[slot] = stepIndex;
+            for (int channel = firstChannel[slot]; channel >= 0; channel = nextChannel[channel]) {
+                int count = counts[channel];
+                values[channel * capacity + count] = value;
+                timestamps[channel * capacity + count] = timestamp;
+                counts[channel] = count + 1;
+            }
+            // The rest of the step is skipped once every wanted source has its sample
+            return ++found[0] < wanted;
+        });
+
+        double[] mappedValues = new double[capacity];
+        for (int channel = 0; channel < channels; channel++) {
+            int base = channel * capacity;
+            bank.mapRawValues(channel, values, base, mappedValues, 0, counts[channel]);
+            for (int i = 0; i < counts[channel]; i++) {
+                history.append(channel, timestamps[base + i], (float) mappedValues[i]);
+            }
+        }
+        return history;
+    }
+
+    // Loader thread: only touches files, never the live inputs
+    private List<AnalogInput> readSettings() {
+        if (!settingsStore.exists()) return loadLegacySettings();
+
+        List<AnalogInput> savedInputs = new ArrayList<>();
+        try {
+            for (String json : settingsStore.loadAll()) {
+                savedInputs.add(AnalogInputCodec.fromJson(json));
+            }
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Unable to load settings", e);
+            return null;
+        }
+        return savedInputs;
+    }
+
+    // Reads the old single-string settings and moves them into the per-input store
+    private List<AnalogInput> loadLegacySettings() {
         SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         String json = prefs.getString(KEY_ANALOG_INPUTS, null);
-        
-        if (json != null) {
-            Gson gson = new Gson();
-            Type type = new TypeToken<List<AnalogInput>>(){}.getType();
-            List<AnalogInput> savedInputs = gson.fromJson(json, type);
-            
-            if (savedInputs != null && savedInputs.size() == 8) {
-                analogInputs = savedInputs;
+        if (json == null) return null;
+
+        List<AnalogInput> savedInputs;
+        try {
+            savedInputs = AnalogInputCodec.listFromJson(json);
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Unable to read old settings", e);
+            return null;
+        }
+        if (!savedInputs.isEmpty()) {
+            for (int i = 0; i < savedInputs.size(); i++) {
+                settingsStore.put(i, AnalogInputCodec.toJson(savedInputs.get(i)));
+            }
+            settingsStore.flush();
+            // Keep the old copy until the new one is safely on disk
+            if (settingsStore.getLastError() == null) {
+                prefs.edit().remove(KEY_ANALOG_INPUTS).apply();
             }
         }
+        return savedInputs;
     }
-    
+
     public void updateAnalogInput(AnalogInput input) {
         for (int i = 0; i < analogInputs.size(); i++) {
             if (analogInputs.get(i).getInputNumber() == input.getInputNumber()) {
                 analogInputs.set(i, input);
-                saveSettings();
+                input.attach(channelBank, i);
+                rebuildSourceMap();
+                saveInputSettings(i);
                 break;
             }
         }
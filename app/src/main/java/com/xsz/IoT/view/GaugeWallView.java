@@ -0,0 +1,440 @@
+package com.xsz.IoT.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.AttributeSet;
+import android.view.Display;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import com.xsz.IoT.calibration.CompiledCalibration;
+import com.xsz.IoT.format.FixedPointFormatter;
+import com.xsz.IoT.format.FormattedText;
+import com.xsz.IoT.model.AnalogInput;
+import com.xsz.IoT.model.IoTDataManager;
+import com.xsz.IoT.model.ValueSnapshot;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Draws the whole gauge grid onto a single surface from its own render thread, for large wall
+ * displays where per-card views cost too much. While started, the render thread is the consumer
+ * of the acquired snapshots: it is woken by the samples listener, maps the raw values itself and
+ * draws at most once per display frame, so the main thread is out of the per-sample path.
+ *
+ * start(), stop() and setInputs() are called on the main thread; everything else happens on the
+ * render thread.
+ */
+public class GaugeWallView extends SurfaceView implements SurfaceHolder.Callback {
+    private static final int TRACE_POINTS = 200;
+    // Tiles are laid out about this much wider than tall, whatever their count
+    private static final float TILE_ASPECT = 1.2f;
+    // Tiles smaller than this (in dp) get proportionally smaller text
+    private static final float FULL_TEXT_TILE_DP = 160;
+    private static final float NAME_TEXT_SP = 14;
+    private static final float LABEL_TEXT_SP = 11;
+    private static final float VALUE_TEXT_SP = 20;
+
+    private static final int colorBackground = 0xff343a3f;
+    private static final int colorCard = 0xff37404a;
+    private static final int colorTrack = 0xff4d5a66;
+    private static final int colorProgress = 0xff727cf5;
+    private static final int colorText = 0xffaab8be;
+    private static final int colorName = 0xfffafbfb;
+    private static final int colorValue = 0xff0acf97;
+
+    // Immutable configuration of one tile, taken from its AnalogInput on the main thread
+    private static final class Tile {
+        final String name;
+        final String unit;
+        final AnalogInput.GaugeType gaugeType;
+        final boolean enabled;
+        final float minValue;
+        final float maxValue;
+        final int slot;
+        final CompiledCalibration calibration;
+        final String minText;
+        final String maxText;
+
+        Tile(AnalogInput input, int slot, FixedPointFormatter labelFormatter) {
+            name = input.getName();
+            unit = input.getUnit() != null ? input.getUnit() : "";
+            gaugeType = input.getGaugeType();
+            enabled = input.isEnabled();
+            minValue = (float) input.getMinMappedValue();
+            maxValue = (float) input.getMaxMappedValue();
+            this.slot = slot;
+            calibration = input.compileCalibration();
+            minText = labelFormatter.format(minValue);
+            maxText = labelFormatter.format(maxValue);
+        }
+    }
+
+    private volatile Tile[] tiles = new Tile[0];
+    private volatile long sourceGeneration;
+    private final FixedPointFormatter labelFormatter = new FixedPointFormatter(0);
+
+    // Guards the surface between the render thread and the SurfaceHolder callbacks
+    private final Object surfaceLock = new Object();
+    private boolean surfaceReady;
+    private int surfaceWidth;
+    private int surfaceHeight;
+
+    private HandlerThread renderThread;
+    private volatile RenderScheduler scheduler;
+
+    // Render thread state
+    private final StaticLayer staticLayer = new StaticLayer(this::paintStatic);
+    private Tile[] layoutTiles;
+    private int layoutWidth;
+    private int layoutHeight;
+    private RectF[] tileRects = new RectF[0];
+    private float[] values = new float[0];
+    private float[][] traces = new float[0][];
+    private int[] traceCursors = new int[0];
+    private int[] traceCounts = new int[0];
+    private long lastVersion = -1;
+    private long lastPublishNanos;
+    private final float[] lineVertices = new float[4 * TRACE_POINTS];
+    private final RectF areaRect = new RectF();
+    private final RectF scratchRect = new RectF();
+    private final FixedPointFormatter valueFormatter = new FixedPointFormatter(1);
+    private final FormattedText valueText = new FormattedText();
+    private final Paint cardPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint trackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint progressPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint namePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint valuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    public GaugeWallView(Context context) {
+        super(context);
+        init();
+    }
+
+    public GaugeWallView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+
+    public GaugeWallView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+
+    private void init() {
+        getHolder().addCallback(this);
+        setTextScale(getResources().getDisplayMetrics().scaledDensity);
+
+        cardPaint.setColor(colorCard);
+        trackPaint.setColor(colorTrack);
+        trackPaint.setStyle(Paint.Style.STROKE);
+        progressPaint.setColor(colorProgress);
+        progressPaint.setStrokeCap(Paint.Cap.ROUND);
+        gridPaint.setColor(colorTrack);
+        gridPaint.setStrokeWidth(1);
+        namePaint.setColor(colorName);
+        namePaint.setFakeBoldText(true);
+        labelPaint.setColor(colorText);
+        labelPaint.setTextAlign(Paint.Align.CENTER);
+        valuePaint.setColor(colorValue);
+        valuePaint.setTextAlign(Paint.Align.CENTER);
+        valuePaint.setFakeBoldText(true);
+    }
+
+    // Takes the gauges to draw and their source slots; call again after the configuration changed
+    public void setInputs(List<AnalogInput> inputs, IoTDataManager dataManager) {
+        Tile[] newTiles = new Tile[inputs.size()];
+        for (int i = 0; i < newTiles.length; i++) {
+            AnalogInput input = inputs.get(i);
+            newTiles[i] = new Tile(input, dataManager.getSourceSlot(input.getBoardId(), input.getDataSource()), labelFormatter);
+        }
+        sourceGeneration = dataManager.getSourceMapGeneration();
+        tiles = newTiles;
+        requestRender();
+    }
+
+    // Starts the render thread; the caller routes the samples listener to requestRender()
+    public void start() {
+        if (renderThread != null) return;
+        renderThread = new HandlerThread("gauge-wall-render");
+        renderThread.start();
+        Display display = getDisplay();
+        float refreshRate = display != null ? display.getRefreshRate() : 0;
+        new Handler(renderThread.getLooper()).post(() -> {
+            RenderScheduler renderScheduler = new RenderScheduler(this::renderFrame);
+            renderScheduler.setMetrics(IoTDataManager.getInstance().getMetrics());
+            if (refreshRate > 0) renderScheduler.setFrameIntervalNanos((long) (1e9 / refreshRate));
+            scheduler = renderScheduler;
+            renderScheduler.requestRender();
+        });
+    }
+
+    // Stops the render thread and waits for it, so another consumer can take over the snapshots
+    public void stop() {
+        if (renderThread == null) return;
+        RenderScheduler current = scheduler;
+        if (current != null) current.pause();
+        new Handler(renderThread.getLooper()).post(staticLayer::release);
+        renderThread.quitSafely();
+        try {
+            renderThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        renderThread = null;
+        scheduler = null;
+    }
+
+    // Any thread
+    public void requestRender() {
+        RenderScheduler current = scheduler;
+        if (current != null) current.requestRender();
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized (surfaceLock) {
+            surfaceReady = true;
+            surfaceWidth = width;
+            surfaceHeight = height;
+        }
+        requestRender();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // Waits for a frame in progress, which holds the lock until the canvas is posted
+        synchronized (surfaceLock) {
+            surfaceReady = false;
+        }
+    }
+
+    // Render thread
+    private void renderFrame(long frameTimeNanos) {
+        Tile[] current = tiles;
+        if (current != layoutTiles) resetTiles(current);
+        boolean applied = applySamples(current);
+
+        synchronized (surfaceLock) {
+            if (!surfaceReady) return;
+            if (surfaceWidth != layoutWidth || surfaceHeight != layoutHeight) {
+                layout(surfaceWidth, surfaceHeight);
+            }
+            SurfaceHolder holder = getHolder();
+            Canvas canvas = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                    ? holder.getSurface().lockHardwareCanvas()
+                    : holder.lockCanvas();
+            if (canvas == null) return;
+            try {
+                staticLayer.draw(canvas);
+                for (int i = 0; i < current.length; i++) {
+                    if (current[i].enabled) drawTile(canvas, current[i], i);
+                }
+            } finally {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+                    holder.getSurface().unlockCanvasAndPost(canvas);
+                } else {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+            }
+        }
+        if (applied) {
+            IoTDataManager.getInstance().getMetrics().recordIngestToDraw(System.nanoTime() - lastPublishNanos);
+        }
+    }
+
+    // Returns whether a new snapshot was applied
+    private boolean applySamples(Tile[] current) {
+        ValueSnapshot snapshot = IoTDataManager.getInstance().acquireSamples();
+        if (snapshot.getVersion() == lastVersion) return false;
+        lastVersion = snapshot.getVersion();
+        if (snapshot.getGeneration() != sourceGeneration) return false;
+        long start = System.nanoTime();
+        lastPublishNanos = snapshot.getPublishNanos();
+
+        for (int i = 0; i < current.length; i++) {
+            Tile tile = current[i];
+            if (!tile.enabled || tile.slot < 0 || tile.slot >= snapshot.getChannelCount()) continue;
+            double rawValue = snapshot.getRawValue(tile.slot);
+            if (rawValue != rawValue) continue; // NaN: no sample yet
+            float value = (float) tile.calibration.map(rawValue);
+            values[i] = value;
+
+            // Sweep trace like TrendChartView, one point per frame with new samples
+            int cursor = traceCursors[i];
+            if (cursor == TRACE_POINTS) cursor = 0;
+            traces[i][cursor++] = value;
+            traceCursors[i] = cursor;
+            if (traceCounts[i] < cursor) traceCounts[i] = cursor;
+        }
+        IoTDataManager.getInstance().getMetrics().recordMapping(System.nanoTime() - start);
+        return true;
+    }
+
+    private void resetTiles(Tile[] current) {
+        int count = current.length;
+        if (values.length != count) {
+            values = new float[count];
+            traces = new float[count][TRACE_POINTS];
+            traceCursors = new int[count];
+            traceCounts = new int[count];
+            tileRects = new RectF[count];
+            for (int i = 0; i < count; i++) {
+                tileRects[i] = new RectF();
+            }
+        } else {
+            Arrays.fill(traceCursors, 0);
+            Arrays.fill(traceCounts, 0);
+        }
+        layoutTiles = current;
+        lastVersion = -1;
+        layoutWidth = -1;
+    }
+
+    private void setTextScale(float scale) {
+        namePaint.setTextSize(NAME_TEXT_SP * scale);
+        labelPaint.setTextSize(LABEL_TEXT_SP * scale);
+        valuePaint.setTextSize(VALUE_TEXT_SP * scale);
+    }
+
+    // Columns that bring the tiles closest to TILE_ASPECT on a width x height surface, without
+    // leaving whole columns empty in the last row
+    static int columnsFor(int count, int width, int height) {
+        if (count <= 1 || width <= 0 || height <= 0) return 1;
+        int columns = (int) Math.ceil(Math.sqrt(count * (double) width / (height * TILE_ASPECT)));
+        columns = Math.max(1, Math.min(count, columns));
+        int rows = (count + columns - 1) / columns;
+        return (count + rows - 1) / rows;
+    }
+
+    private void layout(int width, int height) {
+        layoutWidth = width;
+        layoutHeight = height;
+        int count = tileRects.length;
+        int columns = columnsFor(count, width, height);
+        int rows = Math.max(1, (count + columns - 1) / columns);
+        float density = getResources().getDisplayMetrics().density;
+        // Gaps shrink with the tiles, so hundreds of them still leave room for the gauges
+        float gap = Math.min(8 * density, Math.max(1, Math.min(width / columns, height / rows) / 20f));
+        float tileWidth = (width - gap * (columns + 1)) / columns;
+        float tileHeight = (height - gap * (rows + 1)) / rows;
+        for (int i = 0; i < count; i++) {
+            float left = gap + (i % columns) * (tileWidth + gap);
+            float top = gap + (i / columns) * (tileHeight + gap);
+            tileRects[i].set(left, top, left + tileWidth, top + tileHeight);
+        }
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        setTextScale(scaledDensity * Math.min(1f, Math.min(tileWidth, tileHeight) / (FULL_TEXT_TILE_DP * density)));
+        float stroke = Math.max(4, Math.min(tileWidth, tileHeight) / 20);
+        trackPaint.setStrokeWidth(stroke);
+        progressPaint.setStrokeWidth(stroke);
+        staticLayer.setSize(width, height);
+        staticLayer.invalidate();
+    }
+
+    // Background, cards, names, tracks and range labels; redrawn only on layout or config changes
+    private void paintStatic(Canvas canvas) {
+        canvas.drawColor(colorBackground);
+        Tile[] current = layoutTiles;
+        float radius = 8 * getResources().getDisplayMetrics().density;
+        for (int i = 0; i < current.length; i++) {
+            Tile tile = current[i];
+            RectF rect = tileRects[i];
+            canvas.drawRoundRect(rect, radius, radius, cardPaint);
+            canvas.drawText(tile.name, rect.left + radius, rect.top + radius + namePaint.getTextSize(), namePaint);
+            if (!tile.enabled) continue;
+
+            RectF area = gaugeArea(rect);
+            switch (tile.gaugeType) {
+                case ROUND_GAUGE:
+                    canvas.drawArc(area, 135, 270, false, trackPaint);
+                    break;
+                case BAR_CHART:
+                    trackPaint.setStyle(Paint.Style.FILL);
+                    canvas.drawRect(area, trackPaint);
+                    trackPaint.setStyle(Paint.Style.STROKE);
+                    break;
+                case TREND_CHART:
+                    for (int line = 0; line <= 4; line++) {
+                        float y = area.top + area.height() * line / 4;
+                        canvas.drawLine(area.left, y, area.right, y, gridPaint);
+                    }
+                    break;
+            }
+            float labelY = area.bottom + labelPaint.getTextSize();
+            canvas.drawText(tile.minText, area.left, labelY, labelPaint);
+            canvas.drawText(tile.maxText, area.right, labelY, labelPaint);
+        }
+    }
+
+    private void drawTile(Canvas canvas, Tile tile, int index) {
+        RectF area = gaugeArea(tileRects[index]);
+        float value = values[index];
+        float range = tile.maxValue - tile.minValue;
+        float progress = range != 0 ? Math.max(0, Math.min(1, (value - tile.minValue) / range)) : 0;
+
+        switch (tile.gaugeType) {
+            case ROUND_GAUGE:
+                progressPaint.setStyle(Paint.Style.STROKE);
+                canvas.drawArc(area, 135, 270 * progress, false, progressPaint);
+                break;
+            case BAR_CHART:
+                progressPaint.setStyle(Paint.Style.FILL);
+                scratchRect.set(area.left, area.bottom - area.height() * progress, area.right, area.bottom);
+                canvas.drawRect(scratchRect, progressPaint);
+                break;
+            case TREND_CHART:
+                drawTrace(canvas, tile, index, area);
+                break;
+        }
+
+        valueFormatter.format(value, valueText.clear()).append(' ').append(tile.unit);
+        canvas.drawText(valueText.getChars(), 0, valueText.length(), area.centerX(), area.centerY(), valuePaint);
+    }
+
+    private void drawTrace(Canvas canvas, Tile tile, int index, RectF area) {
+        int count = traceCounts[index];
+        int cursor = traceCursors[index];
+        float[] trace = traces[index];
+        float range = tile.maxValue - tile.minValue;
+        if (count < 2 || range == 0) return;
+
+        float xStep = area.width() / (TRACE_POINTS - 1);
+        int vertexCount = 0;
+        // The new sweep left of the cursor, then the previous one right of it behind a gap
+        int gapEnd = count == TRACE_POINTS ? cursor + TRACE_POINTS / 40 + 1 : TRACE_POINTS;
+        for (int i = 1; i < TRACE_POINTS; i++) {
+            if (i >= count || (i >= cursor && i <= gapEnd)) continue;
+            lineVertices[vertexCount++] = area.left + (i - 1) * xStep;
+            lineVertices[vertexCount++] = area.bottom - (trace[i - 1] - tile.minValue) / range * area.height();
+            lineVertices[vertexCount++] = area.left + i * xStep;
+            lineVertices[vertexCount++] = area.bottom - (trace[i] - tile.minValue) / range * area.height();
+        }
+        progressPaint.setStyle(Paint.Style.STROKE);
+        float stroke = progressPaint.getStrokeWidth();
+        progressPaint.setStrokeWidth(2);
+        canvas.drawLines(lineVertices, 0, vertexCount, progressPaint);
+        progressPaint.setStrokeWidth(stroke);
+    }
+
+    // Square gauge area centered below the tile's name, leaving room for the range labels
+    private RectF gaugeArea(RectF tile) {
+        float top = tile.top + namePaint.getTextSize() * 2;
+        float bottom = tile.bottom - labelPaint.getTextSize() * 2;
+        float size = Math.max(0, Math.min(tile.width() * 0.8f, bottom - top));
+        areaRect.set(tile.centerX() - size / 2, top, tile.centerX() + size / 2, top + size);
+        return areaRect;
+    }
+}
@@ -0,0 +1,80 @@
+package com.xsz.IoT.view;
+
+import android.view.Choreographer;
+
+import com.xsz.IoT.metrics.PerfMetrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Coalesces redraw requests into at most one render per display frame. Any thread may call
+ * requestRender() as often as it likes; the first request after a render posts a Choreographer
+ * frame callback, later ones are free until that frame runs. When nothing requests a render, no
+ * frame callbacks are posted at all, so an idle dashboard does not wake up every vsync.
+ *
+ * Must be created on a Looper thread, normally the main thread; the renderer is called there.
+ */
+public final class RenderScheduler implements Choreographer.FrameCallback {
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L;
+
+    public interface Renderer {
+        // Scheduler's thread, once per display frame that had at least one request
+        void onRender(long frameTimeNanos);
+    }
+
+    private final Choreographer choreographer;
+    private final Renderer renderer;
+    private final AtomicBoolean frameRequested = new AtomicBoolean();
+    private volatile boolean paused;
+    private volatile PerfMetrics metrics;
+    private volatile long frameIntervalNanos = DEFAULT_FRAME_INTERVAL_NANOS;
+
+    public RenderScheduler(Renderer renderer) {
+        this.choreographer = Choreographer.getInstance();
+        this.renderer = renderer;
+    }
+
+    // Counts rendered frames, and display frames that passed before a render could start
+    public void setMetrics(PerfMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Display refresh period, for telling skipped frames apart from late callbacks
+    public void setFrameIntervalNanos(long frameIntervalNanos) {
+        if (frameIntervalNanos > 0) this.frameIntervalNanos = frameIntervalNanos;
+    }
+
+    public void requestRender() {
+        if (paused) return;
+        // Choreographer accepts callbacks from any thread and runs them on its own looper
+        if (frameRequested.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // Cleared first, so requests made while rendering schedule the next frame
+        frameRequested.set(false);
+        if (paused) return;
+        PerfMetrics perfMetrics = metrics;
+        if (perfMetrics != null) {
+            // Like Choreographer's "Skipped N frames": whole vsyncs between the frame's start and now
+            long late = System.nanoTime() - frameTimeNanos;
+            if (late >= frameIntervalNanos) perfMetrics.framesSkipped(late / frameIntervalNanos);
+            perfMetrics.frameRendered();
+        }
+        renderer.onRender(frameTimeNanos);
+    }
+
+    // Drops a pending frame and ignores requests until resume(), e.g. while the activity is stopped
+    public void pause() {
+        paused = true;
+        choreographer.removeFrameCallback(this);
+        frameRequested.set(false);
+    }
+
+    public void resume() {
+        paused = false;
+    }
+}
@@ -0,0 +1,259 @@
+package com.xsz.IoT.acquisition;
+
+import com.xsz.IoT.metrics.PerfMetrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receives sample frames from the ESP32 boards on a dedicated I/O thread. Sockets, buffers and
+ * the decoded frame are owned by that thread; the UI only ever sees what the {@link SampleSink} publishes.
+ */
+public class AcquisitionEngine {
+    public static final int DEFAULT_PORT = 5005;
+
+    // Room for two maximum-size frames so a partially received one never blocks the next read
+    private static final int STREAM_BUFFER_SIZE = 2 * FrameCodec.MAX_FRAME_SIZE;
+    private static final int MAX_POOLED_CONNECTIONS = 64;
+
+    public enum Transport {
+        UDP,
+        TCP
+    }
+
+    public interface SampleSink {
+        // Called on the I/O thread for every decoded frame. The frame is reused for the next one.
+        void onFrame(SampleFrame frame);
+    }
+
+    private final Transport transport;
+    private final int port;
+    private final SampleSink sink;
+
+    private final AtomicLong framesReceived = new AtomicLong();
+    private final AtomicLong framesRejected = new AtomicLong();
+    private final BufferPool streamBuffers = new BufferPool(STREAM_BUFFER_SIZE, MAX_POOLED_CONNECTIONS);
+
+    private Selector selector;
+    private SelectableChannel serverChannel;
+    private Thread ioThread;
+    private volatile boolean running;
+    private volatile int localPort;
+    private volatile IOException lastError;
+    private volatile PerfMetrics metrics;
+
+    public AcquisitionEngine(Transport transport, int port, SampleSink sink) {
+        this.transport = transport;
+        this.port = port;
+        this.sink = sink;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+
+        selector = Selector.open();
+        try {
+            if (transport == Transport.UDP) {
+                DatagramChannel channel = DatagramChannel.open();
+                serverChannel = channel;
+                channel.configureBlocking(false);
+                channel.socket().bind(new InetSocketAddress(port));
+                channel.register(selector, SelectionKey.OP_READ,
+                        ByteBuffer.allocateDirect(FrameCodec.MAX_FRAME_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+                localPort = channel.socket().getLocalPort();
+            } else {
+                ServerSocketChannel channel = ServerSocketChannel.open();
+                serverChannel = channel;
+                channel.configureBlocking(false);
+                channel.socket().bind(new InetSocketAddress(port));
+                channel.register(selector, SelectionKey.OP_ACCEPT);
+                localPort = channel.socket().getLocalPort();
+            }
+        } catch (IOException e) {
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+            throw e;
+        }
+
+        lastError = null;
+        running = true;
+        ioThread = new Thread(this::runLoop, "esp32-acquisition");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+
+        running = false;
+        selector.wakeup();
+        try {
+            ioThread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ioThread = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getLocalPort() {
+        return localPort;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public long getFramesReceived() {
+        return framesReceived.get();
+    }
+
+    public long getFramesRejected() {
+        return framesRejected.get();
+    }
+
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    // Times every decoded frame; null turns timing off
+    public void setMetrics(PerfMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    private void runLoop() {
+        SampleFrame frame = new SampleFrame();
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) {
+                        accept(key);
+                    } else if (key.isReadable()) {
+                        if (key.channel() instanceof DatagramChannel) {
+                            readDatagram(key, frame);
+                        } else {
+                            readStream(key, frame);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            lastError = e;
+        } finally {
+            running = false;
+            for (SelectionKey key : selector.keys()) {
+                if (key.channel() instanceof SocketChannel) {
+                    closeClient(key);
+                } else {
+                    closeQuietly(key.channel());
+                }
+            }
+            closeQuietly(serverChannel);
+            closeQuietly(selector);
+        }
+    }
+
+    private void accept(SelectionKey key) throws IOException {
+        SocketChannel client = ((ServerSocketChannel) key.channel()).accept();
+        if (client == null) return;
+        client.configureBlocking(false);
+        client.socket().setTcpNoDelay(true);
+        client.register(selector, SelectionKey.OP_READ, streamBuffers.acquire());
+    }
+
+    private void readDatagram(SelectionKey key, SampleFrame frame) throws IOException {
+        DatagramChannel channel = (DatagramChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+
+        // Drain everything queued on the socket before going back to select()
+        while (true) {
+            buffer.clear();
+            if (channel.receive(buffer) == null) return;
+            buffer.flip();
+            // A datagram carries exactly one frame, so a truncated one is as bad as a corrupt one
+            if (decode(buffer, frame) > 0) {
+                publish(frame);
+            } else {
+                framesRejected.incrementAndGet();
+            }
+        }
+    }
+
+    private void readStream(SelectionKey key, SampleFrame frame) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+
+        try {
+            if (channel.read(buffer) < 0) {
+                closeClient(key);
+                return;
+            }
+        } catch (IOException e) {
+            closeClient(key);
+            return;
+        }
+
+        buffer.flip();
+        while (true) {
+            int consumed = decode(buffer, frame);
+            if (consumed == FrameCodec.NEED_MORE_DATA) break;
+            if (consumed == FrameCodec.MALFORMED) {
+                // The stream is out of sync; drop the board and let it reconnect
+                framesRejected.incrementAndGet();
+                closeClient(key);
+                return;
+            }
+            publish(frame);
+        }
+        buffer.compact();
+    }
+
+    private int decode(ByteBuffer buffer, SampleFrame frame) {
+        PerfMetrics perfMetrics = metrics;
+        if (perfMetrics == null) return FrameCodec.decode(buffer, frame);
+        long start = System.nanoTime();
+        int result = FrameCodec.decode(buffer, frame);
+        if (result > 0) perfMetrics.recordDecode(System.nanoTime() - start);
+        return result;
+    }
+
+    private void publish(SampleFrame frame) {
+        framesReceived.incrementAndGet();
+        sink.onFrame(frame);
+    }
+
+    private void closeClient(SelectionKey key) {
+        key.cancel();
+        closeQuietly(key.channel());
+        // Detach first so a key seen again before the selector purges it cannot return the buffer twice
+        streamBuffers.release((ByteBuffer) key.attach(null));
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
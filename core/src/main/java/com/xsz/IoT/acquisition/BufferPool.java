@@ -0,0 +1,36 @@
+package com.xsz.IoT.acquisition;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Fixed-size pool of little-endian direct buffers so that connections and senders can be
+// opened and closed without allocating native memory each time
+public class BufferPool {
+    private final int bufferSize;
+    private final ByteBuffer[] free;
+    private int freeCount;
+
+    public BufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.free = new ByteBuffer[capacity];
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public synchronized ByteBuffer acquire() {
+        if (freeCount == 0) {
+            return ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer buffer = free[--freeCount];
+        free[freeCount] = null;
+        buffer.clear();
+        return buffer;
+    }
+
+    public synchronized void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize || freeCount == free.length) return;
+        free[freeCount++] = buffer;
+    }
+}
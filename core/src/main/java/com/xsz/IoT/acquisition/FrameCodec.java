@@ -0,0 +1,113 @@
+package com.xsz.IoT.acquisition;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary sample frame sent by the ESP32 boards. Little-endian, one frame carries M samples for
+ * each of N channels, interleaved sample by sample as the board's ADC scan produces them:
+ *
+ * <pre>
+ *  0  u16  magic 0x5A17
+ *  2  u8   version
+ *  3  u8   flags (reserved, 0)
+ *  4  u16  board id
+ *  6  u16  channel count N
+ *  8  u16  samples per channel M
+ * 10  u16  reserved
+ * 12  u32  sequence number
+ * 16  i64  timestamp of the first sample (us, board clock)
+ * 24  u32  sample interval (us)
+ * 28  u32  reserved
+ * 32  f32  raw value x N x M  (s0c0, s0c1 .. s0cN-1, s1c0 ..)
+ * </pre>
+ *
+ * Buffers must be little-endian, as handed out by {@link BufferPool}. Decoding reads them with
+ * absolute gets straight into the frame's primitive arrays, so it never allocates and never moves
+ * the buffer position unless a complete, valid frame was consumed.
+ */
+public final class FrameCodec {
+    // Typed like their header fields, so they are written without casts
+    public static final short MAGIC = 0x5A17;
+    public static final byte VERSION = 2;
+    public static final int HEADER_SIZE = 32;
+    public static final short MAX_CHANNELS = 256;
+    public static final int MAX_FRAME_SAMPLES = 4096;
+    public static final int MAX_FRAME_SIZE = HEADER_SIZE + MAX_FRAME_SAMPLES * Float.BYTES;
+
+    // decode() / peekFrameSize() results besides a positive frame size
+    public static final int NEED_MORE_DATA = 0;
+    public static final int MALFORMED = -1;
+
+    private FrameCodec() {}
+
+    public static int frameSize(int channelCount, int samplesPerChannel) {
+        return HEADER_SIZE + channelCount * samplesPerChannel * Float.BYTES;
+    }
+
+    // Returns the size of the frame at the buffer position once its header is available,
+    // NEED_MORE_DATA for a partial header or MALFORMED when the header cannot be a frame
+    public static int peekFrameSize(ByteBuffer buffer) {
+        int position = buffer.position();
+        if (buffer.limit() - position < HEADER_SIZE) return NEED_MORE_DATA;
+
+        if ((buffer.getShort(position) & 0xFFFF) != MAGIC) return MALFORMED;
+        if ((buffer.get(position + 2) & 0xFF) != VERSION) return MALFORMED;
+
+        int channelCount = buffer.getShort(position + 6) & 0xFFFF;
+        int samplesPerChannel = buffer.getShort(position + 8) & 0xFFFF;
+        if (channelCount == 0 || channelCount > MAX_CHANNELS || samplesPerChannel == 0
+                || channelCount * samplesPerChannel > MAX_FRAME_SAMPLES) {
+            return MALFORMED;
+        }
+        return frameSize(channelCount, samplesPerChannel);
+    }
+
+    // Decodes the frame at the buffer position into the reusable frame and advances past it.
+    // Returns the number of bytes consumed, NEED_MORE_DATA or MALFORMED (position untouched).
+    public static int decode(ByteBuffer buffer, SampleFrame frame) {
+        int frameSize = peekFrameSize(buffer);
+        if (frameSize <= 0) return frameSize;
+
+        int position = buffer.position();
+        if (buffer.limit() - position < frameSize) return NEED_MORE_DATA;
+
+        frame.boardId = buffer.getShort(position + 4) & 0xFFFF;
+        frame.channelCount = buffer.getShort(position + 6) & 0xFFFF;
+        frame.channelOffset = 0;
+        frame.samplesPerChannel = buffer.getShort(position + 8) & 0xFFFF;
+        frame.sequence = buffer.getInt(position + 12) & 0xFFFFFFFFL;
+        frame.timestampMicros = buffer.getLong(position + 16);
+        frame.sampleIntervalMicros = buffer.getInt(position + 24) & 0xFFFFFFFFL;
+
+        float[] samples = frame.samples;
+        int sampleCount = frame.channelCount * frame.samplesPerChannel;
+        int offset = position + HEADER_SIZE;
+        for (int i = 0; i < sampleCount; i++, offset += Float.BYTES) {
+            samples[i] = buffer.getFloat(offset);
+        }
+
+        buffer.position(position + frameSize);
+        return frameSize;
+    }
+
+    // Writes the frame at the buffer position and advances past it
+    public static void encode(ByteBuffer buffer, SampleFrame frame) {
+        int sampleCount = frame.channelCount * frame.samplesPerChannel;
+        buffer.putShort(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) 0);
+        buffer.putShort((short) frame.boardId);
+        buffer.putShort((short) frame.channelCount);
+        buffer.putShort((short) frame.samplesPerChannel);
+        buffer.putShort((short) 0);
+        buffer.putInt((int) frame.sequence);
+        buffer.putLong(frame.timestampMicros);
+        buffer.putInt((int) frame.sampleIntervalMicros);
+        buffer.putInt(0);
+
+        float[] samples = frame.samples;
+        for (int i = 0; i < sampleCount; i++) {
+            buffer.putFloat(samples[i]);
+        }
+    }
+}
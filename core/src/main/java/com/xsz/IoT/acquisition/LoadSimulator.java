@@ -0,0 +1,249 @@
+package com.xsz.IoT.acquisition;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generates board frames on its own thread at a configurable sample rate and hands them to a
+ * {@link AcquisitionEngine.SampleSink}, the same entry point decoded hardware frames use. Every
+ * value is a pure function of the seed, the channel and the sample index, and timestamps follow
+ * a simulated board clock, so two runs with the same settings produce identical frames no matter
+ * how the thread is scheduled.
+ *
+ * Configure before start(); the frame passed to the sink is reused for the next one.
+ */
+public class LoadSimulator {
+    public static final int MAX_SAMPLE_RATE_HZ = 100_000;
+    // Frames are sized so that each board sends about this many per second
+    private static final int TARGET_FRAMES_PER_SECOND = 1000;
+
+    public enum Waveform {
+        SINE,
+        SQUARE,
+        TRIANGLE,
+        SAWTOOTH,
+        NOISE
+    }
+
+    private final int boardCount;
+    private final int channelsPerBoard;
+    private final int sampleRateHz;
+    private final long seed;
+    private final AcquisitionEngine.SampleSink sink;
+
+    private Waveform[] waveforms = Waveform.values();
+    private final float[] channelMin;
+    private final float[] channelMax;
+    // Per-channel frequency (Hz) and phase, drawn from the seed
+    private final double[] frequencies;
+    private final double[] phases;
+    private float noiseLevel = 0.05f;
+    private boolean paced = true;
+    private long maxSamples = Long.MAX_VALUE;
+
+    private Thread thread;
+    private volatile boolean running;
+    private volatile long samplesGenerated;
+    private volatile long framesGenerated;
+    private volatile long startNanos;
+
+    public LoadSimulator(int boardCount, int channelsPerBoard, int sampleRateHz, long seed,
+                         AcquisitionEngine.SampleSink sink) {
+        if (channelsPerBoard < 1 || channelsPerBoard > FrameCodec.MAX_CHANNELS) {
+            throw new IllegalArgumentException("channelsPerBoard must be 1.." + FrameCodec.MAX_CHANNELS);
+        }
+        if (sampleRateHz < 1 || sampleRateHz > MAX_SAMPLE_RATE_HZ) {
+            throw new IllegalArgumentException("sampleRateHz must be 1.." + MAX_SAMPLE_RATE_HZ);
+        }
+        this.boardCount = Math.max(1, boardCount);
+        this.channelsPerBoard = channelsPerBoard;
+        this.sampleRateHz = sampleRateHz;
+        this.seed = seed;
+        this.sink = sink;
+
+        int channels = this.boardCount * channelsPerBoard;
+        channelMin = new float[channels];
+        channelMax = new float[channels];
+        Arrays.fill(channelMax, 10f);
+        frequencies = new double[channels];
+        phases = new double[channels];
+        for (int i = 0; i < channels; i++) {
+            frequencies[i] = 0.05 + 0.45 * unit(mix(seed, i, -1));
+            phases[i] = 2 * Math.PI * unit(mix(seed, i, -2));
+        }
+    }
+
+    // Channel c of every board uses waveforms[c % waveforms.length]
+    public void setWaveforms(Waveform... waveforms) {
+        if (waveforms.length == 0) throw new IllegalArgumentException("At least one waveform is needed");
+        this.waveforms = waveforms.clone();
+    }
+
+    // Raw value range of one channel (1-based, like ChannelAddress) on every board
+    public void setChannelRange(int channel, float min, float max) {
+        for (int board = 0; board < boardCount; board++) {
+            channelMin[board * channelsPerBoard + channel - 1] = min;
+            channelMax[board * channelsPerBoard + channel - 1] = max;
+        }
+    }
+
+    // Noise amplitude as a fraction of the channel range
+    public void setNoiseLevel(float noiseLevel) {
+        this.noiseLevel = noiseLevel;
+    }
+
+    // When not paced, frames are generated as fast as the sink accepts them
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+
+    // Stops by itself after this many samples per channel
+    public void setMaxSamples(long maxSamples) {
+        this.maxSamples = maxSamples;
+    }
+
+    public int getSampleRateHz() {
+        return sampleRateHz;
+    }
+
+    public int getSamplesPerFrame() {
+        int byRate = (sampleRateHz + TARGET_FRAMES_PER_SECOND - 1) / TARGET_FRAMES_PER_SECOND;
+        return Math.max(1, Math.min(byRate, FrameCodec.MAX_FRAME_SAMPLES / channelsPerBoard));
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "load-simulator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread == null) return;
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Samples per channel generated so far
+    public long getSamplesGenerated() {
+        return samplesGenerated;
+    }
+
+    public long getFramesGenerated() {
+        return framesGenerated;
+    }
+
+    // Samples per channel per second actually achieved since start
+    public double getAchievedRateHz() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed > 0 ? samplesGenerated * 1e9 / elapsed : 0;
+    }
+
+    // Fills the frame with one board's samples starting at the given sample index
+    public void fillFrame(SampleFrame frame, int board, long firstSample, int sampleCount) {
+        long intervalMicros = 1_000_000L / sampleRateHz;
+        frame.boardId = board;
+        frame.sequence = firstSample / sampleCount;
+        frame.timestampMicros = firstSample * 1_000_000L / sampleRateHz;
+        frame.sampleIntervalMicros = intervalMicros;
+        frame.channelCount = channelsPerBoard;
+        frame.channelOffset = 0;
+        frame.samplesPerChannel = sampleCount;
+
+        float[] samples = frame.samples;
+        int base = board * channelsPerBoard;
+        for (int s = 0; s < sampleCount; s++) {
+            long index = firstSample + s;
+            int offset = s * channelsPerBoard;
+            for (int c = 0; c < channelsPerBoard; c++) {
+                samples[offset + c] = value(base + c, c, index);
+            }
+        }
+    }
+
+    private void run() {
+        SampleFrame frame = new SampleFrame();
+        int samplesPerFrame = getSamplesPerFrame();
+        long sample = 0;
+        startNanos = System.nanoTime();
+        try {
+            while (running && sample < maxSamples) {
+                int count = (int) Math.min(samplesPerFrame, maxSamples - sample);
+                for (int board = 0; board < boardCount; board++) {
+                    fillFrame(frame, board, sample, count);
+                    sink.onFrame(frame);
+                    framesGenerated++;
+                }
+                sample += count;
+                samplesGenerated = sample;
+
+                if (paced) {
+                    // Sleep until the simulated clock catches up with the samples sent so far
+                    long due = startNanos + sample * 1_000_000_000L / sampleRateHz;
+                    long wait;
+                    while (running && (wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+            }
+        } finally {
+            running = false;
+        }
+    }
+
+    private float value(int channel, int channelOnBoard, long index) {
+        float min = channelMin[channel];
+        float span = channelMax[channel] - min;
+        double t = (double) index / sampleRateHz;
+        double cycle = frequencies[channel] * t + phases[channel] / (2 * Math.PI);
+        double fraction = cycle - Math.floor(cycle);
+
+        double wave; // 0..1
+        switch (waveforms[channelOnBoard % waveforms.length]) {
+            case SQUARE:
+                wave = fraction < 0.5 ? 0.9 : 0.1;
+                break;
+            case TRIANGLE:
+                wave = 0.1 + 0.8 * (fraction < 0.5 ? 2 * fraction : 2 - 2 * fraction);
+                break;
+            case SAWTOOTH:
+                wave = 0.1 + 0.8 * fraction;
+                break;
+            case NOISE:
+                wave = 0.5;
+                break;
+            case SINE:
+            default:
+                wave = 0.5 + 0.4 * Math.sin(2 * Math.PI * fraction);
+                break;
+        }
+        double noise = unit(mix(seed, channel, index)) - 0.5;
+        double level = waveforms[channelOnBoard % waveforms.length] == Waveform.NOISE ? 0.8 : 2 * noiseLevel;
+        double value = min + span * (wave + noise * level);
+        return (float) Math.max(min, Math.min(min + span, value));
+    }
+
+    // SplitMix64 finalizer over (seed, channel, index): stateless, so values never depend on order
+    private static long mix(long seed, int channel, long index) {
+        long z = seed + 0x9E3779B97F4A7C15L * (index + 1) + 0xC2B2AE3D27D4EB4FL * (channel + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Uniform in [0, 1)
+    private static double unit(long bits) {
+        return (bits >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,49 @@
+package com.xsz.IoT.acquisition;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SocketChannel;
+
+// Stand-in for an ESP32 board: encodes frames and sends them to an engine on the loopback interface
+public class LoopbackSender implements Closeable {
+    private static final BufferPool BUFFERS = new BufferPool(FrameCodec.MAX_FRAME_SIZE, 8);
+
+    private final ByteChannel channel;
+    // Taken once the channel is open, so a failed connect does not keep it from the pool
+    private final ByteBuffer buffer;
+
+    public LoopbackSender(AcquisitionEngine.Transport transport, int port) throws IOException {
+        InetSocketAddress target = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        if (transport == AcquisitionEngine.Transport.UDP) {
+            DatagramChannel datagramChannel = DatagramChannel.open();
+            datagramChannel.connect(target);
+            channel = datagramChannel;
+        } else {
+            channel = SocketChannel.open(target);
+        }
+        buffer = BUFFERS.acquire();
+    }
+
+    public void send(SampleFrame frame) throws IOException {
+        buffer.clear();
+        FrameCodec.encode(buffer, frame);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            BUFFERS.release(buffer);
+        }
+    }
+}
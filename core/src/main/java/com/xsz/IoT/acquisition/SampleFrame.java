@@ -0,0 +1,44 @@
+package com.xsz.IoT.acquisition;
+
+// Mutable, reusable holder for one decoded frame. The I/O thread owns a single instance and
+// overwrites it for every frame, so sinks must copy anything they want to keep.
+public final class SampleFrame {
+    // timestampMicros of a frame from a board without a clock; it is timed on arrival
+    public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    public int boardId;
+    public long sequence;
+    public long timestampMicros;
+    public long sampleIntervalMicros;
+    public int channelCount;
+    // Column i holds channel channelOffset + i + 1. Always 0 on the wire, where a board sends all
+    // of its channels; set by sources that only have some of them, such as a replay.
+    public int channelOffset;
+    public int samplesPerChannel;
+    // Interleaved by sample: samples[sample * channelCount + channel]
+    public final float[] samples = new float[FrameCodec.MAX_FRAME_SAMPLES];
+
+    public float sample(int channel, int index) {
+        return samples[index * channelCount + channel];
+    }
+
+    public float latest(int channel) {
+        return samples[(samplesPerChannel - 1) * channelCount + channel];
+    }
+
+    public long sampleTimeMicros(int index) {
+        return timestampMicros + index * sampleIntervalMicros;
+    }
+
+    // Convenience for senders and tests: one sample per channel
+    public void set(int boardId, long sequence, long timestampMicros, float... channelValues) {
+        this.boardId = boardId;
+        this.sequence = sequence;
+        this.timestampMicros = timestampMicros;
+        this.sampleIntervalMicros = 0;
+        this.channelCount = channelValues.length;
+        this.channelOffset = 0;
+        this.samplesPerChannel = 1;
+        System.arraycopy(channelValues, 0, samples, 0, channelValues.length);
+    }
+}
@@ -0,0 +1,64 @@
+package com.xsz.IoT.calibration;
+
+/**
+ * Saved calibration of a channel beyond the plain linear range mapping: either a multi-point
+ * table (piecewise-linear between the points, extended along the end segments) or a polynomial
+ * in the raw value. Only settings live here; {@link #compile()} turns them into the
+ * {@link CompiledCalibration} that is evaluated per sample.
+ */
+public final class Calibration {
+    public enum Type {
+        TABLE,
+        POLYNOMIAL
+    }
+
+    private Type type;
+    private double[] rawPoints;
+    private double[] mappedPoints;
+    private double[] coefficients;
+
+    private Calibration() {}
+
+    // Calibration points sorted by ascending raw value, e.g. a thermocouple table
+    public static Calibration table(double[] rawPoints, double[] mappedPoints) {
+        if (rawPoints.length < 2 || rawPoints.length != mappedPoints.length) {
+            throw new IllegalArgumentException("A calibration table needs at least two raw/mapped pairs");
+        }
+        for (int i = 1; i < rawPoints.length; i++) {
+            if (!(rawPoints[i] > rawPoints[i - 1])) {
+                throw new IllegalArgumentException("Calibration table raw values must be strictly ascending");
+            }
+        }
+        Calibration calibration = new Calibration();
+        calibration.type = Type.TABLE;
+        calibration.rawPoints = rawPoints.clone();
+        calibration.mappedPoints = mappedPoints.clone();
+        return calibration;
+    }
+
+    // mapped = c0 + c1 * raw + c2 * raw^2 + ...
+    public static Calibration polynomial(double... coefficients) {
+        if (coefficients.length == 0) {
+            throw new IllegalArgumentException("A calibration polynomial needs at least one coefficient");
+        }
+        Calibration calibration = new Calibration();
+        calibration.type = Type.POLYNOMIAL;
+        calibration.coefficients = coefficients.clone();
+        return calibration;
+    }
+
+    public Type getType() { return type; }
+
+    public double[] getRawPoints() { return rawPoints != null ? rawPoints.clone() : null; }
+
+    public double[] getMappedPoints() { return mappedPoints != null ? mappedPoints.clone() : null; }
+
+    public double[] getCoefficients() { return coefficients != null ? coefficients.clone() : null; }
+
+    public CompiledCalibration compile() {
+        if (type == Type.TABLE) {
+            return CompiledCalibration.table(rawPoints, mappedPoints);
+        }
+        return CompiledCalibration.polynomial(coefficients);
+    }
+}
@@ -0,0 +1,170 @@
+package com.xsz.IoT.calibration;
+
+/**
+ * A channel's raw-to-engineering-unit transform, reduced to what is cheapest to evaluate per
+ * sample: a multiply-add for linear maps, Horner's rule over the coefficients for polynomials,
+ * and for tables an evenly spaced lookup grid that finds the segment in O(1) without searching.
+ * Immutable, so one instance can be shared by any thread.
+ */
+public abstract class CompiledCalibration {
+    // Upper bound on the lookup grid of a table; finer tables take an extra step per grid cell
+    static final int MAX_GRID_CELLS = 4096;
+
+    CompiledCalibration() {}
+
+    public abstract double map(double rawValue);
+
+    public void map(double[] in, double[] out) {
+        map(in, 0, out, 0, in.length);
+    }
+
+    public void map(double[] in, int inOffset, double[] out, int outOffset, int count) {
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = map(in[inOffset + i]);
+        }
+    }
+
+    // Maps [minRange, maxRange] linearly onto [minMapped, maxMapped]
+    public static CompiledCalibration linear(double minRange, double maxRange, double minMapped, double maxMapped) {
+        double rawSpan = maxRange - minRange;
+        if (rawSpan == 0) return new Linear(0, minMapped);
+        double scale = (maxMapped - minMapped) / rawSpan;
+        return new Linear(scale, minMapped - minRange * scale);
+    }
+
+    public static CompiledCalibration polynomial(double[] coefficients) {
+        int degree = coefficients.length - 1;
+        while (degree > 0 && coefficients[degree] == 0) {
+            degree--;
+        }
+        if (degree <= 1) {
+            return new Linear(degree == 1 ? coefficients[1] : 0, coefficients[0]);
+        }
+        double[] trimmed = new double[degree + 1];
+        System.arraycopy(coefficients, 0, trimmed, 0, degree + 1);
+        return new Polynomial(trimmed);
+    }
+
+    // Points must be sorted by strictly ascending raw value
+    public static CompiledCalibration table(double[] rawPoints, double[] mappedPoints) {
+        if (rawPoints.length == 2) {
+            return linear(rawPoints[0], rawPoints[1], mappedPoints[0], mappedPoints[1]);
+        }
+        return new Table(rawPoints, mappedPoints);
+    }
+
+    public static final class Linear extends CompiledCalibration {
+        private final double scale;
+        private final double offset;
+
+        Linear(double scale, double offset) {
+            this.scale = scale;
+            this.offset = offset;
+        }
+
+        public double getScale() { return scale; }
+
+        public double getOffset() { return offset; }
+
+        @Override
+        public double map(double rawValue) {
+            return rawValue * scale + offset;
+        }
+
+        @Override
+        public void map(double[] in, int inOffset, double[] out, int outOffset, int count) {
+            double scale = this.scale;
+            double offset = this.offset;
+            for (int i = 0; i < count; i++) {
+                out[outOffset + i] = in[inOffset + i] * scale + offset;
+            }
+        }
+    }
+
+    static final class Polynomial extends CompiledCalibration {
+        private final double[] coefficients;
+
+        Polynomial(double[] coefficients) {
+            this.coefficients = coefficients;
+        }
+
+        @Override
+        public double map(double rawValue) {
+            double[] c = coefficients;
+            double result = c[c.length - 1];
+            for (int i = c.length - 2; i >= 0; i--) {
+                result = result * rawValue + c[i];
+            }
+            return result;
+        }
+    }
+
+    static final class Table extends CompiledCalibration {
+        // Segment i covers [breakpoints[i], breakpoints[i + 1]) as mapped = raw * slopes[i] + intercepts[i]
+        private final double[] breakpoints;
+        private final double[] slopes;
+        private final double[] intercepts;
+        // Segment containing the start of each evenly spaced grid cell
+        private final int[] cellSegments;
+        private final double gridStart;
+        private final double cellsPerUnit;
+        private final int lastSegment;
+
+        Table(double[] rawPoints, double[] mappedPoints) {
+            int segments = rawPoints.length - 1;
+            lastSegment = segments - 1;
+            breakpoints = rawPoints.clone();
+            slopes = new double[segments];
+            intercepts = new double[segments];
+            double narrowest = Double.MAX_VALUE;
+            for (int i = 0; i < segments; i++) {
+                double width = rawPoints[i + 1] - rawPoints[i];
+                slopes[i] = (mappedPoints[i + 1] - mappedPoints[i]) / width;
+                intercepts[i] = mappedPoints[i] - rawPoints[i] * slopes[i];
+                narrowest = Math.min(narrowest, width);
+            }
+
+            // Cells no wider than the narrowest segment hold at most one breakpoint each
+            double span = rawPoints[segments] - rawPoints[0];
+            int cells = (int) Math.min(MAX_GRID_CELLS, Math.ceil(span / narrowest));
+            gridStart = rawPoints[0];
+            cellsPerUnit = cells / span;
+            cellSegments = new int[cells];
+            int segment = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                double cellStart = gridStart + cell / cellsPerUnit;
+                while (segment < lastSegment && cellStart >= breakpoints[segment + 1]) {
+                    segment++;
+                }
+                cellSegments[cell] = segment;
+            }
+        }
+
+        @Override
+        public double map(double rawValue) {
+            int segment = segmentOf(rawValue);
+            return rawValue * slopes[segment] + intercepts[segment];
+        }
+
+        @Override
+        public void map(double[] in, int inOffset, double[] out, int outOffset, int count) {
+            for (int i = 0; i < count; i++) {
+                double rawValue = in[inOffset + i];
+                int segment = segmentOf(rawValue);
+                out[outOffset + i] = rawValue * slopes[segment] + intercepts[segment];
+            }
+        }
+
+        private int segmentOf(double rawValue) {
+            double position = (rawValue - gridStart) * cellsPerUnit;
+            // Outside the table the end segments are extended
+            if (!(position >= 0)) return 0;
+            if (position >= cellSegments.length) return lastSegment;
+            int segment = cellSegments[(int) position];
+            while (segment < lastSegment && rawValue >= breakpoints[segment + 1]) {
+                segment++;
+            }
+            return segment;
+        }
+    }
+}
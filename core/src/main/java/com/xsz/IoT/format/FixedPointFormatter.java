@@ -0,0 +1,129 @@
+package com.xsz.IoT.format;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Formats numbers with a fixed number of decimals, like {@code String.format("%.2f")}, but writes
+ * the digits straight into a reusable {@link FormattedText} or StringBuilder: no Formatter, no
+ * pattern parsing and no intermediate String. The decimal separator and digits follow the locale
+ * the way String.format does; the sign is always '-', and negative values that round to zero are
+ * shown without one.
+ *
+ * Immutable, so one instance can be shared by any thread.
+ */
+public final class FixedPointFormatter {
+    public static final int MAX_DECIMALS = 9;
+    // Larger scaled values no longer fit a long exactly and go through String.format instead
+    private static final double MAX_SCALED = 1e17;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L
+    };
+
+    private final int decimals;
+    private final Locale locale;
+    private final double scale;
+    private final char zeroDigit;
+    private final char decimalSeparator;
+    private final String pattern;
+
+    public FixedPointFormatter(int decimals) {
+        this(decimals, Locale.getDefault());
+    }
+
+    public FixedPointFormatter(int decimals, Locale locale) {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("decimals must be 0.." + MAX_DECIMALS);
+        }
+        this.decimals = decimals;
+        this.locale = locale;
+        this.scale = POWERS_OF_TEN[decimals];
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.zeroDigit = symbols.getZeroDigit();
+        this.decimalSeparator = symbols.getDecimalSeparator();
+        this.pattern = "%." + decimals + "f";
+    }
+
+    public int getDecimals() {
+        return decimals;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    // Appends the formatted value to out
+    public FormattedText format(double value, FormattedText out) {
+        long scaled = scaled(value);
+        if (scaled < 0) return out.append(special(value));
+
+        boolean negative = value < 0 && scaled != 0;
+        int length = length(scaled, negative);
+        int end = out.length() + length;
+        out.ensureCapacity(end);
+        char[] chars = out.getChars();
+        int pos = end;
+        for (int i = 0; i < decimals; i++) {
+            chars[--pos] = (char) (zeroDigit + scaled % 10);
+            scaled /= 10;
+        }
+        if (decimals > 0) chars[--pos] = decimalSeparator;
+        do {
+            chars[--pos] = (char) (zeroDigit + scaled % 10);
+            scaled /= 10;
+        } while (scaled != 0);
+        if (negative) chars[--pos] = '-';
+        out.setLength(end);
+        return out;
+    }
+
+    // Appends the formatted value to out
+    public StringBuilder format(double value, StringBuilder out) {
+        long scaled = scaled(value);
+        if (scaled < 0) return out.append(special(value));
+
+        boolean negative = value < 0 && scaled != 0;
+        int end = out.length() + length(scaled, negative);
+        out.setLength(end);
+        int pos = end;
+        for (int i = 0; i < decimals; i++) {
+            out.setCharAt(--pos, (char) (zeroDigit + scaled % 10));
+            scaled /= 10;
+        }
+        if (decimals > 0) out.setCharAt(--pos, decimalSeparator);
+        do {
+            out.setCharAt(--pos, (char) (zeroDigit + scaled % 10));
+            scaled /= 10;
+        } while (scaled != 0);
+        if (negative) out.setCharAt(--pos, '-');
+        return out;
+    }
+
+    // For values formatted rarely, such as axis labels
+    public String format(double value) {
+        return format(value, new StringBuilder(16)).toString();
+    }
+
+    // |value| * 10^decimals rounded half away from zero, or -1 for NaN, infinities and huge values
+    private long scaled(double value) {
+        double scaledValue = Math.abs(value) * scale;
+        if (!(scaledValue < MAX_SCALED)) return -1;
+        // A few ulps of slack make decimal ties such as 1.005 round up, as String.format does
+        return (long) Math.floor(scaledValue + 0.5 + 4 * Math.ulp(scaledValue));
+    }
+
+    private String special(double value) {
+        return String.format(locale, pattern, value);
+    }
+
+    private int length(long scaled, boolean negative) {
+        int digits = 1;
+        for (long rest = scaled / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int length = Math.max(digits, decimals + 1);
+        if (decimals > 0) length++;
+        if (negative) length++;
+        return length;
+    }
+}
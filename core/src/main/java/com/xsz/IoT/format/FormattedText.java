@@ -0,0 +1,66 @@
+package com.xsz.IoT.format;
+
+/**
+ * Growable char buffer that formatted labels are written into and drawn from without creating a
+ * String per update: pass {@link #getChars()} and {@link #length()} to
+ * {@code TextView.setText(char[], int, int)} or {@code Canvas.drawText(char[], int, int, ...)}.
+ *
+ * A TextView keeps referring to the array it was given, so give each TextView its own instance
+ * and call setText again after every change.
+ */
+public final class FormattedText {
+    private char[] chars;
+    private int length;
+
+    public FormattedText() {
+        this(32);
+    }
+
+    public FormattedText(int capacity) {
+        chars = new char[Math.max(1, capacity)];
+    }
+
+    public FormattedText clear() {
+        length = 0;
+        return this;
+    }
+
+    public FormattedText append(char c) {
+        ensureCapacity(length + 1);
+        chars[length++] = c;
+        return this;
+    }
+
+    public FormattedText append(String text) {
+        if (text == null) return this;
+        int count = text.length();
+        ensureCapacity(length + count);
+        text.getChars(0, count, chars, length);
+        length += count;
+        return this;
+    }
+
+    public char[] getChars() {
+        return chars;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    void ensureCapacity(int capacity) {
+        if (capacity <= chars.length) return;
+        char[] grown = new char[Math.max(capacity, chars.length * 2)];
+        System.arraycopy(chars, 0, grown, 0, length);
+        chars = grown;
+    }
+
+    void setLength(int length) {
+        this.length = length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+}
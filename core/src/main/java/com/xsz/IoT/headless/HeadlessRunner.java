@@ -0,0 +1,404 @@
+package com.xsz.IoT.headless;
+
+import com.xsz.IoT.acquisition.LoadSimulator;
+import com.xsz.IoT.acquisition.SampleFrame;
+import com.xsz.IoT.model.AnalogInput;
+import com.xsz.IoT.model.ChannelAddress;
+import com.xsz.IoT.model.ChannelBank;
+import com.xsz.IoT.model.ChannelHistory;
+import com.xsz.IoT.model.ChannelRollup;
+import com.xsz.IoT.model.SampleIngest;
+import com.xsz.IoT.model.SourceMap;
+import com.xsz.IoT.model.ValueSnapshot;
+import com.xsz.IoT.storage.SampleStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the dashboard's data path on a plain JVM. A load simulator, or the samples recorded in a
+ * SampleStore, feed a SampleIngest on their own thread, while the calling thread stands in for
+ * the main thread: once per display frame it applies the newest snapshot to a ChannelBank with
+ * history, like MainActivity does; the ingest folds every sample into rollups. Reports the ingest
+ * throughput in samples/s and the latency from each applied snapshot's publish to it being
+ * applied.
+ *
+ * Configure before run(). From Gradle: ./gradlew :core:headless --args="--boards 25 --rate 2000"
+ */
+public class HeadlessRunner {
+    public static final int MAX_SOURCES = 1024;
+    // Latencies beyond this many frames are not kept for the percentiles
+    private static final int MAX_LATENCY_SAMPLES = 1 << 20;
+
+    public static final class Result {
+        public final long samples;       // over all channels
+        public final long frames;
+        public final long applied;       // snapshots applied to the bank
+        public final double seconds;
+        public final long latencyP50Micros;
+        public final long latencyP99Micros;
+        public final long latencyMaxMicros;
+
+        Result(long samples, long frames, long applied, double seconds, long[] latencies, int latencyCount) {
+            this.samples = samples;
+            this.frames = frames;
+            this.applied = applied;
+            this.seconds = seconds;
+            Arrays.sort(latencies, 0, latencyCount);
+            latencyP50Micros = percentile(latencies, latencyCount, 0.50);
+            latencyP99Micros = percentile(latencies, latencyCount, 0.99);
+            latencyMaxMicros = latencyCount > 0 ? latencies[latencyCount - 1] / 1000 : 0;
+        }
+
+        public double getSamplesPerSecond() {
+            return seconds > 0 ? samples / seconds : 0;
+        }
+
+        private static long percentile(long[] sorted, int count, double fraction) {
+            if (count == 0) return 0;
+            return sorted[Math.min(count - 1, (int) (count * fraction))] / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%d samples in %.2f s: %.0f samples/s, %d frames, %d applied, latency p50 %d us, p99 %d us, max %d us",
+                    samples, seconds, getSamplesPerSecond(), frames, applied,
+                    latencyP50Micros, latencyP99Micros, latencyMaxMicros);
+        }
+    }
+
+    private int boardCount = 4;
+    private int sampleRateHz = 1000;
+    private long seed = 42;
+    private double seconds = 10;
+    private boolean paced = true;
+    private long frameNanos = 16_666_667L;
+    private int historyCapacity = 1024;
+    private File replayDirectory;
+    private File recordDirectory;
+
+    public void setBoardCount(int boardCount) {
+        this.boardCount = Math.max(1, boardCount);
+    }
+
+    public void setSampleRateHz(int sampleRateHz) {
+        this.sampleRateHz = sampleRateHz;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    // Simulated run time; a replay ends when the recording does
+    public void setSeconds(double seconds) {
+        this.seconds = seconds;
+    }
+
+    // When not paced, the simulator generates frames as fast as the ingest takes them
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+
+    // Display frame period of the consumer; 0 applies every batch as soon as it is signalled
+    public void setFrameMillis(double frameMillis) {
+        this.frameNanos = (long) (frameMillis * 1_000_000);
+    }
+
+    public void setHistoryCapacity(int historyCapacity) {
+        this.historyCapacity = historyCapacity;
+    }
+
+    // Replays this SampleStore directory instead of simulating
+    public void setReplayDirectory(File replayDirectory) {
+        this.replayDirectory = replayDirectory;
+    }
+
+    // Records every ingested sample into a SampleStore in this directory, like the app does
+    public void setRecordDirectory(File recordDirectory) {
+        this.recordDirectory = recordDirectory;
+    }
+
+    public Result run() throws IOException {
+        // One enabled gauge per (board, channel), laid out like the app's default inputs
+        int channels = boardCount * ChannelAddress.CHANNELS_PER_BOARD;
+        ChannelBank bank = new ChannelBank(channels);
+        bank.setHistory(new ChannelHistory(channels, historyCapacity));
+        SourceMap.Builder sources = new SourceMap.Builder(1);
+        for (int i = 0; i < channels; i++) {
+            AnalogInput input = new AnalogInput(i + 1);
+            input.attach(bank, i);
+            int slot = sources.add(input.getBoardId(), input.getDataSource());
+            bank.setSource(i, slot < MAX_SOURCES ? slot : -1);
+        }
+
+        SourceMap map = sources.build();
+        ChannelRollup rollup = new ChannelRollup();
+        rollup.configure(map);
+        SampleIngest ingest = new SampleIngest(MAX_SOURCES);
+        ingest.setRollup(rollup);
+        ingest.setSourceMap(map);
+        SampleStore recordStore = recordDirectory != null ? new SampleStore(recordDirectory) : null;
+        ingest.setSampleStore(recordStore);
+
+        Thread consumer = Thread.currentThread();
+        ingest.setOnSamplesAvailableListener(() -> LockSupport.unpark(consumer));
+
+        Source source = replayDirectory != null ? new Replay(ingest, replayDirectory) : new Simulation(ingest);
+        long[] latencies = new long[1024];
+        int latencyCount = 0;
+        long applied = 0;
+        long lastVersion = 0;
+
+        long start = System.nanoTime();
+        source.start();
+        long nextFrame = start;
+        boolean finished = false;
+        while (!finished) {
+            // Checked before acquiring, so the last batch is applied after the source stops
+            finished = !source.isRunning();
+            if (!finished) {
+                if (frameNanos > 0) {
+                    nextFrame += frameNanos;
+                    long wait;
+                    while ((wait = nextFrame - System.nanoTime()) > 0) LockSupport.parkNanos(wait);
+                } else {
+                    LockSupport.parkNanos(1_000_000L);
+                }
+            }
+
+            ValueSnapshot snapshot = ingest.acquire();
+            if (snapshot.getVersion() == lastVersion) continue;
+            lastVersion = snapshot.getVersion();
+            bank.applySnapshot(snapshot);
+            bank.clearChanged();
+            applied++;
+
+            if (latencyCount < MAX_LATENCY_SAMPLES) {
+                if (latencyCount == latencies.length) latencies = Arrays.copyOf(latencies, latencyCount * 2);
+                latencies[latencyCount++] = System.nanoTime() - snapshot.getPublishNanos();
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        source.stop();
+        if (recordStore != null) recordStore.close();
+
+        IOException error = ingest.getLastError();
+        if (error != null) throw error;
+        return new Result(source.getSamples(), source.getFrames(), applied, elapsed, latencies, latencyCount);
+    }
+
+    private interface Source {
+        void start();
+
+        boolean isRunning();
+
+        void stop() throws IOException;
+
+        long getSamples();
+
+        long getFrames();
+    }
+
+    private final class Simulation implements Source {
+        private final LoadSimulator simulator;
+
+        Simulation(SampleIngest ingest) {
+            simulator = new LoadSimulator(boardCount, ChannelAddress.CHANNELS_PER_BOARD, sampleRateHz, seed, ingest);
+            for (int channel = 1; channel <= ChannelAddress.CHANNELS_PER_BOARD; channel++) {
+                AnalogInput.InputType type = ChannelAddress.defaultInputType(channel);
+                simulator.setChannelRange(channel, (float) type.getMinRange(), (float) type.getMaxRange());
+            }
+            simulator.setPaced(paced);
+            simulator.setMaxSamples((long) (seconds * sampleRateHz));
+        }
+
+        @Override
+        public void start() {
+            simulator.start();
+        }
+
+        @Override
+        public boolean isRunning() {
+            return simulator.isRunning();
+        }
+
+        @Override
+        public void stop() {
+            simulator.stop();
+        }
+
+        @Override
+        public long getSamples() {
+            return simulator.getSamplesGenerated() * boardCount * ChannelAddress.CHANNELS_PER_BOARD;
+        }
+
+        @Override
+        public long getFrames() {
+            return simulator.getFramesGenerated();
+        }
+    }
+
+    // Turns the recorded samples back into one-sample frames, as fast as possible. The store keeps
+    // each frame as rows of one sample per channel in arrival order, and rows of many frames can
+    // share a millisecond; a row ends where the board changes, a channel does not come after the
+    // row's last one or the time moves on, so every recorded sample is passed to the ingest in its
+    // original order. A row becomes
+    // one frame per run of consecutive channels it holds, so only recorded samples are passed on.
+    private final class Replay implements Source, SampleStore.SampleVisitor {
+        private final SampleIngest ingest;
+        private final File directory;
+        private final SampleFrame frame = new SampleFrame();
+        private final float[] row = new float[ChannelAddress.CHANNELS_PER_BOARD];
+        private int rowBoard = -1;
+        private int rowChannels;   // bit per channel already in the row
+        private int rowSamples;
+        private long rowTimestamp = Long.MIN_VALUE;
+        private Thread thread;
+        private volatile boolean running;
+        private volatile long samples;
+        private volatile long frames;
+        private volatile IOException error;
+
+        Replay(SampleIngest ingest, File directory) {
+            this.ingest = ingest;
+            this.directory = directory;
+            // Rows carry the recorded host time; keep it
+            ingest.setMapBoardClocks(false);
+        }
+
+        @Override
+        public void start() {
+            running = true;
+            thread = new Thread(() -> {
+                try (SampleStore store = new SampleStore(directory)) {
+                    store.scan(Long.MIN_VALUE, Long.MAX_VALUE, this);
+                    emitRow();
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    running = false;
+                }
+            }, "headless-replay");
+            thread.start();
+        }
+
+        @Override
+        public boolean onSample(long timestamp, int sourceKey, float value) {
+            int board = ChannelAddress.boardOf(sourceKey);
+            int channel = ChannelAddress.channelOf(sourceKey);
+            if (board >= boardCount || channel < 1 || channel > ChannelAddress.CHANNELS_PER_BOARD) {
+                return running;
+            }
+            int bit = 1 << (channel - 1);
+            if (board != rowBoard || timestamp != rowTimestamp || rowChannels >>> (channel - 1) != 0) {
+                emitRow();
+                rowBoard = board;
+                rowTimestamp = timestamp;
+            }
+            row[channel - 1] = value;
+            rowChannels |= bit;
+            rowSamples++;
+            return running;
+        }
+
+        private void emitRow() {
+            if (rowSamples == 0) return;
+            int channels = rowChannels;
+            while (channels != 0) {
+                int first = Integer.numberOfTrailingZeros(channels);
+                int count = Integer.numberOfTrailingZeros(~(channels >>> first));
+                frame.boardId = rowBoard;
+                frame.sequence = frames;
+                frame.timestampMicros = rowTimestamp * 1000;
+                frame.sampleIntervalMicros = 0;
+                frame.channelOffset = first;
+                frame.channelCount = count;
+                frame.samplesPerChannel = 1;
+                System.arraycopy(row, first, frame.samples, 0, count);
+                ingest.onFrame(frame);
+                frames++;
+                channels &= ~(((1 << count) - 1) << first);
+            }
+            samples += rowSamples;
+            rowChannels = 0;
+            rowSamples = 0;
+        }
+
+        @Override
+        public boolean isRunning() {
+            return running;
+        }
+
+        @Override
+        public void stop() throws IOException {
+            running = false;
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (error != null) throw error;
+        }
+
+        @Override
+        public long getSamples() {
+            return samples;
+        }
+
+        @Override
+        public long getFrames() {
+            return frames;
+        }
+    }
+
+    // --boards N --rate HZ --seconds S --seed N --frame-millis MS --unpaced --replay DIR --record DIR
+    public static void main(String[] args) throws IOException {
+        HeadlessRunner runner = new HeadlessRunner();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--unpaced")) {
+                runner.setPaced(false);
+                continue;
+            }
+            if (i + 1 == args.length) usage("Missing value for " + option);
+            String value = args[++i];
+            switch (option) {
+                case "--boards":
+                    runner.setBoardCount(Integer.parseInt(value));
+                    break;
+                case "--rate":
+                    runner.setSampleRateHz(Integer.parseInt(value));
+                    break;
+                case "--seconds":
+                    runner.setSeconds(Double.parseDouble(value));
+                    break;
+                case "--seed":
+                    runner.setSeed(Long.parseLong(value));
+                    break;
+                case "--frame-millis":
+                    runner.setFrameMillis(Double.parseDouble(value));
+                    break;
+                case "--replay":
+                    runner.setReplayDirectory(new File(value));
+                    break;
+                case "--record":
+                    runner.setRecordDirectory(new File(value));
+                    break;
+                default:
+                    usage("Unknown option " + option);
+            }
+        }
+        System.out.println(runner.run());
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: HeadlessRunner [--boards N] [--rate HZ] [--seconds S] [--seed N]"
+                + " [--frame-millis MS] [--unpaced] [--replay DIR] [--record DIR]");
+        System.exit(2);
+    }
+}
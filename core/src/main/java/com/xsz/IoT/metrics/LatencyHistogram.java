@@ -0,0 +1,105 @@
+package com.xsz.IoT.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log-linear histogram of durations in nanoseconds: eight buckets per power of two, so any
+ * percentile read back is at most 12.5% above the true value. record() is one atomic increment
+ * plus one atomic add, never locks or allocates, and may be called from any number of threads.
+ *
+ * Readers copy the counts into a {@link Snapshot} and compute percentiles from it; two snapshots
+ * taken a while apart give the distribution of that interval.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKETS get one bucket each, then SUB_BUCKETS per power of two up to 2^63
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        totalNanos.addAndGet(nanos);
+    }
+
+    // Copies the counts recorded so far; concurrent record() calls land in this or the next snapshot
+    public void snapshot(Snapshot out) {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long bucket = counts.get(i);
+            out.counts[i] = bucket;
+            count += bucket;
+        }
+        out.count = count;
+        out.totalNanos = totalNanos.get();
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Largest value that falls into the bucket
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (SUB_BUCKETS + bucket % SUB_BUCKETS) * width;
+        return lower + width - 1;
+    }
+
+    /** Counts copied out of a histogram. Reusable; only touched by the reading thread. */
+    public static final class Snapshot {
+        final long[] counts = new long[BUCKET_COUNT];
+        long count;
+        long totalNanos;
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanNanos() {
+            return count > 0 ? totalNanos / count : 0;
+        }
+
+        // Upper bound of the bucket holding the given fraction (0..1) of the values, 0 when empty
+        public long getPercentileNanos(double fraction) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(count * fraction));
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += counts[i];
+                if (seen >= rank) return upperBound(i);
+            }
+            return upperBound(BUCKET_COUNT - 1);
+        }
+
+        public long getMaxNanos() {
+            for (int i = BUCKET_COUNT - 1; i >= 0; i--) {
+                if (counts[i] != 0) return upperBound(i);
+            }
+            return 0;
+        }
+
+        // Turns this into what was recorded between the earlier snapshot and this one
+        public void subtract(Snapshot earlier) {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] -= earlier.counts[i];
+            }
+            count -= earlier.count;
+            totalNanos -= earlier.totalNanos;
+        }
+
+        public void copyFrom(Snapshot other) {
+            System.arraycopy(other.counts, 0, counts, 0, BUCKET_COUNT);
+            count = other.count;
+            totalNanos = other.totalNanos;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.xsz.IoT.metrics;
+
+import java.util.Locale;
+
+/**
+ * Reads a {@link PerfMetrics} at intervals and keeps what happened between the last two
+ * readings: samples/s, frames/s, skipped frames and GCs in the interval, and the distribution of
+ * each timed stage. One reader thread per report; the buffers are reused between readings.
+ */
+public final class MetricsReport {
+    private final PerfMetrics metrics;
+    private final LatencyHistogram.Snapshot decode = new LatencyHistogram.Snapshot();
+    private final LatencyHistogram.Snapshot mapping = new LatencyHistogram.Snapshot();
+    private final LatencyHistogram.Snapshot ingestToDraw = new LatencyHistogram.Snapshot();
+    private final LatencyHistogram.Snapshot previousDecode = new LatencyHistogram.Snapshot();
+    private final LatencyHistogram.Snapshot previousMapping = new LatencyHistogram.Snapshot();
+    private final LatencyHistogram.Snapshot previousIngestToDraw = new LatencyHistogram.Snapshot();
+    private final LatencyHistogram.Snapshot scratch = new LatencyHistogram.Snapshot();
+
+    private long previousNanos;
+    private long previousSamples;
+    private long previousFrames;
+    private long previousSkipped;
+    private long previousGcCount;
+    private boolean started;
+
+    private double seconds;
+    private long samples;
+    private long frames;
+    private long skipped;
+    private long gcCount;
+
+    public MetricsReport(PerfMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Takes a reading; the first one only sets the baseline. Returns false until there is an interval.
+    public boolean update(long nowNanos) {
+        long totalSamples = metrics.getTotalSamples();
+        long totalFrames = metrics.getFramesRendered();
+        long totalSkipped = metrics.getFramesSkipped();
+        long totalGcCount = metrics.getGcCount();
+        if (started) {
+            seconds = (nowNanos - previousNanos) / 1e9;
+            samples = totalSamples - previousSamples;
+            frames = totalFrames - previousFrames;
+            skipped = totalSkipped - previousSkipped;
+            gcCount = totalGcCount - previousGcCount;
+        }
+        previousNanos = nowNanos;
+        previousSamples = totalSamples;
+        previousFrames = totalFrames;
+        previousSkipped = totalSkipped;
+        previousGcCount = totalGcCount;
+
+        readInterval(metrics.getDecodeTime(), decode, previousDecode);
+        readInterval(metrics.getMappingTime(), mapping, previousMapping);
+        readInterval(metrics.getIngestToDraw(), ingestToDraw, previousIngestToDraw);
+
+        boolean hadBaseline = started;
+        started = true;
+        return hadBaseline;
+    }
+
+    // Leaves the interval in out and the cumulative counts in previous, for the next reading
+    private void readInterval(LatencyHistogram histogram, LatencyHistogram.Snapshot out,
+                              LatencyHistogram.Snapshot previous) {
+        histogram.snapshot(scratch);
+        out.copyFrom(scratch);
+        out.subtract(previous);
+        previous.copyFrom(scratch);
+    }
+
+    public double getSeconds() {
+        return seconds;
+    }
+
+    public double getSamplesPerSecond() {
+        return seconds > 0 ? samples / seconds : 0;
+    }
+
+    public double getFramesPerSecond() {
+        return seconds > 0 ? frames / seconds : 0;
+    }
+
+    public long getFramesSkipped() {
+        return skipped;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    public LatencyHistogram.Snapshot getDecodeTime() {
+        return decode;
+    }
+
+    public LatencyHistogram.Snapshot getMappingTime() {
+        return mapping;
+    }
+
+    public LatencyHistogram.Snapshot getIngestToDraw() {
+        return ingestToDraw;
+    }
+
+    // One line for an overlay or a log, e.g.
+    // "8000 samples/s | decode p99 12 us | map p99 40 us | latency p50 4.1 ms p99 15.9 ms | 60 fps, 0 skipped | 0 GC"
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.0f samples/s | decode p99 %d us | map p99 %d us"
+                        + " | latency p50 %.1f ms p99 %.1f ms | %.0f fps, %d skipped | %d GC",
+                getSamplesPerSecond(),
+                decode.getPercentileNanos(0.99) / 1000,
+                mapping.getPercentileNanos(0.99) / 1000,
+                ingestToDraw.getPercentileNanos(0.50) / 1e6,
+                ingestToDraw.getPercentileNanos(0.99) / 1e6,
+                getFramesPerSecond(), skipped, gcCount);
+    }
+}
@@ -0,0 +1,112 @@
+package com.xsz.IoT.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Counters and latency histograms for each stage between the network and the screen, cheap
+ * enough to stay on in production: recording is a few atomic operations, with no locks and no
+ * allocation. Each stage records from the thread it runs on:
+ * <ul>
+ * <li>samples per source slot and frame decode time: the acquisition (or simulator) thread; the
+ * per-slot counts start over whenever the ingest's slot assignment changes</li>
+ * <li>mapping time (applying a snapshot to the channels) and ingest-to-draw latency (snapshot
+ * published to gauges updated): the rendering thread</li>
+ * <li>frames rendered and display frames skipped: the render scheduler</li>
+ * </ul>
+ * Read it with a {@link MetricsReport}, which turns two readings into per-second rates and
+ * interval percentiles.
+ */
+public final class PerfMetrics {
+    private final AtomicLongArray samplesPerSource;
+    // Kept apart from the per-slot counts, which are cleared on reassignment, so rates stay whole
+    private final AtomicLong totalSamples = new AtomicLong();
+    private final LatencyHistogram decodeTime = new LatencyHistogram();
+    private final LatencyHistogram mappingTime = new LatencyHistogram();
+    private final LatencyHistogram ingestToDraw = new LatencyHistogram();
+    private final AtomicLong framesRendered = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+    // Supplied by the platform, e.g. ART's runtime stats; read only by readers
+    private volatile LongSupplier gcCount = () -> 0;
+
+    public PerfMetrics(int maxSources) {
+        samplesPerSource = new AtomicLongArray(maxSources);
+    }
+
+    public int getMaxSources() {
+        return samplesPerSource.length();
+    }
+
+    // Writer thread of the ingest only, which makes the read-modify-write safe without a CAS
+    public void addSamples(int slot, int count) {
+        samplesPerSource.lazySet(slot, samplesPerSource.get(slot) + count);
+        totalSamples.lazySet(totalSamples.get() + count);
+    }
+
+    // Writer thread of the ingest only: the slots now stand for other sources, so their counts
+    // start over. The total keeps counting.
+    public void resetSources() {
+        for (int i = 0; i < samplesPerSource.length(); i++) {
+            samplesPerSource.lazySet(i, 0);
+        }
+    }
+
+    // Samples of the source in the slot since the slots were last assigned
+    public long getSamples(int slot) {
+        return samplesPerSource.get(slot);
+    }
+
+    public long getTotalSamples() {
+        return totalSamples.get();
+    }
+
+    public void recordDecode(long nanos) {
+        decodeTime.record(nanos);
+    }
+
+    public void recordMapping(long nanos) {
+        mappingTime.record(nanos);
+    }
+
+    public void recordIngestToDraw(long nanos) {
+        ingestToDraw.record(nanos);
+    }
+
+    public void frameRendered() {
+        framesRendered.incrementAndGet();
+    }
+
+    public void framesSkipped(long count) {
+        framesSkipped.addAndGet(count);
+    }
+
+    public LatencyHistogram getDecodeTime() {
+        return decodeTime;
+    }
+
+    public LatencyHistogram getMappingTime() {
+        return mappingTime;
+    }
+
+    public LatencyHistogram getIngestToDraw() {
+        return ingestToDraw;
+    }
+
+    public long getFramesRendered() {
+        return framesRendered.get();
+    }
+
+    public long getFramesSkipped() {
+        return framesSkipped.get();
+    }
+
+    public void setGcCounter(LongSupplier gcCount) {
+        this.gcCount = gcCount;
+    }
+
+    // Garbage collections since the process started, as far as the platform reports them
+    public long getGcCount() {
+        return gcCount.getAsLong();
+    }
+}
@@ -0,0 +1,233 @@
+package com.xsz.IoT.model;
+
+import com.xsz.IoT.calibration.Calibration;
+import com.xsz.IoT.calibration.CompiledCalibration;
+import com.xsz.IoT.format.FixedPointFormatter;
+import com.xsz.IoT.format.FormattedText;
+
+import java.util.Locale;
+
+// Configuration of one gauge and a view of its current value. Once attached to a ChannelBank the
+// values live in the bank; they are only read and written on the main thread, the acquisition
+// thread hands them over through a SnapshotExchange.
+public class AnalogInput {
+    private static volatile FixedPointFormatter valueFormatter = new FixedPointFormatter(2);
+
+    private int inputNumber;
+    private String name;
+    private double rawValue;
+    private double mappedValue;
+    private String unit;
+    private InputType inputType;
+    private GaugeType gaugeType;
+    private double minRange;
+    private double maxRange;
+    private double minMappedValue;
+    private double maxMappedValue;
+    private Calibration calibration; // optional table or polynomial, replaces the linear range mapping
+    private String description;
+    private boolean isEnabled;
+    private int boardId;    // ESP32 board the physical input belongs to
+    private int dataSource; // channel on that board (1-8), indicates which physical input this gauge uses
+
+    // Live values are held in the bank when attached; not part of the saved settings
+    private transient ChannelBank channelBank;
+    private transient int channelIndex = -1;
+    // Mapping of unattached samples, compiled on first use and dropped when a mapping setting changes
+    private transient CompiledCalibration compiledCalibration;
+
+    public enum InputType {
+        VOLTAGE_0_10V("0-10V", 0.0, 10.0),
+        CURRENT_4_20MA("4-20mA", 4.0, 20.0);
+
+        private final String displayName;
+        private final double minRange;
+        private final double maxRange;
+
+        InputType(String displayName, double minRange, double maxRange) {
+            this.displayName = displayName;
+            this.minRange = minRange;
+            this.maxRange = maxRange;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+
+        public double getMinRange() {
+            return minRange;
+        }
+
+        public double getMaxRange() {
+            return maxRange;
+        }
+    }
+
+    public enum GaugeType {
+        ROUND_GAUGE("Round Gauge"),
+        BAR_CHART("Bar Chart"),
+        TREND_CHART("Trend Chart");
+
+        private final String displayName;
+
+        GaugeType(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    public AnalogInput(int inputNumber) {
+        // Inputs are laid out board by board: 1-8 on board 0, 9-16 on board 1, ...
+        this(inputNumber,
+                (inputNumber - 1) / ChannelAddress.CHANNELS_PER_BOARD,
+                (inputNumber - 1) % ChannelAddress.CHANNELS_PER_BOARD + 1);
+    }
+
+    public AnalogInput(int inputNumber, int boardId, int dataSource) {
+        this.inputNumber = inputNumber;
+        this.name = "Analog Input " + inputNumber;
+        this.rawValue = 0.0;
+        this.mappedValue = 0.0;
+        this.unit = "";
+        this.inputType = ChannelAddress.defaultInputType(dataSource);
+        this.gaugeType = GaugeType.ROUND_GAUGE;
+        this.minRange = inputType.getMinRange();
+        this.maxRange = inputType.getMaxRange();
+        this.minMappedValue = 0.0;
+        this.maxMappedValue = 100.0;
+        this.description = "";
+        this.isEnabled = true;
+        this.boardId = boardId;
+        this.dataSource = dataSource;
+    }
+
+    // Getters and Setters
+    public int getInputNumber() { return inputNumber; }
+    public void setInputNumber(int inputNumber) { this.inputNumber = inputNumber; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public double getRawValue() {
+        return channelBank != null ? channelBank.getRawValue(channelIndex) : rawValue;
+    }
+    public void setRawValue(double rawValue) { 
+        if (channelBank != null) {
+            channelBank.setRawValue(channelIndex, rawValue, System.currentTimeMillis());
+            return;
+        }
+        this.rawValue = rawValue;
+        this.mappedValue = mapValue(rawValue);
+    }
+
+    public double getMappedValue() {
+        return channelBank != null ? channelBank.getMappedValue(channelIndex) : mappedValue;
+    }
+
+    // Binds this input to a bank channel and copies its settings in. Re-attaching to another
+    // bank or index carries the current value over.
+    public void attach(ChannelBank bank, int index) {
+        bank.configure(index, this);
+        if (channelBank != null && (channelBank != bank || channelIndex != index)) {
+            bank.copyValue(index, channelBank, channelIndex);
+        }
+        this.channelBank = bank;
+        this.channelIndex = index;
+    }
+
+    public String getUnit() { return unit; }
+    public void setUnit(String unit) { this.unit = unit; }
+
+    public InputType getInputType() { return inputType; }
+    public void setInputType(InputType inputType) {
+        this.inputType = inputType;
+        compiledCalibration = null;
+    }
+
+    public GaugeType getGaugeType() { return gaugeType; }
+    public void setGaugeType(GaugeType gaugeType) { this.gaugeType = gaugeType; }
+
+    public double getMinRange() { return minRange; }
+    public void setMinRange(double minRange) {
+        this.minRange = minRange;
+        compiledCalibration = null;
+    }
+
+    public double getMaxRange() { return maxRange; }
+    public void setMaxRange(double maxRange) {
+        this.maxRange = maxRange;
+        compiledCalibration = null;
+    }
+
+    public double getMinMappedValue() { return minMappedValue; }
+    public void setMinMappedValue(double minMappedValue) {
+        this.minMappedValue = minMappedValue;
+        compiledCalibration = null;
+    }
+
+    public double getMaxMappedValue() { return maxMappedValue; }
+    public void setMaxMappedValue(double maxMappedValue) {
+        this.maxMappedValue = maxMappedValue;
+        compiledCalibration = null;
+    }
+
+    public Calibration getCalibration() { return calibration; }
+    public void setCalibration(Calibration calibration) {
+        this.calibration = calibration;
+        compiledCalibration = null;
+    }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public boolean isEnabled() { return isEnabled; }
+    public void setEnabled(boolean enabled) { isEnabled = enabled; }
+
+    public int getBoardId() { return boardId; }
+    public void setBoardId(int boardId) { this.boardId = boardId; }
+
+    public int getDataSource() { return dataSource; }
+    public void setDataSource(int dataSource) { this.dataSource = dataSource; }
+
+    // The transform applied to every sample: the calibration if there is one, else the range mapping
+    public CompiledCalibration compileCalibration() {
+        if (calibration != null) return calibration.compile();
+        return CompiledCalibration.linear(minRange, maxRange, minMappedValue, maxMappedValue);
+    }
+
+    private double mapValue(double rawValue) {
+        CompiledCalibration compiled = compiledCalibration;
+        if (compiled == null) compiledCalibration = compiled = compileCalibration();
+        return compiled.map(rawValue);
+    }
+
+    public String getFormattedValue() {
+        return formatValue(new FormattedText()).toString();
+    }
+
+    public String getFormattedRawValue() {
+        return formatRawValue(new FormattedText()).toString();
+    }
+
+    // Appends "<mapped value> <unit>" to out, for labels updated on every sample
+    public FormattedText formatValue(FormattedText out) {
+        return valueFormatter().format(getMappedValue(), out).append(' ').append(unit);
+    }
+
+    public FormattedText formatRawValue(FormattedText out) {
+        return valueFormatter().format(getRawValue(), out).append(' ').append(inputType.getDisplayName());
+    }
+
+    private static FixedPointFormatter valueFormatter() {
+        FixedPointFormatter formatter = valueFormatter;
+        // Follows changes of the default locale
+        if (!formatter.getLocale().equals(Locale.getDefault())) {
+            valueFormatter = formatter = new FixedPointFormatter(2);
+        }
+        return formatter;
+    }
+}
+
@@ -0,0 +1,187 @@
+package com.xsz.IoT.model;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.xsz.IoT.calibration.Calibration;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written JSON form of the saved AnalogInput settings, read and written field by field with
+ * Gson's streaming reader and writer instead of reflection. Field names match what the reflective
+ * Gson serialization used to produce, so older settings load unchanged; unknown fields (such as
+ * the live values older versions saved) are skipped.
+ */
+public final class AnalogInputCodec {
+
+    private AnalogInputCodec() {}
+
+    public static String toJson(AnalogInput input) {
+        StringWriter out = new StringWriter(256);
+        try (JsonWriter writer = new JsonWriter(out)) {
+            write(writer, input);
+        } catch (IOException e) {
+            // A StringWriter never fails
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    public static AnalogInput fromJson(String json) throws IOException {
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            return read(reader);
+        }
+    }
+
+    // Reads a JSON array of inputs, the format of the old single-string settings
+    public static List<AnalogInput> listFromJson(String json) throws IOException {
+        List<AnalogInput> inputs = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(new StringReader(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                inputs.add(read(reader));
+            }
+            reader.endArray();
+        }
+        return inputs;
+    }
+
+    public static void write(JsonWriter writer, AnalogInput input) throws IOException {
+        writer.beginObject();
+        writer.name("inputNumber").value(input.getInputNumber());
+        writer.name("name").value(input.getName());
+        writer.name("unit").value(input.getUnit());
+        writer.name("inputType").value(input.getInputType() != null ? input.getInputType().name() : null);
+        writer.name("gaugeType").value(input.getGaugeType() != null ? input.getGaugeType().name() : null);
+        writer.name("minRange").value(input.getMinRange());
+        writer.name("maxRange").value(input.getMaxRange());
+        writer.name("minMappedValue").value(input.getMinMappedValue());
+        writer.name("maxMappedValue").value(input.getMaxMappedValue());
+        Calibration calibration = input.getCalibration();
+        if (calibration != null) {
+            writer.name("calibration");
+            writeCalibration(writer, calibration);
+        }
+        writer.name("description").value(input.getDescription());
+        writer.name("isEnabled").value(input.isEnabled());
+        writer.name("boardId").value(input.getBoardId());
+        writer.name("dataSource").value(input.getDataSource());
+        writer.endObject();
+    }
+
+    public static AnalogInput read(JsonReader reader) throws IOException {
+        // Fields missing from older settings keep the defaults of a new input
+        AnalogInput input = new AnalogInput(1);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "inputNumber": input.setInputNumber(reader.nextInt()); break;
+                case "name": input.setName(reader.nextString()); break;
+                case "unit": input.setUnit(reader.nextString()); break;
+                case "inputType": input.setInputType(enumValue(AnalogInput.InputType.class, reader.nextString(), input.getInputType())); break;
+                case "gaugeType": input.setGaugeType(enumValue(AnalogInput.GaugeType.class, reader.nextString(), input.getGaugeType())); break;
+                case "minRange": input.setMinRange(reader.nextDouble()); break;
+                case "maxRange": input.setMaxRange(reader.nextDouble()); break;
+                case "minMappedValue": input.setMinMappedValue(reader.nextDouble()); break;
+                case "maxMappedValue": input.setMaxMappedValue(reader.nextDouble()); break;
+                case "calibration": input.setCalibration(readCalibration(reader)); break;
+                case "description": input.setDescription(reader.nextString()); break;
+                case "isEnabled": input.setEnabled(reader.nextBoolean()); break;
+                case "boardId": input.setBoardId(reader.nextInt()); break;
+                case "dataSource": input.setDataSource(reader.nextInt()); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+        return input;
+    }
+
+    private static void writeCalibration(JsonWriter writer, Calibration calibration) throws IOException {
+        writer.beginObject();
+        writer.name("type").value(calibration.getType().name());
+        writeArray(writer, "rawPoints", calibration.getRawPoints());
+        writeArray(writer, "mappedPoints", calibration.getMappedPoints());
+        writeArray(writer, "coefficients", calibration.getCoefficients());
+        writer.endObject();
+    }
+
+    private static Calibration readCalibration(JsonReader reader) throws IOException {
+        Calibration.Type type = null;
+        double[] rawPoints = null;
+        double[] mappedPoints = null;
+        double[] coefficients = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "type": type = enumValue(Calibration.Type.class, reader.nextString(), null); break;
+                case "rawPoints": rawPoints = readArray(reader); break;
+                case "mappedPoints": mappedPoints = readArray(reader); break;
+                case "coefficients": coefficients = readArray(reader); break;
+                default: reader.skipValue(); break;
+            }
+        }
+        reader.endObject();
+
+        try {
+            if (type == Calibration.Type.TABLE && rawPoints != null && mappedPoints != null) {
+                return Calibration.table(rawPoints, mappedPoints);
+            }
+            if (type == Calibration.Type.POLYNOMIAL && coefficients != null) {
+                return Calibration.polynomial(coefficients);
+            }
+        } catch (IllegalArgumentException e) {
+            // An invalid calibration falls back to the linear range mapping
+        }
+        return null;
+    }
+
+    private static void writeArray(JsonWriter writer, String name, double[] values) throws IOException {
+        if (values == null) return;
+        writer.name(name).beginArray();
+        for (double value : values) {
+            writer.value(value);
+        }
+        writer.endArray();
+    }
+
+    private static double[] readArray(JsonReader reader) throws IOException {
+        double[] values = new double[8];
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                double[] grown = new double[count * 2];
+                System.arraycopy(values, 0, grown, 0, count);
+                values = grown;
+            }
+            values[count++] = reader.nextDouble();
+        }
+        reader.endArray();
+        double[] result = new double[count];
+        System.arraycopy(values, 0, result, 0, count);
+        return result;
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String name, E fallback) {
+        try {
+            return Enum.valueOf(type, name);
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.xsz.IoT.model;
+
+// A physical input is addressed by (board id, channel), packed into one int key so that lookups
+// never need an object. Channels are numbered from 1 like the labels on the ESP32 board.
+public final class ChannelAddress {
+    public static final int MAX_CHANNEL = 256;
+
+    // Layout of the ESP32 analog board: channels 1-4 are 0-10V inputs, 5-8 are 4-20mA loops
+    public static final int CHANNELS_PER_BOARD = 8;
+    public static final int VOLTAGE_CHANNELS = 4;
+
+    private ChannelAddress() {}
+
+    public static int key(int boardId, int channel) {
+        return (boardId << 8) | ((channel - 1) & 0xFF);
+    }
+
+    public static boolean isValid(int boardId, int channel) {
+        return boardId >= 0 && boardId <= 0xFFFF && channel >= 1 && channel <= MAX_CHANNEL;
+    }
+
+    public static int boardOf(int key) {
+        return key >>> 8;
+    }
+
+    public static int channelOf(int key) {
+        return (key & 0xFF) + 1;
+    }
+
+    public static AnalogInput.InputType defaultInputType(int channel) {
+        return channel <= VOLTAGE_CHANNELS ? AnalogInput.InputType.VOLTAGE_0_10V : AnalogInput.InputType.CURRENT_4_20MA;
+    }
+}
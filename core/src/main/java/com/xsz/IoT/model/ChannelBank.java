@@ -0,0 +1,210 @@
+package com.xsz.IoT.model;
+
+import com.xsz.IoT.calibration.CompiledCalibration;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays store for the live state of every gauge channel. Values, timestamps, quality
+ * flags and the precompiled linear mapping are kept in parallel primitive arrays indexed by
+ * channel, so per-tick work is a tight loop instead of a walk over AnalogInput objects.
+ *
+ * AnalogInput stays the configuration and view facade: configure() copies its settings in,
+ * and its value getters read back from here. Like AnalogInput, a bank is main-thread only.
+ */
+public final class ChannelBank {
+    // Quality flags
+    public static final int QUALITY_VALID = 1;         // at least one sample received
+    public static final int QUALITY_OUT_OF_RANGE = 2;  // raw value outside the configured input range
+
+    private final int size;
+
+    final double[] rawValues;
+    final double[] mappedValues;
+    final long[] timestamps;    // wall-clock milliseconds of the latest sample
+    final int[] quality;
+    // One bit per channel that got a new sample since clearChanged(), so views can skip the rest
+    private final long[] changed;
+
+    // Configuration, copied from AnalogInput by configure()
+    final boolean[] enabled;
+    final AnalogInput.InputType[] inputTypes;
+    final int[] sources;        // SourceMap slot of the physical input, -1 when unassigned
+    final double[] scale;       // mapped = raw * scale + offset
+    final double[] offset;
+    final CompiledCalibration[] calibrations; // non-linear transforms, null where scale/offset apply
+    final double[] rawMin;
+    final double[] rawMax;
+
+    private ChannelHistory history;
+
+    public ChannelBank(int size) {
+        this.size = size;
+        rawValues = new double[size];
+        mappedValues = new double[size];
+        timestamps = new long[size];
+        quality = new int[size];
+        enabled = new boolean[size];
+        inputTypes = new AnalogInput.InputType[size];
+        sources = new int[size];
+        scale = new double[size];
+        offset = new double[size];
+        calibrations = new CompiledCalibration[size];
+        rawMin = new double[size];
+        rawMax = new double[size];
+        changed = new long[(size + 63) >>> 6];
+        Arrays.fill(sources, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void configure(int channel, AnalogInput input) {
+        enabled[channel] = input.isEnabled();
+        inputTypes[channel] = input.getInputType();
+        rawMin[channel] = input.getMinRange();
+        rawMax[channel] = input.getMaxRange();
+
+        // Linear maps stay inline as one multiply-add; anything else goes through its compiled form
+        CompiledCalibration calibration = input.compileCalibration();
+        if (calibration instanceof CompiledCalibration.Linear) {
+            scale[channel] = ((CompiledCalibration.Linear) calibration).getScale();
+            offset[channel] = ((CompiledCalibration.Linear) calibration).getOffset();
+            calibrations[channel] = null;
+        } else {
+            scale[channel] = 0;
+            offset[channel] = 0;
+            calibrations[channel] = calibration;
+        }
+        if ((quality[channel] & QUALITY_VALID) != 0) {
+            mappedValues[channel] = mapRawValue(channel, rawValues[channel]);
+        }
+    }
+
+    // Every value set from now on is also appended (mapped) to the history
+    public void setHistory(ChannelHistory history) {
+        this.history = history;
+    }
+
+    public ChannelHistory getHistory() {
+        return history;
+    }
+
+    public void setSource(int channel, int slot) {
+        sources[channel] = slot;
+    }
+
+    void copyValue(int channel, ChannelBank from, int fromChannel) {
+        rawValues[channel] = from.rawValues[fromChannel];
+        mappedValues[channel] = from.mappedValues[fromChannel];
+        timestamps[channel] = from.timestamps[fromChannel];
+        quality[channel] = from.quality[fromChannel];
+        changed[channel >>> 6] |= 1L << channel;
+    }
+
+    public double mapRawValue(int channel, double rawValue) {
+        CompiledCalibration calibration = calibrations[channel];
+        return calibration == null ? rawValue * scale[channel] + offset[channel] : calibration.map(rawValue);
+    }
+
+    // Maps a run of raw samples of one channel in a single pass
+    public void mapRawValues(int channel, double[] in, int inOffset, double[] out, int outOffset, int count) {
+        CompiledCalibration calibration = calibrations[channel];
+        if (calibration != null) {
+            calibration.map(in, inOffset, out, outOffset, count);
+            return;
+        }
+        double scale = this.scale[channel];
+        double offset = this.offset[channel];
+        for (int i = 0; i < count; i++) {
+            out[outOffset + i] = in[inOffset + i] * scale + offset;
+        }
+    }
+
+    // Converts a rollup query of the channel's source from raw values to the channel's units. Min
+    // and max are exact for monotonic maps (a falling one swaps them), the average for linear ones.
+    public RollupWindow mapRollup(int channel, RollupWindow window) {
+        for (int i = 0; i < window.size(); i++) {
+            double min = mapRawValue(channel, window.mins[i]);
+            double max = mapRawValue(channel, window.maxs[i]);
+            window.mins[i] = (float) Math.min(min, max);
+            window.maxs[i] = (float) Math.max(min, max);
+            window.averages[i] = (float) mapRawValue(channel, window.averages[i]);
+        }
+        return window;
+    }
+
+    public void setRawValue(int channel, double rawValue, long timestamp) {
+        // A source that went quiet keeps its last timestamp; it is not a new sample for the history
+        boolean newSample = timestamp != timestamps[channel] || (quality[channel] & QUALITY_VALID) == 0;
+        if (newSample || rawValue != rawValues[channel]) {
+            changed[channel >>> 6] |= 1L << channel;
+        }
+        double mappedValue = mapRawValue(channel, rawValue);
+        rawValues[channel] = rawValue;
+        mappedValues[channel] = mappedValue;
+        timestamps[channel] = timestamp;
+        if (history != null && newSample) {
+            history.append(channel, timestamp, (float) mappedValue);
+        }
+        quality[channel] = rawValue < rawMin[channel] || rawValue > rawMax[channel]
+                ? QUALITY_VALID | QUALITY_OUT_OF_RANGE
+                : QUALITY_VALID;
+    }
+
+    // Pulls every enabled channel's source value out of the snapshot. Returns the number of
+    // channels that were updated.
+    public int applySnapshot(ValueSnapshot snapshot) {
+        double[] snapshotValues = snapshot.rawValues;
+        long[] snapshotTimestamps = snapshot.timestamps;
+        int sourceCount = snapshot.getChannelCount();
+        int updated = 0;
+
+        for (int channel = 0; channel < size; channel++) {
+            int source = sources[channel];
+            if (!enabled[channel] || source < 0 || source >= sourceCount) continue;
+
+            double rawValue = snapshotValues[source];
+            if (rawValue != rawValue) continue; // NaN: no sample yet
+            setRawValue(channel, rawValue, snapshotTimestamps[source]);
+            updated++;
+        }
+        return updated;
+    }
+
+    // First channel at or after fromChannel with a new sample, or -1
+    public int nextChangedChannel(int fromChannel) {
+        if (fromChannel >= size) return -1;
+        int word = fromChannel >>> 6;
+        long bits = changed[word] & (-1L << fromChannel);
+        while (bits == 0) {
+            if (++word == changed.length) return -1;
+            bits = changed[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public boolean isChanged(int channel) {
+        return (changed[channel >>> 6] & (1L << channel)) != 0;
+    }
+
+    // Called by whoever consumes the changes, once it has shown them
+    public void clearChanged() {
+        Arrays.fill(changed, 0L);
+    }
+
+    public double getRawValue(int channel) { return rawValues[channel]; }
+
+    public double getMappedValue(int channel) { return mappedValues[channel]; }
+
+    public long getTimestamp(int channel) { return timestamps[channel]; }
+
+    public int getQuality(int channel) { return quality[channel]; }
+
+    public boolean isEnabled(int channel) { return enabled[channel]; }
+
+    public AnalogInput.InputType getInputType(int channel) { return inputTypes[channel]; }
+
+    public int getSource(int channel) { return sources[channel]; }
+}
@@ -0,0 +1,120 @@
+package com.xsz.IoT.model;
+
+/**
+ * Timestamped sample history for every channel, kept in the data layer so it survives view
+ * recycling and gauge type changes. Each channel is a fixed ring inside two flat primitive
+ * arrays ({@code float} values, {@code long} timestamps), so appending never allocates and
+ * readers get {@link HistoryWindow}s pointing straight into the rings.
+ *
+ * Main-thread only, like ChannelBank which feeds it.
+ */
+public final class ChannelHistory {
+    private final int channelCount;
+    private final int capacity;
+    private final int mask;
+    private final float[] values;
+    private final long[] timestamps;
+    // Total samples ever appended per channel; the next write goes to writeCounts[c] & mask
+    private final long[] writeCounts;
+
+    // Capacity is rounded up to a power of two samples per channel
+    public ChannelHistory(int channelCount, int capacity) {
+        this.channelCount = channelCount;
+        this.capacity = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.values = new float[channelCount * this.capacity];
+        this.timestamps = new long[channelCount * this.capacity];
+        this.writeCounts = new long[channelCount];
+    }
+
+    // Copies the newest samples of every channel that still exists into a new layout
+    public ChannelHistory(int channelCount, int capacity, ChannelHistory previous) {
+        this(channelCount, capacity);
+        if (previous == null) return;
+
+        HistoryWindow window = new HistoryWindow();
+        int channels = Math.min(channelCount, previous.channelCount);
+        for (int channel = 0; channel < channels; channel++) {
+            previous.latest(channel, this.capacity, window);
+            for (int i = 0; i < window.size(); i++) {
+                append(channel, window.getTimestamp(i), window.getValue(i));
+            }
+        }
+    }
+
+    public int getChannelCount() {
+        return channelCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void append(int channel, long timestamp, float value) {
+        int index = channel * capacity + (int) (writeCounts[channel] & mask);
+        values[index] = value;
+        timestamps[index] = timestamp;
+        writeCounts[channel]++;
+    }
+
+    public int size(int channel) {
+        return (int) Math.min(writeCounts[channel], capacity);
+    }
+
+    public long getWriteCount(int channel) {
+        return writeCounts[channel];
+    }
+
+    public void clear(int channel) {
+        writeCounts[channel] = 0;
+    }
+
+    // Window over the newest maxCount samples of the channel
+    public HistoryWindow latest(int channel, int maxCount, HistoryWindow out) {
+        long end = writeCounts[channel];
+        int count = (int) Math.min(Math.min(maxCount, end), capacity);
+        return range(channel, end - count, count, out);
+    }
+
+    // Window over the samples written since the given sequence number (see getWriteCount),
+    // clipped to what the ring still holds
+    public HistoryWindow sinceSequence(int channel, long sequence, HistoryWindow out) {
+        long end = writeCounts[channel];
+        long start = Math.max(sequence, Math.max(0, end - capacity));
+        return range(channel, start, (int) Math.max(0, end - start), out);
+    }
+
+    // Window over the samples with timestamp >= fromTimestamp; timestamps are assumed ascending
+    public HistoryWindow sinceTime(int channel, long fromTimestamp, int maxCount, HistoryWindow out) {
+        long end = writeCounts[channel];
+        long low = Math.max(0, end - capacity);
+        long high = end;
+        int base = channel * capacity;
+        while (low < high) {
+            long mid = (low + high) >>> 1;
+            if (timestamps[base + (int) (mid & mask)] < fromTimestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        long start = Math.max(low, end - maxCount);
+        return range(channel, start, (int) (end - start), out);
+    }
+
+    private HistoryWindow range(int channel, long startSequence, int count, HistoryWindow out) {
+        out.values = values;
+        out.timestamps = timestamps;
+        out.clear();
+        out.firstSequence = startSequence;
+        if (count <= 0) return out;
+
+        int base = channel * capacity;
+        int start = (int) (startSequence & mask);
+        out.firstOffset = base + start;
+        out.firstLength = Math.min(count, capacity - start);
+        out.secondOffset = base;
+        out.secondLength = count - out.firstLength;
+        return out;
+    }
+}
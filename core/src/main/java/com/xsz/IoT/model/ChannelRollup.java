@@ -0,0 +1,301 @@
+package com.xsz.IoT.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Min/max/avg/count buckets of every physical input at several time resolutions (1 s, 1 min and
+ * 1 h by default). SampleIngest folds in every acquired sample on the writer thread, so the
+ * buckets describe the whole signal and not only what the display happened to pick up; long
+ * ranges are drawn from them without keeping raw samples. Adding a sample updates or opens one
+ * bucket per level and never allocates.
+ *
+ * Sources are keyed by their ChannelAddress key, so their buckets survive slot reassignments, and
+ * hold raw values; ChannelBank.mapRollup() converts a query result to a gauge's units. A source's
+ * rings are allocated with its first sample. configure() sizes the rings for the map's source
+ * count and resizes those already allocated, keeping their newest buckets, so all configured
+ * sources together stay within the memory budget.
+ *
+ * The writer adds and any thread may query; both take the rollup's lock once per call.
+ */
+public final class ChannelRollup {
+    public static final long[] DEFAULT_RESOLUTIONS = {1000L, 60 * 1000L, 60 * 60 * 1000L};
+    // One hour of seconds, one week of minutes, a month of hours: about 400 KB per source
+    public static final int[] DEFAULT_CAPACITIES = {3600, 7 * 24 * 60, 31 * 24};
+    // Heap the rings of all configured sources may take before their capacities are scaled down
+    public static final long DEFAULT_BUDGET_BYTES = 16L << 20;
+    // Start, min, max, sum and count
+    static final int BUCKET_BYTES = 8 + 4 + 4 + 8 + 4;
+    // Scaled capacities stay at least this many buckets (or the full capacity, if smaller), even
+    // past the budget when the map has more sources than that fits
+    static final int MIN_CAPACITY = 60;
+
+    private final long[] resolutions;
+    private final int[] fullCapacities;
+    private final long budgetBytes;
+    // Capacities of every source's rings, and the time they span
+    private int[] capacities;
+    private long[] spans;
+    private final Map<Integer, Source> sources = new HashMap<>();
+
+    public ChannelRollup() {
+        this(DEFAULT_RESOLUTIONS, DEFAULT_CAPACITIES, DEFAULT_BUDGET_BYTES);
+    }
+
+    // Resolutions must be ascending
+    public ChannelRollup(long[] resolutions, int[] capacities, long budgetBytes) {
+        this.resolutions = resolutions.clone();
+        this.fullCapacities = capacities.clone();
+        this.budgetBytes = budgetBytes;
+        setCapacities(capacities.clone());
+    }
+
+    private void setCapacities(int[] capacities) {
+        this.capacities = capacities;
+        spans = new long[capacities.length];
+        for (int i = 0; i < capacities.length; i++) {
+            spans[i] = resolutions[i] * capacities[i];
+        }
+    }
+
+    public int getLevelCount() {
+        return resolutions.length;
+    }
+
+    public long getResolution(int level) {
+        return resolutions[level];
+    }
+
+    // Buckets the level holds per source
+    public synchronized int getCapacity(int level) {
+        return capacities[level];
+    }
+
+    // Sizes the rings so that the map's sources fit the budget, resizing the rings already
+    // allocated, and drops the buckets of sources the map no longer contains
+    public synchronized void configure(SourceMap map) {
+        sources.values().removeIf(source -> map.slotOf(source.key) < 0);
+        double bytesPerSource = budgetBytes / (double) Math.max(1, map.size());
+        int[] scaled = new int[fullCapacities.length];
+        boolean[] atMinimum = new boolean[fullCapacities.length];
+        // Levels held at MIN_CAPACITY take their share first; the rest scale into what is left
+        for (boolean clamped = true; clamped; ) {
+            clamped = false;
+            double fixedBytes = 0;
+            double scalableBytes = 0;
+            for (int i = 0; i < scaled.length; i++) {
+                if (atMinimum[i]) {
+                    fixedBytes += (double) Math.min(MIN_CAPACITY, fullCapacities[i]) * BUCKET_BYTES;
+                } else {
+                    scalableBytes += (double) fullCapacities[i] * BUCKET_BYTES;
+                }
+            }
+            double scale = scalableBytes > 0 ? Math.min(1.0, Math.max(0, bytesPerSource - fixedBytes) / scalableBytes) : 1.0;
+            for (int i = 0; i < scaled.length; i++) {
+                int minimum = Math.min(MIN_CAPACITY, fullCapacities[i]);
+                if (atMinimum[i]) {
+                    scaled[i] = minimum;
+                } else if ((int) (fullCapacities[i] * scale) < minimum) {
+                    atMinimum[i] = true;
+                    clamped = true;
+                } else {
+                    scaled[i] = (int) (fullCapacities[i] * scale);
+                }
+            }
+        }
+        if (Arrays.equals(scaled, capacities)) return;
+        setCapacities(scaled);
+        for (Source source : sources.values()) {
+            if (source.levels == null) continue;
+            for (int i = 0; i < scaled.length; i++) {
+                source.levels[i] = source.levels[i].resize(scaled[i]);
+            }
+        }
+    }
+
+    // Heap taken by the rings allocated so far
+    public synchronized long getAllocatedBytes() {
+        long bytes = 0;
+        for (Source source : sources.values()) {
+            if (source.levels == null) continue;
+            for (Level level : source.levels) {
+                bytes += (long) level.capacity * BUCKET_BYTES;
+            }
+        }
+        return bytes;
+    }
+
+    // Holder of one source's buckets, for the writer to keep per slot; its rings are allocated with
+    // the first sample
+    public synchronized Source source(int sourceKey) {
+        Source source = sources.get(sourceKey);
+        if (source == null) {
+            source = new Source(sourceKey);
+            sources.put(sourceKey, source);
+        }
+        return source;
+    }
+
+    public void add(int sourceKey, long timestamp, float value) {
+        Source source = source(sourceKey);
+        synchronized (this) {
+            add(source, timestamp, value);
+        }
+    }
+
+    // Folds in a run of samples taken every intervalMicros, the last one at lastTimestamp, read
+    // from values[offset], values[offset + stride], ... like the channels of an interleaved frame
+    public synchronized void addRun(Source source, long lastTimestamp, long intervalMicros,
+                                    float[] values, int offset, int stride, int count) {
+        for (int s = 0; s < count; s++) {
+            add(source, lastTimestamp - (count - 1 - s) * intervalMicros / 1000, values[offset + s * stride]);
+        }
+    }
+
+    private void add(Source source, long timestamp, float value) {
+        Level[] levels = source.levels;
+        if (levels == null) {
+            levels = source.levels = new Level[resolutions.length];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new Level(resolutions[i], capacities[i]);
+            }
+        }
+        for (Level level : levels) {
+            level.add(timestamp, value);
+        }
+    }
+
+    // Coarsest level whose buckets are no wider than one pixel column of the range, moving to a
+    // coarser one when the finer level no longer holds the start of the range
+    public synchronized int selectLevel(long fromTimestamp, long toTimestamp, int pixelWidth) {
+        long perPixel = (toTimestamp - fromTimestamp) / Math.max(1, pixelWidth);
+        int level = 0;
+        while (level + 1 < resolutions.length && resolutions[level + 1] <= perPixel) {
+            level++;
+        }
+        while (level + 1 < resolutions.length && toTimestamp - fromTimestamp > spans[level]) {
+            level++;
+        }
+        return level;
+    }
+
+    // Raw buckets of the source overlapping [fromTimestamp, toTimestamp), copied into out from the
+    // level selectLevel() picks; empty without samples
+    public synchronized RollupWindow query(int sourceKey, long fromTimestamp, long toTimestamp, int pixelWidth,
+                                           RollupWindow out) {
+        Source source = sources.get(sourceKey);
+        if (source == null || source.levels == null) {
+            out.reset(resolutions[0], 0);
+            return out;
+        }
+        int level = selectLevel(fromTimestamp, toTimestamp, pixelWidth);
+        return source.levels[level].query(fromTimestamp, toTimestamp, out);
+    }
+
+    public synchronized RollupWindow queryLevel(int sourceKey, int level, long fromTimestamp, long toTimestamp,
+                                                RollupWindow out) {
+        Source source = sources.get(sourceKey);
+        if (source == null || source.levels == null) {
+            out.reset(resolutions[level], 0);
+            return out;
+        }
+        return source.levels[level].query(fromTimestamp, toTimestamp, out);
+    }
+
+    public static final class Source {
+        final int key;
+        Level[] levels;
+
+        Source(int key) {
+            this.key = key;
+        }
+    }
+
+    static final class Level {
+        final long resolution;
+        final int capacity;
+        final long[] starts;
+        final float[] mins;
+        final float[] maxs;
+        final double[] sums;
+        final int[] counts;
+        // Buckets ever opened; the newest is at (opened - 1) % capacity
+        long opened;
+
+        Level(long resolution, int capacity) {
+            this.resolution = resolution;
+            this.capacity = capacity;
+            starts = new long[capacity];
+            mins = new float[capacity];
+            maxs = new float[capacity];
+            sums = new double[capacity];
+            counts = new int[capacity];
+        }
+
+        void add(long timestamp, float value) {
+            long start = timestamp - Math.floorMod(timestamp, resolution);
+            long n = opened;
+            if (n == 0 || start > starts[(int) ((n - 1) % capacity)]) {
+                int index = (int) (n % capacity);
+                opened = n + 1;
+                starts[index] = start;
+                mins[index] = value;
+                maxs[index] = value;
+                sums[index] = value;
+                counts[index] = 1;
+                return;
+            }
+            // Same bucket; a clock stepping back also lands here rather than reopening old buckets
+            int index = (int) ((n - 1) % capacity);
+            if (value < mins[index]) mins[index] = value;
+            if (value > maxs[index]) maxs[index] = value;
+            sums[index] += value;
+            counts[index]++;
+        }
+
+        // Copy with room for capacity buckets, keeping the newest ones that fit
+        Level resize(int capacity) {
+            if (capacity == this.capacity) return this;
+            Level resized = new Level(resolution, capacity);
+            long first = Math.max(Math.max(0, opened - this.capacity), opened - capacity);
+            for (long n = first; n < opened; n++) {
+                int from = (int) (n % this.capacity);
+                int to = (int) (resized.opened++ % capacity);
+                resized.starts[to] = starts[from];
+                resized.mins[to] = mins[from];
+                resized.maxs[to] = maxs[from];
+                resized.sums[to] = sums[from];
+                resized.counts[to] = counts[from];
+            }
+            return resized;
+        }
+
+        RollupWindow query(long fromTimestamp, long toTimestamp, RollupWindow out) {
+            long n = opened;
+            long oldest = Math.max(0, n - capacity);
+            // First bucket ending after fromTimestamp, then first starting at or after toTimestamp
+            long first = lowerBound(oldest, n, fromTimestamp - resolution + 1);
+            long end = lowerBound(first, n, toTimestamp);
+            int count = (int) Math.max(0, end - first);
+            out.reset(resolution, count);
+            for (int i = 0; i < count; i++) {
+                int index = (int) ((first + i) % capacity);
+                out.set(i, starts[index], mins[index], maxs[index], (float) (sums[index] / counts[index]), counts[index]);
+            }
+            return out;
+        }
+
+        private long lowerBound(long low, long high, long start) {
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                if (starts[(int) (mid % capacity)] < start) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.xsz.IoT.model;
+
+// Zero-copy view of a run of samples in a ChannelHistory ring. The run is at most two contiguous
+// segments of the backing arrays (before and after the wrap point), oldest first. A window is
+// reusable and only valid until the history is written again.
+public final class HistoryWindow {
+    public float[] values;
+    public long[] timestamps;
+    public int firstOffset;
+    public int firstLength;
+    public int secondOffset;
+    public int secondLength;
+    // Sequence number (total samples written before it) of the oldest sample in the window
+    public long firstSequence;
+
+    public int size() {
+        return firstLength + secondLength;
+    }
+
+    public float getValue(int index) {
+        return index < firstLength ? values[firstOffset + index] : values[secondOffset + index - firstLength];
+    }
+
+    public long getTimestamp(int index) {
+        return index < firstLength ? timestamps[firstOffset + index] : timestamps[secondOffset + index - firstLength];
+    }
+
+    void clear() {
+        firstOffset = firstLength = secondOffset = secondLength = 0;
+        firstSequence = 0;
+    }
+}
@@ -0,0 +1,62 @@
+package com.xsz.IoT.model;
+
+// Copy of a run of buckets from one ChannelRollup level, oldest first. Reusable: its arrays grow
+// to the longest run queried and are kept, so repeated queries of similar ranges do not allocate.
+public final class RollupWindow {
+    private long resolution;
+    private int size;
+    long[] starts = new long[0];
+    float[] mins = new float[0];
+    float[] maxs = new float[0];
+    float[] averages = new float[0];
+    int[] counts = new int[0];
+
+    // Width of every bucket in milliseconds
+    public long getResolution() {
+        return resolution;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getStart(int index) {
+        return starts[index];
+    }
+
+    public float getMin(int index) {
+        return mins[index];
+    }
+
+    public float getMax(int index) {
+        return maxs[index];
+    }
+
+    public float getAverage(int index) {
+        return averages[index];
+    }
+
+    public int getCount(int index) {
+        return counts[index];
+    }
+
+    void reset(long resolution, int size) {
+        this.resolution = resolution;
+        this.size = size;
+        if (starts.length < size) {
+            starts = new long[size];
+            mins = new float[size];
+            maxs = new float[size];
+            averages = new float[size];
+            counts = new int[size];
+        }
+    }
+
+    void set(int index, long start, float min, float max, float average, int count) {
+        starts[index] = start;
+        mins[index] = min;
+        maxs[index] = max;
+        averages[index] = average;
+        counts[index] = count;
+    }
+}
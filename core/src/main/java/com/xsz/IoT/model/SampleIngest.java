@@ -0,0 +1,202 @@
+package com.xsz.IoT.model;
+
+import com.xsz.IoT.acquisition.AcquisitionEngine;
+import com.xsz.IoT.acquisition.SampleFrame;
+import com.xsz.IoT.metrics.PerfMetrics;
+import com.xsz.IoT.storage.SampleStore;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ingest path from decoded frames to the snapshots the dashboard reads. The writer (an
+ * acquisition engine or load simulator, one at a time) passes every frame to onFrame(), which
+ * records it to the sample store, folds every sample into the rollups, stores the latest value
+ * per source slot and publishes a snapshot. The listener is invoked at most once until the
+ * consumer calls acquire() again.
+ *
+ * Samples are timed by their board's clock, mapped onto the host clock once per board (again only
+ * if the board's clock steps back, as after a reboot), so consecutive frames keep the spacing the
+ * board gave them. Frames without a timestamp are timed on arrival.
+ */
+public final class SampleIngest implements AcquisitionEngine.SampleSink {
+    private final int maxSources;
+    // Latest raw value per source slot, published by the writer thread as whole snapshots
+    private final SnapshotExchange acquiredValues;
+    private final AtomicBoolean samplesPending = new AtomicBoolean();
+    // Slot assignment for the configured (board, channel) addresses, replaced as a whole on change
+    private volatile SourceMap sourceMap = new SourceMap.Builder(0).build();
+    private long writerGeneration; // writer thread only
+    private volatile Runnable onSamplesAvailableListener;
+    // Every acquired sample is appended here by the writer thread
+    private volatile SampleStore sampleStore;
+    private volatile IOException lastError;
+    private volatile PerfMetrics metrics;
+    // Every acquired sample is folded into these buckets by the writer thread
+    private volatile ChannelRollup rollup;
+    // Writer thread only: rollup holder per slot of the current source map, looked up once
+    private final ChannelRollup.Source[] rollupSources;
+    private ChannelRollup rollupSourcesOwner;
+    // Off when the frames already carry host time, e.g. replayed from a SampleStore
+    private volatile boolean mapBoardClocks = true;
+    // Writer thread only, by board id: host minus board time in microseconds, and the board time
+    // of the last sample seen (Long.MIN_VALUE until the board's first frame); grown on demand
+    private long[] boardClockOffsets = new long[0];
+    private long[] boardClockEnds = new long[0];
+
+    public SampleIngest(int maxSources) {
+        this.maxSources = maxSources;
+        acquiredValues = new SnapshotExchange(maxSources);
+        rollupSources = new ChannelRollup.Source[maxSources];
+    }
+
+    public int getMaxSources() {
+        return maxSources;
+    }
+
+    public void setSourceMap(SourceMap sourceMap) {
+        this.sourceMap = sourceMap;
+    }
+
+    public SourceMap getSourceMap() {
+        return sourceMap;
+    }
+
+    // Any thread; the writer picks the store up with its next frame
+    public void setSampleStore(SampleStore sampleStore) {
+        this.sampleStore = sampleStore;
+    }
+
+    public SampleStore getSampleStore() {
+        return sampleStore;
+    }
+
+    // Why recording stopped, or null while samples are being stored
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    // Any thread; null stops the rollups
+    public void setRollup(ChannelRollup rollup) {
+        this.rollup = rollup;
+    }
+
+    public ChannelRollup getRollup() {
+        return rollup;
+    }
+
+    // Any thread; false takes frame timestamps as host time in microseconds
+    public void setMapBoardClocks(boolean mapBoardClocks) {
+        this.mapBoardClocks = mapBoardClocks;
+    }
+
+    // Counts the samples of every mapped source; null turns counting off
+    public void setMetrics(PerfMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // Invoked on the writer thread at most once per batch of frames
+    public void setOnSamplesAvailableListener(Runnable listener) {
+        this.onSamplesAvailableListener = listener;
+    }
+
+    @Override
+    public void onFrame(SampleFrame frame) {
+        SourceMap map = sourceMap;
+        ChannelRollup rollup = this.rollup;
+        PerfMetrics perfMetrics = metrics;
+        if (map.getGeneration() != writerGeneration || rollup != rollupSourcesOwner) {
+            // Slots were reassigned; values and counts kept for the old layout are meaningless now
+            if (map.getGeneration() != writerGeneration) {
+                writerGeneration = map.getGeneration();
+                acquiredValues.reset(writerGeneration);
+                if (perfMetrics != null) perfMetrics.resetSources();
+            }
+            Arrays.fill(rollupSources, null);
+            rollupSourcesOwner = rollup;
+        }
+
+        long timestamp = lastSampleTime(frame);
+        SampleStore store = sampleStore;
+        if (store != null) recordFrame(store, frame, timestamp);
+
+        int boardId = frame.boardId;
+        for (int i = 0; i < frame.channelCount; i++) {
+            int slot = map.slotOf(boardId, frame.channelOffset + i + 1);
+            if (slot >= 0 && slot < maxSources) {
+                if (rollup != null) foldIntoRollup(rollup, slot, frame, i, timestamp);
+                acquiredValues.setValue(slot, frame.latest(i), timestamp);
+                if (perfMetrics != null) perfMetrics.addSamples(slot, frame.samplesPerChannel);
+            }
+        }
+        acquiredValues.publish();
+
+        // Only wake the consumer when it has taken the previous batch
+        Runnable listener = onSamplesAvailableListener;
+        if (listener != null && samplesPending.compareAndSet(false, true)) {
+            listener.run();
+        }
+    }
+
+    // Host time in milliseconds of the frame's last sample
+    private long lastSampleTime(SampleFrame frame) {
+        if (frame.timestampMicros == SampleFrame.NO_TIMESTAMP) return System.currentTimeMillis();
+        long lastMicros = frame.sampleTimeMicros(frame.samplesPerChannel - 1);
+        if (!mapBoardClocks) return Math.floorDiv(lastMicros, 1000);
+
+        int board = frame.boardId;
+        if (board >= boardClockEnds.length) {
+            int length = Math.max(board + 1, boardClockEnds.length * 2);
+            int previous = boardClockEnds.length;
+            boardClockOffsets = Arrays.copyOf(boardClockOffsets, length);
+            boardClockEnds = Arrays.copyOf(boardClockEnds, length);
+            Arrays.fill(boardClockEnds, previous, length, Long.MIN_VALUE);
+        }
+        if (boardClockEnds[board] == Long.MIN_VALUE || frame.timestampMicros < boardClockEnds[board]) {
+            boardClockOffsets[board] = System.currentTimeMillis() * 1000 - lastMicros;
+        }
+        boardClockEnds[board] = lastMicros;
+        return Math.floorDiv(lastMicros + boardClockOffsets[board], 1000);
+    }
+
+    // Folds every sample of one channel of the frame into its source's buckets, timed like recordFrame()
+    private void foldIntoRollup(ChannelRollup rollup, int slot, SampleFrame frame, int channel, long lastTime) {
+        ChannelRollup.Source source = rollupSources[slot];
+        if (source == null) {
+            source = rollupSources[slot] = rollup.source(ChannelAddress.key(frame.boardId, frame.channelOffset + channel + 1));
+        }
+        rollup.addRun(source, lastTime, frame.sampleIntervalMicros,
+                frame.samples, channel, frame.channelCount, frame.samplesPerChannel);
+    }
+
+    // Persists every sample of the frame, timed back from its last one by the board's sample interval
+    private void recordFrame(SampleStore store, SampleFrame frame, long lastTime) {
+        int samples = frame.samplesPerChannel;
+        try {
+            for (int s = 0; s < samples; s++) {
+                long timestamp = lastTime - (samples - 1 - s) * frame.sampleIntervalMicros / 1000;
+                for (int i = 0; i < frame.channelCount; i++) {
+                    store.append(timestamp, ChannelAddress.key(frame.boardId, frame.channelOffset + i + 1),
+                            frame.sample(i, s));
+                }
+            }
+        } catch (IOException e) {
+            lastError = e;
+            sampleStore = null;
+        }
+    }
+
+    // Returns the newest snapshot and re-arms the listener. Snapshots have a single consumer at a
+    // time; hand over only while neither side is reading.
+    public ValueSnapshot acquire() {
+        samplesPending.set(false);
+        return acquiredValues.acquire();
+    }
+
+    // Syncs the store; call once the writer has stopped
+    public void flush() {
+        SampleStore store = sampleStore;
+        if (store != null) store.flush();
+    }
+}
@@ -0,0 +1,75 @@
+package com.xsz.IoT.model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free hand-off of channel values from the single acquisition thread to the UI thread.
+ *
+ * Classic triple buffering: the writer fills its back buffer and swaps it with the shared middle
+ * one, the reader swaps the middle buffer with its front one when a newer snapshot is available.
+ * Each side only reads or writes a buffer it exclusively owns, so values are never torn and
+ * neither side ever blocks or allocates.
+ */
+public final class SnapshotExchange {
+    private static final int INDEX_MASK = 0x3;
+    private static final int DIRTY = 0x4;
+
+    private final ValueSnapshot[] buffers;
+    // Index of the middle buffer plus the DIRTY flag when it holds an unread snapshot
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    // Writer-owned
+    private final ValueSnapshot working;
+    private int backIndex = 0;
+    private long version;
+    // Highest slot written so far + 1; publishing only copies this much
+    private int activeCount;
+
+    // Reader-owned
+    private int frontIndex = 2;
+
+    public SnapshotExchange(int channelCount) {
+        buffers = new ValueSnapshot[] {
+                new ValueSnapshot(channelCount),
+                new ValueSnapshot(channelCount),
+                new ValueSnapshot(channelCount)
+        };
+        working = new ValueSnapshot(channelCount);
+    }
+
+    public int getChannelCount() {
+        return working.getChannelCount();
+    }
+
+    // Writer side: update the working values, then publish() them as one snapshot
+    public void setValue(int channel, double rawValue, long timestamp) {
+        working.rawValues[channel] = rawValue;
+        working.timestamps[channel] = timestamp;
+        if (channel >= activeCount) activeCount = channel + 1;
+    }
+
+    // Writer side: forgets every value, e.g. because slots were reassigned to other sources
+    public void reset(long generation) {
+        Arrays.fill(working.rawValues, 0, activeCount, Double.NaN);
+        Arrays.fill(working.timestamps, 0, activeCount, 0);
+        working.generation = generation;
+    }
+
+    public void publish() {
+        working.version = ++version;
+        working.publishNanos = System.nanoTime();
+        // activeCount never shrinks, so every slot ever written is carried into each buffer
+        buffers[backIndex].copyFrom(working, activeCount);
+        backIndex = middle.getAndSet(backIndex | DIRTY) & INDEX_MASK;
+    }
+
+    // Reader side: returns the newest published snapshot. The returned instance stays valid
+    // and unchanged until the next call to acquire() from the same thread.
+    public ValueSnapshot acquire() {
+        if ((middle.get() & DIRTY) != 0) {
+            frontIndex = middle.getAndSet(frontIndex) & INDEX_MASK;
+        }
+        return buffers[frontIndex];
+    }
+}
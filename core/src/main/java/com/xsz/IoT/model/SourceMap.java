@@ -0,0 +1,102 @@
+package com.xsz.IoT.model;
+
+import java.util.Arrays;
+
+/**
+ * Immutable open-addressing map from a {@link ChannelAddress} key to a dense source slot.
+ * Built on the main thread whenever the configuration changes and handed to the acquisition
+ * thread as a whole, so lookups there are a lock-free, allocation-free O(1) probe.
+ */
+public final class SourceMap {
+    private static final int EMPTY = -1;
+
+    private final int[] keys;
+    private final int[] slots;
+    private final int mask;
+    private final int size;
+    private final long generation;
+
+    private SourceMap(int[] keys, int[] slots, int size, long generation) {
+        this.keys = keys;
+        this.slots = slots;
+        this.mask = keys.length - 1;
+        this.size = size;
+        this.generation = generation;
+    }
+
+    // Number of distinct sources; slots are 0 .. size() - 1
+    public int size() {
+        return size;
+    }
+
+    // Changes every time the slot assignment is rebuilt
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int slotOf(int boardId, int channel) {
+        return slotOf(ChannelAddress.key(boardId, channel));
+    }
+
+    public int slotOf(int key) {
+        int index = mix(key) & mask;
+        while (true) {
+            int candidate = keys[index];
+            if (candidate == key) return slots[index];
+            if (candidate == EMPTY) return -1;
+            index = (index + 1) & mask;
+        }
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public static class Builder {
+        private final long generation;
+        private int[] keys = new int[16];
+        private int[] slots = new int[16];
+        private int size;
+
+        public Builder(long generation) {
+            this.generation = generation;
+            Arrays.fill(keys, EMPTY);
+        }
+
+        // Returns the slot for the address, assigning the next free one the first time it is seen,
+        // or -1 for an address that cannot exist
+        public int add(int boardId, int channel) {
+            if (!ChannelAddress.isValid(boardId, channel)) return -1;
+            int key = ChannelAddress.key(boardId, channel);
+            int index = mix(key) & (keys.length - 1);
+            while (keys[index] != EMPTY) {
+                if (keys[index] == key) return slots[index];
+                index = (index + 1) & (keys.length - 1);
+            }
+            keys[index] = key;
+            slots[index] = size;
+            if (++size * 2 > keys.length) grow();
+            return size - 1;
+        }
+
+        public SourceMap build() {
+            return new SourceMap(keys.clone(), slots.clone(), size, generation);
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldSlots = slots;
+            keys = new int[oldKeys.length * 2];
+            slots = new int[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int index = mix(oldKeys[i]) & (keys.length - 1);
+                while (keys[index] != EMPTY) index = (index + 1) & (keys.length - 1);
+                keys[index] = oldKeys[i];
+                slots[index] = oldSlots[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.xsz.IoT.model;
+
+import java.util.Arrays;
+
+// One consistent view of every channel, as published by the acquisition thread.
+// Instances are owned by a SnapshotExchange and are only ever touched by one thread at a time.
+public final class ValueSnapshot {
+    private final int channelCount;
+    final double[] rawValues;
+    final long[] timestamps;
+    long version;
+    long generation;
+    long publishNanos;
+
+    ValueSnapshot(int channelCount) {
+        this.channelCount = channelCount;
+        this.rawValues = new double[channelCount];
+        this.timestamps = new long[channelCount];
+        Arrays.fill(rawValues, Double.NaN);
+    }
+
+    public int getChannelCount() { return channelCount; }
+
+    // NaN until the channel has received its first sample
+    public double getRawValue(int channel) { return rawValues[channel]; }
+
+    public long getTimestamp(int channel) { return timestamps[channel]; }
+
+    // Incremented by every publish; equal versions mean identical contents
+    public long getVersion() { return version; }
+
+    // Identifies the slot assignment (SourceMap) the values were written for
+    public long getGeneration() { return generation; }
+
+    // System.nanoTime() when the snapshot was published
+    public long getPublishNanos() { return publishNanos; }
+
+    void copyFrom(ValueSnapshot source, int count) {
+        System.arraycopy(source.rawValues, 0, rawValues, 0, count);
+        System.arraycopy(source.timestamps, 0, timestamps, 0, count);
+        version = source.version;
+        generation = source.generation;
+        publishNanos = source.publishNanos;
+    }
+}
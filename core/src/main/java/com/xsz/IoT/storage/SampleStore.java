@@ -0,0 +1,229 @@
+package com.xsz.IoT.storage;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Append-only on-disk time series of raw channel samples, keyed by source (see ChannelAddress.key).
+ * Samples go into fixed-size memory-mapped {@link Segment} files, so an append is a few stores into
+ * the page cache and survives a process crash as soon as it returns; {@link #flush()} also makes
+ * it survive a power cut. Each segment carries its own time index and the file names carry each
+ * segment's first timestamp, so opening the store only lists the directory and recovers the tail
+ * of the newest file.
+ *
+ * One thread appends; any thread may scan concurrently.
+ */
+public final class SampleStore implements Closeable {
+    public static final int DEFAULT_SEGMENT_RECORDS = 1 << 18;  // 4 MB per segment
+    public static final long DEFAULT_RETENTION_MILLIS = 2 * 60 * 60 * 1000L;
+    // Sample rate the default segment cap is sized for, over all sources
+    public static final int DEFAULT_SAMPLES_PER_SECOND = 10_000;
+    // Enough segments to hold the retention at that rate (about 1.1 GB), so retention, not the
+    // cap, decides what is dropped
+    public static final int DEFAULT_MAX_SEGMENTS =
+            maxSegmentsFor(DEFAULT_RETENTION_MILLIS, DEFAULT_SAMPLES_PER_SECOND, DEFAULT_SEGMENT_RECORDS);
+
+    private static final String SUFFIX = ".seg";
+
+    public interface SampleVisitor {
+        // Return false to stop the scan
+        boolean onSample(long timestamp, int sourceKey, float value);
+    }
+
+    private final File directory;
+    private final int segmentRecords;
+    private final long retentionMillis;
+    private final int maxSegments;
+
+    // Oldest first; replaced as a whole so readers can scan without locking
+    private volatile Segment[] segments;
+    private Segment tail;
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public SampleStore(File directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_RECORDS, DEFAULT_RETENTION_MILLIS, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public SampleStore(File directory, int segmentRecords, long retentionMillis, int maxSegments) throws IOException {
+        if (segmentRecords <= 0 || segmentRecords > Segment.MAX_RECORDS) {
+            throw new IllegalArgumentException("segmentRecords must be 1.." + Segment.MAX_RECORDS);
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.retentionMillis = retentionMillis;
+        this.maxSegments = Math.max(1, maxSegments);
+
+        List<Segment> found = new ArrayList<>();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Segment segment = parseName(file);
+                if (segment != null) found.add(segment);
+            }
+        }
+        found.sort((a, b) -> Long.compare(a.sequence, b.sequence));
+
+        // Only the newest segment is opened now, to recover its tail and keep appending to it
+        while (!found.isEmpty()) {
+            Segment newest = found.get(found.size() - 1);
+            if (newest.open()) {
+                tail = newest;
+                lastTimestamp = newest.lastTimestamp();
+                break;
+            }
+            found.remove(found.size() - 1);
+            newest.file.delete();
+        }
+        segments = found.toArray(new Segment[0]);
+    }
+
+    // Segments needed to keep retentionMillis of samples arriving at samplesPerSecond, plus the
+    // one being written
+    public static int maxSegmentsFor(long retentionMillis, int samplesPerSecond, int segmentRecords) {
+        long records = retentionMillis * samplesPerSecond / 1000;
+        return (int) Math.min(Integer.MAX_VALUE, (records + segmentRecords - 1) / segmentRecords + 1);
+    }
+
+    public void append(long timestamp, int sourceKey, float value) throws IOException {
+        // Scans rely on ascending timestamps; a clock stepping back is held at the last time seen
+        if (timestamp < lastTimestamp) timestamp = lastTimestamp;
+        if (tail == null || tail.isFull()) rotate(timestamp);
+        tail.append(timestamp, sourceKey, value);
+        lastTimestamp = timestamp;
+    }
+
+    // Makes everything appended so far durable
+    public void flush() {
+        if (tail != null) tail.force();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    // Visits the samples with fromTimestamp <= timestamp < toTimestamp, oldest first
+    public void scan(long fromTimestamp, long toTimestamp, SampleVisitor visitor) throws IOException {
+        Segment[] snapshot = segments;
+        for (int s = firstSegment(snapshot, fromTimestamp); s < snapshot.length; s++) {
+            Segment segment = snapshot[s];
+            if (segment.firstTimestamp >= toTimestamp) return;
+            if (!segment.open()) continue;
+
+            int count = segment.count();
+            for (int i = segment.lowerBound(fromTimestamp); i < count; i++) {
+                long timestamp = segment.timestamp(i);
+                if (timestamp >= toTimestamp) return;
+                if (!visitor.onSample(timestamp, segment.sourceKey(i), segment.value(i))) return;
+            }
+        }
+    }
+
+    // Visits the samples with timestamp >= fromTimestamp, newest first
+    public void scanBackward(long fromTimestamp, SampleVisitor visitor) throws IOException {
+        Segment[] snapshot = segments;
+        int first = firstSegment(snapshot, fromTimestamp);
+        for (int s = snapshot.length - 1; s >= first; s--) {
+            Segment segment = snapshot[s];
+            if (!segment.open()) continue;
+
+            int end = segment.lowerBound(fromTimestamp);
+            for (int i = segment.count() - 1; i >= end; i--) {
+                if (!visitor.onSample(segment.timestamp(i), segment.sourceKey(i), segment.value(i))) return;
+            }
+        }
+    }
+
+    // Visits a sample of every step of stepMillis from fromTimestamp up to toTimestamp, oldest
+    // first: each step seeks to its start through the segments' time index and visits records
+    // until the visitor returns false or the step ends, so the records in between are never read
+    public void scanSteps(long fromTimestamp, long toTimestamp, long stepMillis, SampleVisitor visitor)
+            throws IOException {
+        Segment[] snapshot = segments;
+        int s = firstSegment(snapshot, fromTimestamp);
+        for (long stepStart = fromTimestamp; stepStart < toTimestamp; stepStart += stepMillis) {
+            long stepEnd = Math.min(toTimestamp, stepStart + stepMillis);
+            while (s + 1 < snapshot.length && snapshot[s + 1].firstTimestamp <= stepStart) s++;
+            boolean stepDone = false;
+            for (int t = s; t < snapshot.length && !stepDone; t++) {
+                Segment segment = snapshot[t];
+                if (segment.firstTimestamp >= stepEnd) break;
+                if (!segment.open()) continue;
+
+                int count = segment.count();
+                for (int i = segment.lowerBound(stepStart); i < count; i++) {
+                    long timestamp = segment.timestamp(i);
+                    if (timestamp >= stepEnd || !visitor.onSample(timestamp, segment.sourceKey(i), segment.value(i))) {
+                        stepDone = true;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    // Last segment starting before the timestamp; earlier ones only hold older samples
+    private static int firstSegment(Segment[] snapshot, long timestamp) {
+        int first = 0;
+        for (int s = snapshot.length - 1; s > 0; s--) {
+            if (snapshot[s].firstTimestamp < timestamp) {
+                first = s;
+                break;
+            }
+        }
+        return first;
+    }
+
+    private void rotate(long timestamp) throws IOException {
+        if (tail != null) tail.force();
+
+        long sequence = tail != null ? tail.sequence + 1 : 0;
+        File file = new File(directory, String.format(Locale.US, "%016x-%016x%s", sequence, timestamp, SUFFIX));
+        tail = Segment.create(file, sequence, timestamp, segmentRecords);
+
+        Segment[] current = segments;
+        // Drop segments that are over the count limit or whose newest sample is out of retention
+        long cutoff = timestamp - retentionMillis;
+        int expired = Math.max(0, current.length + 1 - maxSegments);
+        while (expired < current.length) {
+            long nextStart = expired + 1 < current.length ? current[expired + 1].firstTimestamp : timestamp;
+            if (nextStart >= cutoff) break;
+            expired++;
+        }
+        Segment[] next = Arrays.copyOfRange(current, expired, current.length + 1);
+        next[next.length - 1] = tail;
+        segments = next;
+        for (int i = 0; i < expired; i++) {
+            current[i].file.delete();
+        }
+    }
+
+    private static Segment parseName(File file) {
+        String name = file.getName();
+        int dash = name.indexOf('-');
+        if (!name.endsWith(SUFFIX) || dash != 16 || name.length() != 33 + SUFFIX.length()) return null;
+        try {
+            long sequence = Long.parseUnsignedLong(name.substring(0, 16), 16);
+            long firstTimestamp = Long.parseUnsignedLong(name.substring(17, 33), 16);
+            return Segment.existing(file, sequence, firstTimestamp);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.xsz.IoT.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * One fixed-size, memory-mapped segment file of a {@link SampleStore}. Little-endian layout:
+ *
+ * <pre>
+ *    0  u32  magic 0x53534731
+ *    4  u32  version
+ *    8  u32  record capacity
+ *   12  u32  committed record count
+ *   16  i64  timestamp of the first record (ms)
+ *   64  i64  time index: timestamp of every INDEX_STRIDE-th record
+ * 4096       records, 16 bytes each:
+ *             0  i64  timestamp (ms)
+ *             8  u32  checksum (8 bits) | source key (24 bits)
+ *            12  f32  raw value
+ * </pre>
+ *
+ * The file is preallocated, so unwritten records are zero and never pass the checksum. One
+ * writer thread appends; readers on other threads only look at records below the volatile count.
+ */
+final class Segment {
+    static final int MAGIC = 0x53534731;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 4096;
+    static final int RECORD_SIZE = 16;
+    static final int INDEX_STRIDE = 1024;
+
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_COUNT = 12;
+    private static final int OFFSET_FIRST_TIMESTAMP = 16;
+    private static final int OFFSET_INDEX = 64;
+
+    static final int MAX_RECORDS = (HEADER_SIZE - OFFSET_INDEX) / Long.BYTES * INDEX_STRIDE;
+
+    final File file;
+    final long sequence;
+    final long firstTimestamp;
+
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private volatile int count;
+
+    private Segment(File file, long sequence, long firstTimestamp) {
+        this.file = file;
+        this.sequence = sequence;
+        this.firstTimestamp = firstTimestamp;
+    }
+
+    static Segment create(File file, long sequence, long firstTimestamp, int capacity) throws IOException {
+        Segment segment = new Segment(file, sequence, firstTimestamp);
+        segment.map(HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        segment.capacity = capacity;
+        MappedByteBuffer buffer = segment.buffer;
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(OFFSET_CAPACITY, capacity);
+        buffer.putInt(OFFSET_COUNT, 0);
+        buffer.putLong(OFFSET_FIRST_TIMESTAMP, firstTimestamp);
+        return segment;
+    }
+
+    // Segment known only by name; opened on first access so a restart never touches old files
+    static Segment existing(File file, long sequence, long firstTimestamp) {
+        return new Segment(file, sequence, firstTimestamp);
+    }
+
+    // Maps the file and recovers its tail. Returns false when the file is not a usable segment.
+    synchronized boolean open() throws IOException {
+        if (buffer != null) return true;
+
+        long length = file.length();
+        if (length < HEADER_SIZE) return false;
+        map(length);
+        MappedByteBuffer buffer = this.buffer;
+        int capacity = buffer.getInt(OFFSET_CAPACITY);
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || capacity <= 0 || capacity > MAX_RECORDS
+                || length != HEADER_SIZE + (long) capacity * RECORD_SIZE) {
+            this.buffer = null;
+            return false;
+        }
+        this.capacity = capacity;
+
+        // The committed count may be ahead of the records (lost pages after a power cut) or
+        // behind them (process died between a record and its count); settle on the valid run
+        int recovered = Math.max(0, Math.min(buffer.getInt(OFFSET_COUNT), capacity));
+        while (recovered > 0 && !isValid(recovered - 1)) {
+            recovered--;
+        }
+        while (recovered < capacity && isValid(recovered)
+                && (recovered == 0 || timestamp(recovered) >= timestamp(recovered - 1))) {
+            recovered++;
+        }
+        if (recovered != buffer.getInt(OFFSET_COUNT)) {
+            buffer.putInt(OFFSET_COUNT, recovered);
+        }
+        count = recovered;
+        return true;
+    }
+
+    private void map(long length) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(length);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    int count() {
+        return count;
+    }
+
+    // Writer thread only; the segment must be open and not full
+    void append(long timestamp, int sourceKey, float value) {
+        int index = count;
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        int valueBits = Float.floatToRawIntBits(value);
+        buffer.putLong(offset, timestamp);
+        buffer.putFloat(offset + 12, value);
+        buffer.putInt(offset + 8, checksum(timestamp, sourceKey, valueBits) << 24 | sourceKey);
+        if ((index & (INDEX_STRIDE - 1)) == 0) {
+            buffer.putLong(OFFSET_INDEX + index / INDEX_STRIDE * Long.BYTES, timestamp);
+        }
+        buffer.putInt(OFFSET_COUNT, index + 1);
+        count = index + 1;
+    }
+
+    void force() {
+        if (buffer != null) buffer.force();
+    }
+
+    long timestamp(int index) {
+        return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE);
+    }
+
+    int sourceKey(int index) {
+        return buffer.getInt(HEADER_SIZE + index * RECORD_SIZE + 8) & 0xFFFFFF;
+    }
+
+    float value(int index) {
+        return buffer.getFloat(HEADER_SIZE + index * RECORD_SIZE + 12);
+    }
+
+    long lastTimestamp() {
+        int n = count;
+        return n > 0 ? timestamp(n - 1) : firstTimestamp;
+    }
+
+    // Index of the first record with timestamp >= the given one, or count() if there is none
+    int lowerBound(long timestamp) {
+        int n = count;
+        // The time index lives in the header page, so only one 16 KB block of records is searched
+        int low = 0;
+        int high = (n + INDEX_STRIDE - 1) / INDEX_STRIDE;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getLong(OFFSET_INDEX + mid * Long.BYTES) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = Math.min(n, low * INDEX_STRIDE);
+        low = Math.max(0, (low - 1) * INDEX_STRIDE);
+        high = end;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamp(mid) < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private boolean isValid(int index) {
+        int offset = HEADER_SIZE + index * RECORD_SIZE;
+        long timestamp = buffer.getLong(offset);
+        int tagged = buffer.getInt(offset + 8);
+        int valueBits = buffer.getInt(offset + 12);
+        return tagged >>> 24 == checksum(timestamp, tagged & 0xFFFFFF, valueBits);
+    }
+
+    // 8-bit record checksum, never 0 so zero-filled space is never mistaken for a record
+    static int checksum(long timestamp, int sourceKey, int valueBits) {
+        long h = timestamp * 0x9E3779B97F4A7C15L ^ (sourceKey * 0xC2B2AE3D27D4EB4FL) ^ valueBits;
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        int sum = (int) (h >>> 56);
+        return sum == 0 ? 1 : sum;
+    }
+}
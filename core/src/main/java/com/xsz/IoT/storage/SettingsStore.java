@@ -0,0 +1,178 @@
+package com.xsz.IoT.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration kept as one small file per channel, so saving an edited gauge rewrites that
+ * gauge's file only. Changes are recorded as pending entries and written together by a
+ * background thread once the debounce delay has passed; repeated edits of the same channel
+ * within that window cost a single write. Every file is replaced atomically (write to a
+ * temporary file, sync, rename), so a crash leaves either the old or the new version.
+ *
+ * Any thread may call put(), remove(), flushAsync() and flush().
+ */
+public final class SettingsStore {
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 500;
+
+    private static final String PREFIX = "channel-";
+    private static final String SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final long debounceMillis;
+    private final ScheduledExecutorService writer;
+
+    // Latest unsaved content per channel, null meaning the channel was removed
+    private final Map<Integer, String> pending = new HashMap<>();
+    private boolean flushScheduled;
+    private volatile IOException lastError;
+
+    public SettingsStore(File directory) {
+        this(directory, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public SettingsStore(File directory, long debounceMillis) {
+        this.directory = directory;
+        this.debounceMillis = debounceMillis;
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "settings-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean exists() {
+        return directory.isDirectory() && !readChannels().isEmpty();
+    }
+
+    public void put(int channel, String content) {
+        schedule(channel, content);
+    }
+
+    public void remove(int channel) {
+        schedule(channel, null);
+    }
+
+    private synchronized void schedule(int channel, String content) {
+        pending.put(channel, content);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            writer.schedule(this::writePending, debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Starts writing everything pending now without waiting for it, e.g. when the app goes to the
+    // background; safe on the main thread
+    public void flushAsync() {
+        writer.execute(this::writePending);
+    }
+
+    // Writes everything pending now and waits for it, e.g. before the process may be killed
+    public void flush() {
+        try {
+            writer.submit(this::writePending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            lastError = new IOException(e.getCause());
+        }
+    }
+
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    // Reads every saved channel, ordered by channel number
+    public List<String> loadAll() throws IOException {
+        List<String> contents = new ArrayList<>();
+        for (int channel : readChannels()) {
+            contents.add(read(fileFor(channel)));
+        }
+        return contents;
+    }
+
+    private List<Integer> readChannels() {
+        List<Integer> channels = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) return channels;
+        for (String name : names) {
+            if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) continue;
+            try {
+                channels.add(Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        channels.sort(null);
+        return channels;
+    }
+
+    // Writer thread only
+    private void writePending() {
+        Map<Integer, String> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) return;
+            batch = new HashMap<>(pending);
+            pending.clear();
+        }
+
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            lastError = new IOException("Cannot create " + directory);
+            return;
+        }
+        for (Map.Entry<Integer, String> entry : batch.entrySet()) {
+            File file = fileFor(entry.getKey());
+            try {
+                if (entry.getValue() == null) {
+                    if (file.exists() && !file.delete()) throw new IOException("Cannot delete " + file);
+                } else {
+                    writeAtomically(file, entry.getValue());
+                }
+            } catch (IOException e) {
+                lastError = e;
+            }
+        }
+    }
+
+    private File fileFor(int channel) {
+        return new File(directory, PREFIX + channel + SUFFIX);
+    }
+
+    private static void writeAtomically(File file, String content) throws IOException {
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+            out.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Cannot replace " + file);
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
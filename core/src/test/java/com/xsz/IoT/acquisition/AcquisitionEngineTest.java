@@ -0,0 +1,83 @@
+package com.xsz.IoT.acquisition;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class AcquisitionEngineTest {
+    private AcquisitionEngine engine;
+
+    @After
+    public void tearDown() {
+        if (engine != null) engine.stop();
+    }
+
+    @Test
+    public void receivesFramesOverUdp() throws Exception {
+        assertFramesReceived(AcquisitionEngine.Transport.UDP);
+    }
+
+    @Test
+    public void receivesFramesOverTcp() throws Exception {
+        assertFramesReceived(AcquisitionEngine.Transport.TCP);
+    }
+
+    @Test
+    public void rejectsMalformedDatagram() throws Exception {
+        CountDownLatch received = new CountDownLatch(1);
+        engine = new AcquisitionEngine(AcquisitionEngine.Transport.UDP, 0, frame -> received.countDown());
+        engine.start();
+
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), engine.getLocalPort()));
+            channel.write(ByteBuffer.wrap(new byte[40]));
+        }
+
+        long deadline = System.currentTimeMillis() + 2000;
+        while (engine.getFramesRejected() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, engine.getFramesRejected());
+        assertEquals(1, received.getCount());
+    }
+
+    private void assertFramesReceived(AcquisitionEngine.Transport transport) throws Exception {
+        int frameCount = 50;
+        CountDownLatch received = new CountDownLatch(frameCount);
+        float[] lastValues = new float[8];
+        long[] lastTimestamp = new long[1];
+
+        engine = new AcquisitionEngine(transport, 0, frame -> {
+            assertEquals(7, frame.boardId);
+            for (int channel = 0; channel < frame.channelCount; channel++) {
+                lastValues[channel] = frame.latest(channel);
+            }
+            lastTimestamp[0] = frame.timestampMicros;
+            received.countDown();
+        });
+        engine.start();
+
+        SampleFrame frame = new SampleFrame();
+        try (LoopbackSender sender = new LoopbackSender(transport, engine.getLocalPort())) {
+            for (int i = 0; i < frameCount; i++) {
+                frame.set(7, i, 1000 + i, i, 1.5f, 2.5f, 3.5f, 4.0f, 12.0f, 16.0f, 20.0f);
+                sender.send(frame);
+                if (transport == AcquisitionEngine.Transport.UDP) Thread.sleep(1);
+            }
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(frameCount, engine.getFramesReceived());
+        assertEquals(1000 + frameCount - 1, lastTimestamp[0]);
+        assertEquals(frameCount - 1, lastValues[0], 0.0);
+        assertEquals(20.0, lastValues[7], 0.0);
+    }
+}
@@ -0,0 +1,185 @@
+package com.xsz.IoT.acquisition;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrameCodecTest {
+    private final Random random = new Random(0x5A17);
+
+    @Test
+    public void roundTripsRandomFrames() {
+        ByteBuffer buffer = newBuffer(FrameCodec.MAX_FRAME_SIZE);
+        SampleFrame decoded = new SampleFrame();
+
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            SampleFrame frame = randomFrame();
+            buffer.clear();
+            FrameCodec.encode(buffer, frame);
+            buffer.flip();
+
+            int frameSize = FrameCodec.frameSize(frame.channelCount, frame.samplesPerChannel);
+            assertEquals(frameSize, buffer.remaining());
+            assertEquals(frameSize, FrameCodec.decode(buffer, decoded));
+            assertFalse(buffer.hasRemaining());
+            assertFrameEquals(frame, decoded);
+        }
+    }
+
+    @Test
+    public void decodesStreamSplitAtEveryBoundary() {
+        SampleFrame first = randomFrame(64);
+        SampleFrame second = randomFrame(64);
+        ByteBuffer encoded = newBuffer(2 * FrameCodec.MAX_FRAME_SIZE);
+        FrameCodec.encode(encoded, first);
+        FrameCodec.encode(encoded, second);
+        encoded.flip();
+        int total = encoded.remaining();
+
+        ByteBuffer stream = newBuffer(total);
+        SampleFrame decoded = new SampleFrame();
+        for (int split = 0; split <= total; split++) {
+            stream.clear();
+            int decodedFrames = 0;
+            int fed = 0;
+            // Feed the bytes up to the split point, then the rest, the way socket reads arrive
+            for (int limit : new int[] {split, total}) {
+                ByteBuffer chunk = encoded.duplicate();
+                chunk.position(fed).limit(limit);
+                stream.put(chunk);
+                fed = limit;
+
+                stream.flip();
+                int consumed;
+                while ((consumed = FrameCodec.decode(stream, decoded)) > 0) {
+                    assertFrameEquals(decodedFrames == 0 ? first : second, decoded);
+                    decodedFrames++;
+                }
+                assertEquals(FrameCodec.NEED_MORE_DATA, consumed);
+                stream.compact();
+            }
+            assertEquals(2, decodedFrames);
+        }
+    }
+
+    @Test
+    public void rejectsOrWaitsOnFuzzedInputWithoutThrowing() {
+        ByteBuffer buffer = newBuffer(FrameCodec.MAX_FRAME_SIZE);
+        SampleFrame decoded = new SampleFrame();
+
+        for (int iteration = 0; iteration < 20000; iteration++) {
+            buffer.clear();
+            if (iteration % 2 == 0) {
+                // Pure noise, sometimes with a valid magic and version to reach the size checks
+                int length = random.nextInt(FrameCodec.HEADER_SIZE * 4);
+                for (int i = 0; i < length; i++) buffer.put((byte) random.nextInt());
+                if (length >= 3 && random.nextBoolean()) {
+                    buffer.putShort(0, FrameCodec.MAGIC);
+                    buffer.put(2, FrameCodec.VERSION);
+                }
+            } else {
+                // A valid frame with a few corrupted bytes and a random truncation
+                FrameCodec.encode(buffer, randomFrame());
+                int length = buffer.position();
+                for (int flips = random.nextInt(4); flips >= 0; flips--) {
+                    int index = random.nextInt(Math.min(length, FrameCodec.HEADER_SIZE));
+                    buffer.put(index, (byte) random.nextInt());
+                }
+                buffer.position(random.nextInt(length + 1));
+            }
+            buffer.flip();
+
+            int result = FrameCodec.decode(buffer, decoded);
+            if (result > 0) {
+                assertEquals(result, buffer.position());
+                assertTrue(result <= buffer.limit());
+            } else {
+                assertTrue(result == FrameCodec.NEED_MORE_DATA || result == FrameCodec.MALFORMED);
+                assertEquals(0, buffer.position());
+            }
+        }
+    }
+
+    @Test
+    public void rejectsOversizedHeader() {
+        ByteBuffer buffer = newBuffer(FrameCodec.HEADER_SIZE);
+        buffer.putShort(FrameCodec.MAGIC).put(FrameCodec.VERSION).put((byte) 0);
+        buffer.putShort((short) 1).putShort(FrameCodec.MAX_CHANNELS).putShort((short) 1000);
+        buffer.position(FrameCodec.HEADER_SIZE).flip();
+
+        assertEquals(FrameCodec.MALFORMED, FrameCodec.decode(buffer, new SampleFrame()));
+    }
+
+    @Test
+    public void decodeDoesNotAllocate() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        SampleFrame frame = randomFrame();
+        ByteBuffer buffer = newBuffer(FrameCodec.MAX_FRAME_SIZE);
+        FrameCodec.encode(buffer, frame);
+        buffer.flip();
+        SampleFrame decoded = new SampleFrame();
+
+        // Warm up so that the measurement does not include class loading or JIT activity
+        for (int i = 0; i < 20000; i++) {
+            buffer.position(0);
+            FrameCodec.decode(buffer, decoded);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100000; i++) {
+            buffer.position(0);
+            FrameCodec.decode(buffer, decoded);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        // A single allocation per decode would already be well over a megabyte here
+        assertTrue("decode allocated " + allocated + " bytes", allocated < 64 * 1024);
+    }
+
+    private SampleFrame randomFrame() {
+        return randomFrame(FrameCodec.MAX_FRAME_SAMPLES);
+    }
+
+    private SampleFrame randomFrame(int maxSamples) {
+        SampleFrame frame = new SampleFrame();
+        frame.boardId = random.nextInt(0x10000);
+        frame.channelCount = 1 + random.nextInt(16);
+        frame.samplesPerChannel = 1 + random.nextInt(Math.max(1, maxSamples / frame.channelCount));
+        frame.sequence = random.nextInt() & 0xFFFFFFFFL;
+        frame.timestampMicros = random.nextLong();
+        frame.sampleIntervalMicros = random.nextInt(10000);
+        int sampleCount = frame.channelCount * frame.samplesPerChannel;
+        for (int i = 0; i < sampleCount; i++) {
+            int kind = random.nextInt(100);
+            frame.samples[i] = kind == 0 ? Float.NaN : kind == 1 ? Float.NEGATIVE_INFINITY : random.nextFloat() * 40 - 10;
+        }
+        return frame;
+    }
+
+    private static void assertFrameEquals(SampleFrame expected, SampleFrame actual) {
+        assertEquals(expected.boardId, actual.boardId);
+        assertEquals(expected.sequence, actual.sequence);
+        assertEquals(expected.timestampMicros, actual.timestampMicros);
+        assertEquals(expected.sampleIntervalMicros, actual.sampleIntervalMicros);
+        assertEquals(expected.channelCount, actual.channelCount);
+        assertEquals(expected.samplesPerChannel, actual.samplesPerChannel);
+        for (int i = 0; i < expected.channelCount * expected.samplesPerChannel; i++) {
+            assertEquals(Float.floatToRawIntBits(expected.samples[i]), Float.floatToRawIntBits(actual.samples[i]));
+        }
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,133 @@
+package com.xsz.IoT.acquisition;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class LoadSimulatorTest {
+
+    @Test
+    public void sameSeedProducesSameFrames() {
+        List<float[]> first = collect(7, 20_000);
+        List<float[]> second = collect(7, 20_000);
+        List<float[]> other = collect(8, 20_000);
+
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertArrayEquals(first.get(i), second.get(i), 0f);
+        }
+        assertFalse(Arrays.equals(first.get(0), other.get(0)));
+    }
+
+    @Test
+    public void framesFollowSimulatedClockAndRanges() {
+        LoadSimulator simulator = new LoadSimulator(1, 8, 10_000, 1, frame -> {});
+        simulator.setChannelRange(5, 4f, 20f);
+        SampleFrame frame = new SampleFrame();
+        int samples = simulator.getSamplesPerFrame();
+        assertEquals(10, samples);
+
+        simulator.fillFrame(frame, 0, 3 * samples, samples);
+        assertEquals(3, frame.sequence);
+        assertEquals(3000, frame.timestampMicros);
+        assertEquals(100, frame.sampleIntervalMicros);
+        assertEquals(8, frame.channelCount);
+        for (int s = 0; s < samples; s++) {
+            assertTrue(frame.sample(0, s) >= 0f && frame.sample(0, s) <= 10f);
+            assertTrue(frame.sample(4, s) >= 4f && frame.sample(4, s) <= 20f);
+        }
+    }
+
+    @Test
+    public void stopsAfterMaxSamples() throws Exception {
+        long[] received = new long[2];
+        LoadSimulator simulator = new LoadSimulator(2, 4, 50_000, 3, frame -> {
+            received[frame.boardId] += frame.samplesPerChannel;
+        });
+        simulator.setPaced(false);
+        simulator.setMaxSamples(12_345);
+        simulator.start();
+        waitUntilStopped(simulator);
+
+        assertEquals(12_345, simulator.getSamplesGenerated());
+        assertEquals(12_345, received[0]);
+        assertEquals(12_345, received[1]);
+    }
+
+    @Test
+    public void pacesToSampleRate() throws Exception {
+        LoadSimulator simulator = new LoadSimulator(1, 8, 20_000, 5, frame -> {});
+        simulator.start();
+        Thread.sleep(500);
+        simulator.stop();
+
+        // Loose bounds: the check is that generation is paced, not free-running
+        double rate = simulator.getAchievedRateHz();
+        assertTrue("rate " + rate, rate > 10_000 && rate < 25_000);
+    }
+
+    @Test
+    public void feedsAcquisitionEngineOverLoopback() throws Exception {
+        long[] received = new long[1];
+        AcquisitionEngine engine = new AcquisitionEngine(AcquisitionEngine.Transport.TCP, 0, frame -> {
+            synchronized (received) {
+                received[0] += frame.samplesPerChannel;
+            }
+        });
+        engine.start();
+        try (LoopbackSender sender = new LoopbackSender(AcquisitionEngine.Transport.TCP, engine.getLocalPort())) {
+            LoadSimulator simulator = new LoadSimulator(1, 8, 10_000, 9, frame -> {
+                try {
+                    sender.send(frame);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            simulator.setPaced(false);
+            simulator.setMaxSamples(5_000);
+            simulator.start();
+            waitUntilStopped(simulator);
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while (System.currentTimeMillis() < deadline) {
+                synchronized (received) {
+                    if (received[0] == 5_000) break;
+                }
+                Thread.sleep(5);
+            }
+        } finally {
+            engine.stop();
+        }
+        synchronized (received) {
+            assertEquals(5_000, received[0]);
+        }
+    }
+
+    private static List<float[]> collect(long seed, int sampleRateHz) {
+        List<float[]> frames = new ArrayList<>();
+        LoadSimulator simulator = new LoadSimulator(2, 8, sampleRateHz, seed, frame ->
+                frames.add(Arrays.copyOf(frame.samples, frame.channelCount * frame.samplesPerChannel)));
+        simulator.setPaced(false);
+        simulator.setMaxSamples(1000);
+        simulator.start();
+        try {
+            waitUntilStopped(simulator);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        return frames;
+    }
+
+    private static void waitUntilStopped(LoadSimulator simulator) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (simulator.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(2);
+        }
+        simulator.stop();
+        assertFalse(simulator.isRunning());
+    }
+}
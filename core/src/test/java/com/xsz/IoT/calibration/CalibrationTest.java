@@ -0,0 +1,74 @@
+package com.xsz.IoT.calibration;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CalibrationTest {
+
+    @Test
+    public void tableMatchesPiecewiseInterpolation() {
+        // Unevenly spaced points, like a thermocouple table
+        double[] raw = {-1.0, 0.0, 0.05, 0.2, 1.7, 4.1, 4.15, 10.0};
+        double[] mapped = {-25, 0, 1.2, 5, 40, 100, 101, 250};
+        CompiledCalibration table = Calibration.table(raw, mapped).compile();
+
+        Random random = new Random(3);
+        for (int n = 0; n < 100_000; n++) {
+            double value = -3 + random.nextDouble() * 16;
+            assertEquals(reference(raw, mapped, value), table.map(value), 1e-9);
+        }
+        for (int i = 0; i < raw.length; i++) {
+            assertEquals(mapped[i], table.map(raw[i]), 1e-9);
+        }
+    }
+
+    @Test
+    public void polynomialUsesAllCoefficients() {
+        CompiledCalibration polynomial = Calibration.polynomial(1, -2, 0.5, 0.25).compile();
+        for (double x = -5; x <= 5; x += 0.25) {
+            assertEquals(1 - 2 * x + 0.5 * x * x + 0.25 * x * x * x, polynomial.map(x), 1e-12);
+        }
+
+        // Degree one or less compiles down to the linear form
+        assertTrue(Calibration.polynomial(3, 2, 0, 0).compile() instanceof CompiledCalibration.Linear);
+        assertTrue(Calibration.table(new double[]{4, 20}, new double[]{0, 100}).compile()
+                instanceof CompiledCalibration.Linear);
+    }
+
+    @Test
+    public void batchMatchesScalar() {
+        CompiledCalibration[] calibrations = {
+                CompiledCalibration.linear(4, 20, 0, 100),
+                Calibration.polynomial(0.1, 1, -0.01).compile(),
+                Calibration.table(new double[]{0, 1, 3, 9}, new double[]{0, 10, 12, 50}).compile()
+        };
+        double[] in = new double[257];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = i * 0.05 - 1;
+        }
+        double[] out = new double[in.length];
+        for (CompiledCalibration calibration : calibrations) {
+            calibration.map(in, out);
+            for (int i = 0; i < in.length; i++) {
+                assertEquals(calibration.map(in[i]), out[i], 0);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsortedTable() {
+        Calibration.table(new double[]{0, 2, 1}, new double[]{0, 1, 2});
+    }
+
+    private static double reference(double[] raw, double[] mapped, double value) {
+        int segment = 0;
+        while (segment < raw.length - 2 && value >= raw[segment + 1]) {
+            segment++;
+        }
+        double t = (value - raw[segment]) / (raw[segment + 1] - raw[segment]);
+        return mapped[segment] + t * (mapped[segment + 1] - mapped[segment]);
+    }
+}
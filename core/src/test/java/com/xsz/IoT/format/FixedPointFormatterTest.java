@@ -0,0 +1,59 @@
+package com.xsz.IoT.format;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FixedPointFormatterTest {
+
+    @Test
+    public void matchesStringFormat() {
+        Random random = new Random(1);
+        FormattedText text = new FormattedText(4);
+        StringBuilder builder = new StringBuilder();
+        for (Locale locale : new Locale[] {Locale.US, Locale.GERMANY}) {
+            for (int decimals = 0; decimals <= 4; decimals++) {
+                FixedPointFormatter formatter = new FixedPointFormatter(decimals, locale);
+                for (int i = 0; i < 2000; i++) {
+                    double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(8));
+                    String expected = String.format(locale, "%." + decimals + "f", value);
+                    if (expected.matches("-0[.,]?0*")) expected = expected.substring(1);
+
+                    assertEquals(expected, formatter.format(value, text.clear()).toString());
+                    builder.setLength(0);
+                    assertEquals(expected, formatter.format(value, builder).toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void roundsDecimalTiesUp() {
+        FixedPointFormatter formatter = new FixedPointFormatter(2, Locale.US);
+        assertEquals("1.01", formatter.format(1.005));
+        assertEquals("0.13", formatter.format(0.125));
+        assertEquals("-2.68", formatter.format(-2.675));
+        assertEquals("0.00", formatter.format(-0.001));
+        assertEquals("10.00", formatter.format(9.999));
+    }
+
+    @Test
+    public void appendsAndHandlesSpecialValues() {
+        FixedPointFormatter formatter = new FixedPointFormatter(1, Locale.US);
+        FormattedText text = new FormattedText(1);
+        formatter.format(12.34, text.append('[')).append(" mA]");
+        assertEquals("[12.3 mA]", text.toString());
+
+        assertEquals("NaN", formatter.format(Double.NaN));
+        assertEquals("Infinity", formatter.format(Double.POSITIVE_INFINITY));
+        assertEquals(String.format(Locale.US, "%.1f", 3e20), formatter.format(3e20));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTooManyDecimals() {
+        new FixedPointFormatter(FixedPointFormatter.MAX_DECIMALS + 1);
+    }
+}
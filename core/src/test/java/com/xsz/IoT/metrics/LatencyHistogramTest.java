@@ -0,0 +1,63 @@
+package com.xsz.IoT.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithinOneEighth() {
+        long[] values = {0, 1, 7, 8, 15, 16, 1000, 123_456, 16_666_667L, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(bucket < LatencyHistogram.BUCKET_COUNT);
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertTrue("upper bound of " + value, upper >= value);
+            assertTrue("error for " + value, upper - value <= value / 8);
+            if (bucket > 0) assertTrue(LatencyHistogram.upperBound(bucket - 1) < value);
+        }
+    }
+
+    @Test
+    public void percentilesOfRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+        histogram.snapshot(snapshot);
+
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50_500, snapshot.getMeanNanos());
+        assertEquals(50_000, snapshot.getPercentileNanos(0.5), 50_000 / 8);
+        assertEquals(99_000, snapshot.getPercentileNanos(0.99), 99_000 / 8);
+        assertEquals(100_000, snapshot.getMaxNanos(), 100_000 / 8);
+    }
+
+    @Test
+    public void subtractLeavesTheInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LatencyHistogram.Snapshot earlier = new LatencyHistogram.Snapshot();
+        LatencyHistogram.Snapshot later = new LatencyHistogram.Snapshot();
+        histogram.record(1_000_000);
+        histogram.snapshot(earlier);
+        histogram.record(10);
+        histogram.record(20);
+        histogram.snapshot(later);
+
+        later.subtract(earlier);
+        assertEquals(2, later.getCount());
+        assertEquals(15, later.getMeanNanos());
+        assertTrue(later.getMaxNanos() < 1000);
+    }
+
+    @Test
+    public void emptySnapshotReadsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram.Snapshot();
+        new LatencyHistogram().snapshot(snapshot);
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getPercentileNanos(0.99));
+        assertEquals(0, snapshot.getMaxNanos());
+    }
+}
@@ -0,0 +1,77 @@
+package com.xsz.IoT.metrics;
+
+import com.xsz.IoT.acquisition.SampleFrame;
+import com.xsz.IoT.model.SampleIngest;
+import com.xsz.IoT.model.SourceMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PerfMetricsTest {
+
+    @Test
+    public void ingestCountsSamplesPerSource() {
+        PerfMetrics metrics = new PerfMetrics(16);
+        SampleIngest ingest = new SampleIngest(16);
+        ingest.setMetrics(metrics);
+        SourceMap.Builder sources = new SourceMap.Builder(1);
+        int first = sources.add(0, 1);
+        int second = sources.add(0, 2);
+        ingest.setSourceMap(sources.build());
+
+        SampleFrame frame = new SampleFrame();
+        frame.set(0, 0, 0, 1f, 2f, 3f);
+        ingest.onFrame(frame);
+        ingest.onFrame(frame);
+
+        assertEquals(2, metrics.getSamples(first));
+        assertEquals(2, metrics.getSamples(second));
+        // Channel 3 is not mapped to a slot
+        assertEquals(4, metrics.getTotalSamples());
+
+        // Reassigned: the slots count their new sources from zero, the total carries on
+        SourceMap.Builder swapped = new SourceMap.Builder(2);
+        int third = swapped.add(0, 3);
+        int firstAgain = swapped.add(0, 1);
+        ingest.setSourceMap(swapped.build());
+        ingest.onFrame(frame);
+
+        assertEquals(1, metrics.getSamples(third));
+        assertEquals(1, metrics.getSamples(firstAgain));
+        assertEquals(6, metrics.getTotalSamples());
+    }
+
+    @Test
+    public void reportShowsTheLastInterval() {
+        PerfMetrics metrics = new PerfMetrics(4);
+        long[] gcCount = {3};
+        metrics.setGcCounter(() -> gcCount[0]);
+        MetricsReport report = new MetricsReport(metrics);
+
+        metrics.addSamples(0, 500);
+        metrics.recordMapping(1_000_000);
+        assertFalse(report.update(0));
+
+        metrics.addSamples(0, 1000);
+        metrics.addSamples(1, 1000);
+        for (int i = 0; i < 60; i++) {
+            metrics.frameRendered();
+            metrics.recordIngestToDraw(4_000_000);
+            metrics.recordMapping(20_000);
+        }
+        metrics.framesSkipped(2);
+        gcCount[0] = 4;
+        assertTrue(report.update(2_000_000_000L));
+
+        assertEquals(2.0, report.getSeconds(), 1e-9);
+        assertEquals(1000, report.getSamplesPerSecond(), 1e-9);
+        assertEquals(30, report.getFramesPerSecond(), 1e-9);
+        assertEquals(2, report.getFramesSkipped());
+        assertEquals(1, report.getGcCount());
+        assertEquals(60, report.getMappingTime().getCount());
+        assertEquals(20_000, report.getMappingTime().getMaxNanos(), 20_000 / 8);
+        assertEquals(4_000_000, report.getIngestToDraw().getPercentileNanos(0.5), 4_000_000 / 8);
+        assertEquals(0, report.getDecodeTime().getCount());
+    }
+}
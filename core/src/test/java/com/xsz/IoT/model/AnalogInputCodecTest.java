@@ -0,0 +1,77 @@
+package com.xsz.IoT.model;
+
+import com.google.gson.Gson;
+import com.xsz.IoT.calibration.Calibration;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AnalogInputCodecTest {
+
+    @Test
+    public void roundTripsEverySetting() throws Exception {
+        AnalogInput input = new AnalogInput(13, 1, 5);
+        input.setName("Flow \"main\" line");
+        input.setUnit("m\u00b3/h");
+        input.setGaugeType(AnalogInput.GaugeType.TREND_CHART);
+        input.setMinMappedValue(-5);
+        input.setMaxMappedValue(250.5);
+        input.setDescription("Not configured");
+        input.setEnabled(false);
+        input.setCalibration(Calibration.table(new double[]{4, 8, 20}, new double[]{0, 10, 100}));
+
+        AnalogInput copy = AnalogInputCodec.fromJson(AnalogInputCodec.toJson(input));
+        assertSameSettings(input, copy);
+        assertArrayEquals(new double[]{4, 8, 20}, copy.getCalibration().getRawPoints(), 0);
+        assertArrayEquals(new double[]{0, 10, 100}, copy.getCalibration().getMappedPoints(), 0);
+    }
+
+    @Test
+    public void readsSettingsWrittenByReflectiveGson() throws Exception {
+        AnalogInput first = new AnalogInput(1);
+        first.setName("Tank level");
+        first.setUnit("%");
+        AnalogInput second = new AnalogInput(10);
+        second.setCalibration(Calibration.polynomial(0.5, 2, 0.1));
+        second.setGaugeType(AnalogInput.GaugeType.BAR_CHART);
+
+        String legacy = new Gson().toJson(Arrays.asList(first, second));
+        List<AnalogInput> inputs = AnalogInputCodec.listFromJson(legacy);
+        assertEquals(2, inputs.size());
+        assertSameSettings(first, inputs.get(0));
+        assertSameSettings(second, inputs.get(1));
+        assertArrayEquals(new double[]{0.5, 2, 0.1}, inputs.get(1).getCalibration().getCoefficients(), 0);
+    }
+
+    @Test
+    public void keepsDefaultsForMissingOrUnknownFields() throws Exception {
+        AnalogInput input = AnalogInputCodec.fromJson(
+                "{\"inputNumber\":3,\"gaugeType\":\"DIAL\",\"rawValue\":4.2,\"extra\":{\"a\":[1,2]},\"name\":null}");
+        assertEquals(3, input.getInputNumber());
+        assertEquals(AnalogInput.GaugeType.ROUND_GAUGE, input.getGaugeType());
+        assertEquals(AnalogInput.InputType.VOLTAGE_0_10V, input.getInputType());
+        assertNotNull(input.getName());
+        assertNull(input.getCalibration());
+    }
+
+    private static void assertSameSettings(AnalogInput expected, AnalogInput actual) {
+        assertEquals(expected.getInputNumber(), actual.getInputNumber());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getUnit(), actual.getUnit());
+        assertEquals(expected.getInputType(), actual.getInputType());
+        assertEquals(expected.getGaugeType(), actual.getGaugeType());
+        assertEquals(expected.getMinRange(), actual.getMinRange(), 0);
+        assertEquals(expected.getMaxRange(), actual.getMaxRange(), 0);
+        assertEquals(expected.getMinMappedValue(), actual.getMinMappedValue(), 0);
+        assertEquals(expected.getMaxMappedValue(), actual.getMaxMappedValue(), 0);
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.isEnabled(), actual.isEnabled());
+        assertEquals(expected.getBoardId(), actual.getBoardId());
+        assertEquals(expected.getDataSource(), actual.getDataSource());
+        assertEquals(expected.getCalibration() == null, actual.getCalibration() == null);
+    }
+}
@@ -0,0 +1,170 @@
+package com.xsz.IoT.model;
+
+import com.xsz.IoT.calibration.Calibration;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChannelBankTest {
+
+    @Test
+    public void mapsLikeTheUnattachedInput() {
+        AnalogInput reference = new AnalogInput(5);
+        reference.setMinMappedValue(-40);
+        reference.setMaxMappedValue(160);
+
+        AnalogInput attached = new AnalogInput(5);
+        attached.setMinMappedValue(-40);
+        attached.setMaxMappedValue(160);
+        ChannelBank bank = new ChannelBank(1);
+        attached.attach(bank, 0);
+
+        for (double raw = 0; raw <= 24; raw += 0.25) {
+            reference.setRawValue(raw);
+            attached.setRawValue(raw);
+            assertEquals(reference.getMappedValue(), attached.getMappedValue(), 1e-9);
+            assertEquals(raw, bank.getRawValue(0), 0.0);
+        }
+    }
+
+    @Test
+    public void unattachedInputFollowsMappingChanges() {
+        AnalogInput input = new AnalogInput(1);
+        input.setRawValue(5);
+        assertEquals(50.0, input.getMappedValue(), 1e-9);
+
+        input.setMaxMappedValue(200);
+        input.setRawValue(5);
+        assertEquals(100.0, input.getMappedValue(), 1e-9);
+
+        input.setCalibration(Calibration.polynomial(1, 2));
+        input.setRawValue(5);
+        assertEquals(11.0, input.getMappedValue(), 1e-9);
+
+        input.setCalibration(null);
+        input.setMinRange(4);
+        input.setMaxRange(20);
+        input.setRawValue(12);
+        assertEquals(100.0, input.getMappedValue(), 1e-9);
+    }
+
+    @Test
+    public void mapsRollupBucketsToTheChannelsUnits() {
+        AnalogInput falling = new AnalogInput(1);
+        falling.setMinMappedValue(100);
+        falling.setMaxMappedValue(0);
+        ChannelBank bank = new ChannelBank(1);
+        falling.attach(bank, 0);
+
+        RollupWindow window = new RollupWindow();
+        window.reset(1000, 1);
+        window.set(0, 0, 2, 8, 4, 10);
+        bank.mapRollup(0, window);
+        assertEquals(20f, window.getMin(0), 1e-4f);
+        assertEquals(80f, window.getMax(0), 1e-4f);
+        assertEquals(60f, window.getAverage(0), 1e-4f);
+        assertEquals(10, window.getCount(0));
+    }
+
+    @Test
+    public void appliesSnapshotToEnabledChannelsBySource() {
+        ChannelBank bank = new ChannelBank(3);
+        AnalogInput voltage = new AnalogInput(1);
+        AnalogInput current = new AnalogInput(2);
+        current.setDataSource(6);
+        current.setMinRange(4);
+        current.setMaxRange(20);
+        AnalogInput disabled = new AnalogInput(3);
+        disabled.setEnabled(false);
+        voltage.attach(bank, 0);
+        current.attach(bank, 1);
+        disabled.attach(bank, 2);
+        bank.setSource(0, 0);
+        bank.setSource(1, 5);
+        bank.setSource(2, 2);
+
+        SnapshotExchange exchange = new SnapshotExchange(8);
+        exchange.setValue(0, 5.0, 100);
+        exchange.setValue(2, 7.0, 100);
+        exchange.setValue(5, 2.0, 100);
+        exchange.publish();
+
+        assertEquals(2, bank.applySnapshot(exchange.acquire()));
+        assertEquals(50.0, voltage.getMappedValue(), 1e-9);
+        assertEquals(ChannelBank.QUALITY_VALID, bank.getQuality(0));
+        // 2 mA on a 4-20 mA loop is a broken wire, not a reading
+        assertEquals(-12.5, current.getMappedValue(), 1e-9);
+        assertEquals(ChannelBank.QUALITY_VALID | ChannelBank.QUALITY_OUT_OF_RANGE, bank.getQuality(1));
+        assertEquals(0, bank.getQuality(2));
+        assertEquals(100, bank.getTimestamp(1));
+    }
+
+    @Test
+    public void appendsHistoryOnlyForNewSamples() {
+        ChannelBank bank = new ChannelBank(1);
+        bank.setHistory(new ChannelHistory(1, 16));
+        new AnalogInput(1).attach(bank, 0);
+        bank.setSource(0, 0);
+
+        SnapshotExchange exchange = new SnapshotExchange(1);
+        exchange.setValue(0, 5.0, 100);
+        exchange.publish();
+        ValueSnapshot snapshot = exchange.acquire();
+        // The board went quiet: the same snapshot is applied on the next frames
+        bank.applySnapshot(snapshot);
+        bank.applySnapshot(snapshot);
+        assertEquals(1, bank.getHistory().size(0));
+
+        exchange.setValue(0, 5.0, 116);
+        exchange.publish();
+        bank.applySnapshot(exchange.acquire());
+        assertEquals(2, bank.getHistory().size(0));
+    }
+
+    @Test
+    public void tracksChannelsWithNewSamples() {
+        ChannelBank bank = new ChannelBank(130);
+        assertEquals(-1, bank.nextChangedChannel(0));
+
+        bank.setRawValue(3, 1.0, 100);
+        bank.setRawValue(64, 0.0, 100);
+        bank.setRawValue(129, 2.0, 100);
+        assertEquals(3, bank.nextChangedChannel(0));
+        assertEquals(64, bank.nextChangedChannel(4));
+        assertEquals(129, bank.nextChangedChannel(65));
+        assertEquals(-1, bank.nextChangedChannel(130));
+
+        bank.clearChanged();
+        // Same sample again is not a change; a new sample with the same value is
+        bank.setRawValue(3, 1.0, 100);
+        assertEquals(-1, bank.nextChangedChannel(0));
+        bank.setRawValue(64, 0.0, 116);
+        assertEquals(64, bank.nextChangedChannel(0));
+        assertTrue(bank.isChanged(64));
+        assertFalse(bank.isChanged(3));
+    }
+
+    @Test
+    public void mapsThroughCalibrationTable() {
+        AnalogInput input = new AnalogInput(1);
+        input.setCalibration(Calibration.table(new double[]{0, 2, 10}, new double[]{0, 50, 100}));
+        ChannelBank bank = new ChannelBank(1);
+        input.attach(bank, 0);
+
+        input.setRawValue(1);
+        assertEquals(25, input.getMappedValue(), 1e-9);
+        input.setRawValue(6);
+        assertEquals(75, input.getMappedValue(), 1e-9);
+
+        double[] raw = {0, 1, 2, 6, 10};
+        double[] mapped = new double[raw.length];
+        bank.mapRawValues(0, raw, 0, mapped, 0, raw.length);
+        assertArrayEquals(new double[]{0, 25, 50, 75, 100}, mapped, 1e-9);
+
+        // Back to the linear range mapping
+        input.setCalibration(null);
+        input.attach(bank, 0);
+        assertEquals(60, bank.mapRawValue(0, 6), 1e-9);
+    }
+}
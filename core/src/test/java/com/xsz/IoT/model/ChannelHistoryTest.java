@@ -0,0 +1,72 @@
+package com.xsz.IoT.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChannelHistoryTest {
+
+    @Test
+    public void wrapsAndSplitsWindowsAcrossTheRing() {
+        ChannelHistory history = new ChannelHistory(2, 5);
+        assertEquals(8, history.getCapacity());
+
+        for (int i = 0; i < 13; i++) {
+            history.append(1, 1000 + i, i);
+        }
+        assertEquals(0, history.size(0));
+        assertEquals(8, history.size(1));
+
+        HistoryWindow window = history.latest(1, 100, new HistoryWindow());
+        assertEquals(8, window.size());
+        assertTrue(window.secondLength > 0);
+        for (int i = 0; i < 8; i++) {
+            assertEquals(5 + i, window.getValue(i), 0f);
+            assertEquals(1005 + i, window.getTimestamp(i));
+        }
+
+        history.sinceSequence(1, 11, window);
+        assertEquals(2, window.size());
+        assertEquals(11f, window.getValue(0), 0f);
+
+        // Sequences that already fell out of the ring are clipped
+        history.sinceSequence(1, 0, window);
+        assertEquals(8, window.size());
+        assertEquals(5f, window.getValue(0), 0f);
+    }
+
+    @Test
+    public void findsSamplesByTime() {
+        ChannelHistory history = new ChannelHistory(1, 16);
+        for (int i = 0; i < 40; i++) {
+            history.append(0, i * 10, i);
+        }
+
+        HistoryWindow window = history.sinceTime(0, 355, 100, new HistoryWindow());
+        assertEquals(4, window.size());
+        assertEquals(36f, window.getValue(0), 0f);
+
+        history.sinceTime(0, 0, 3, window);
+        assertEquals(3, window.size());
+        assertEquals(37f, window.getValue(0), 0f);
+
+        history.sinceTime(0, 1000, 100, window);
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void keepsNewestSamplesWhenResized() {
+        ChannelHistory history = new ChannelHistory(2, 8);
+        for (int i = 0; i < 8; i++) {
+            history.append(0, i, i);
+            history.append(1, i, -i);
+        }
+
+        ChannelHistory resized = new ChannelHistory(1, 4, history);
+        assertEquals(1, resized.getChannelCount());
+        HistoryWindow window = resized.latest(0, 4, new HistoryWindow());
+        assertEquals(4, window.size());
+        assertEquals(4f, window.getValue(0), 0f);
+        assertEquals(7f, window.getValue(3), 0f);
+    }
+}
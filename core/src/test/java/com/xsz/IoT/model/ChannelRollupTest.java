@@ -0,0 +1,184 @@
+package com.xsz.IoT.model;
+
+import com.xsz.IoT.acquisition.SampleFrame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ChannelRollupTest {
+
+    @Test
+    public void aggregatesEveryLevel() {
+        ChannelRollup rollup = new ChannelRollup();
+        int key = ChannelAddress.key(0, 2);
+        // Two minutes of 10 Hz samples: a ramp 0..1199 with one spike
+        for (int i = 0; i < 1200; i++) {
+            rollup.add(key, 60_000 + i * 100L, i == 700 ? 5000f : i);
+        }
+
+        RollupWindow window = rollup.query(key, 60_000, 180_000, 120, new RollupWindow());
+        assertEquals(1000, window.getResolution());
+        assertEquals(120, window.size());
+        assertEquals(60_000, window.getStart(0));
+        assertEquals(10, window.getCount(0));
+        assertEquals(0f, window.getMin(0), 0f);
+        assertEquals(9f, window.getMax(0), 0f);
+        assertEquals(4.5f, window.getAverage(0), 1e-6f);
+        assertEquals(5000f, window.getMax(70), 0f);
+
+        rollup.queryLevel(key, 1, 0, Long.MAX_VALUE, window);
+        assertEquals(2, window.size());
+        assertEquals(600, window.getCount(1));
+        assertEquals(5000f, window.getMax(1), 0f);
+        assertEquals(600f, window.getMin(1), 0f);
+
+        rollup.queryLevel(key, 2, 0, Long.MAX_VALUE, window);
+        assertEquals(1, window.size());
+        assertEquals(1200, window.getCount(0));
+
+        rollup.queryLevel(ChannelAddress.key(0, 1), 0, 0, Long.MAX_VALUE, window);
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void wrapsAndClipsToTheRequestedRange() {
+        ChannelRollup rollup = new ChannelRollup(new long[]{10}, new int[]{8}, Long.MAX_VALUE);
+        for (int t = 0; t < 200; t += 5) {
+            rollup.add(0, t, t);
+        }
+        RollupWindow window = rollup.queryLevel(0, 0, 0, Long.MAX_VALUE, new RollupWindow());
+        assertEquals(8, window.size());
+        assertEquals(120, window.getStart(0));
+        assertEquals(190, window.getStart(7));
+
+        // Buckets overlapping [155, 175)
+        rollup.queryLevel(0, 0, 155, 175, window);
+        assertEquals(3, window.size());
+        assertEquals(150, window.getStart(0));
+        assertEquals(170, window.getStart(2));
+    }
+
+    @Test
+    public void picksTheCoarsestLevelThatFitsThePixels() {
+        ChannelRollup rollup = new ChannelRollup();
+        long hour = 60 * 60 * 1000L;
+        // Ten minutes on 600 px: one second per pixel
+        assertEquals(0, rollup.selectLevel(0, 10 * 60 * 1000L, 600));
+        // A week on 1000 px: about ten minutes per pixel
+        assertEquals(1, rollup.selectLevel(0, 7 * 24 * hour, 1000));
+        // Two hours on 2000 px fits seconds, but that level only holds one hour
+        assertEquals(1, rollup.selectLevel(0, 2 * hour, 2000));
+        // A month on 300 px
+        assertEquals(2, rollup.selectLevel(0, 30 * 24 * hour, 300));
+    }
+
+    @Test
+    public void staysWithinTheBudgetForManySources() {
+        ChannelRollup rollup = new ChannelRollup();
+        SourceMap.Builder sources = new SourceMap.Builder(1);
+        int perBoard = ChannelAddress.CHANNELS_PER_BOARD;
+        for (int i = 0; i < 500; i++) {
+            sources.add(i / perBoard, i % perBoard + 1);
+        }
+        SourceMap map = sources.build();
+        assertEquals(500, map.size());
+        rollup.configure(map);
+        assertEquals(0, rollup.getAllocatedBytes());
+        assertTrue(rollup.getCapacity(0) < ChannelRollup.DEFAULT_CAPACITIES[0]);
+
+        for (int i = 0; i < 500; i++) {
+            rollup.add(ChannelAddress.key(i / perBoard, i % perBoard + 1), 1000, 1f);
+        }
+        assertTrue(rollup.getAllocatedBytes() > 0);
+        assertTrue(rollup.getAllocatedBytes() <= ChannelRollup.DEFAULT_BUDGET_BYTES);
+
+        // Sources the new map drops lose their buckets; a small map gets the full capacities
+        SourceMap.Builder one = new SourceMap.Builder(2);
+        one.add(0, 1);
+        rollup.configure(one.build());
+        assertEquals(ChannelRollup.DEFAULT_CAPACITIES[0], rollup.getCapacity(0));
+        RollupWindow window = rollup.queryLevel(ChannelAddress.key(0, 1), 0, 0, Long.MAX_VALUE, new RollupWindow());
+        assertEquals(1, window.size());
+        rollup.queryLevel(ChannelAddress.key(0, 2), 0, 0, Long.MAX_VALUE, window);
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    public void shrinksAllocatedSourcesWhenTheMapGrows() {
+        ChannelRollup rollup = new ChannelRollup();
+        int perBoard = ChannelAddress.CHANNELS_PER_BOARD;
+        SourceMap.Builder few = new SourceMap.Builder(1);
+        for (int i = 0; i < 64; i++) {
+            few.add(i / perBoard, i % perBoard + 1);
+        }
+        rollup.configure(few.build());
+        // Ten minutes of 1 Hz samples on every source, at the capacities of a small dashboard
+        for (int i = 0; i < 64; i++) {
+            for (int t = 0; t < 600; t++) {
+                rollup.add(ChannelAddress.key(i / perBoard, i % perBoard + 1), t * 1000L, t);
+            }
+        }
+
+        SourceMap.Builder many = new SourceMap.Builder(2);
+        for (int i = 0; i < 1000; i++) {
+            many.add(i / perBoard, i % perBoard + 1);
+        }
+        rollup.configure(many.build());
+        assertTrue(rollup.getAllocatedBytes() <= ChannelRollup.DEFAULT_BUDGET_BYTES);
+        for (int i = 0; i < 1000; i++) {
+            rollup.add(ChannelAddress.key(i / perBoard, i % perBoard + 1), 600_000, 1f);
+        }
+        assertTrue(rollup.getAllocatedBytes() <= ChannelRollup.DEFAULT_BUDGET_BYTES);
+
+        // The shrunk rings keep the newest seconds
+        int capacity = rollup.getCapacity(0);
+        assertTrue(capacity < 600);
+        RollupWindow window = rollup.queryLevel(ChannelAddress.key(0, 1), 0, 0, Long.MAX_VALUE, new RollupWindow());
+        assertEquals(capacity, window.size());
+        assertEquals(600_000, window.getStart(capacity - 1));
+        assertEquals(599_000, window.getStart(capacity - 2));
+        assertEquals(599f, window.getMax(capacity - 2), 0f);
+        assertEquals(1, window.getCount(0));
+    }
+
+    @Test
+    public void ingestFoldsEverySampleOfAFrame() {
+        ChannelRollup rollup = new ChannelRollup();
+        SampleIngest ingest = new SampleIngest(16);
+        SourceMap.Builder sources = new SourceMap.Builder(1);
+        sources.add(0, 1);
+        SourceMap map = sources.build();
+        rollup.configure(map);
+        ingest.setRollup(rollup);
+        ingest.setSourceMap(map);
+
+        // Two channels of 100 samples at 1 kHz; channel 1 spikes mid-frame and ends at 0
+        SampleFrame frame = new SampleFrame();
+        frame.channelCount = 2;
+        frame.samplesPerChannel = 100;
+        frame.sampleIntervalMicros = 1000;
+        for (int s = 0; s < 100; s++) {
+            frame.samples[s * 2] = s == 50 ? 9.5f : 1f;
+            frame.samples[s * 2 + 1] = 2f;
+        }
+        frame.samples[99 * 2] = 0f;
+        ingest.onFrame(frame);
+
+        RollupWindow window = rollup.queryLevel(ChannelAddress.key(0, 1), 0, 0, Long.MAX_VALUE, new RollupWindow());
+        int count = 0;
+        float max = Float.NEGATIVE_INFINITY;
+        float min = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < window.size(); i++) {
+            count += window.getCount(i);
+            max = Math.max(max, window.getMax(i));
+            min = Math.min(min, window.getMin(i));
+        }
+        assertEquals(100, count);
+        assertEquals(9.5f, max, 0f);
+        assertEquals(0f, min, 0f);
+        // Channel 2 is not mapped to a slot
+        rollup.queryLevel(ChannelAddress.key(0, 2), 0, 0, Long.MAX_VALUE, window);
+        assertEquals(0, window.size());
+    }
+}
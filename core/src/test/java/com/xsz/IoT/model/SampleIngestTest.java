@@ -0,0 +1,73 @@
+package com.xsz.IoT.model;
+
+import com.xsz.IoT.acquisition.SampleFrame;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SampleIngestTest {
+
+    private static SampleIngest newIngest() {
+        SampleIngest ingest = new SampleIngest(16);
+        SourceMap.Builder sources = new SourceMap.Builder(1);
+        sources.add(3, 1);
+        ingest.setSourceMap(sources.build());
+        return ingest;
+    }
+
+    // A 1 kHz frame of 10 samples from board 3, its first sample at the given board time
+    private static SampleFrame frame(long timestampMicros) {
+        SampleFrame frame = new SampleFrame();
+        frame.boardId = 3;
+        frame.timestampMicros = timestampMicros;
+        frame.sampleIntervalMicros = 1000;
+        frame.channelCount = 1;
+        frame.samplesPerChannel = 10;
+        return frame;
+    }
+
+    @Test
+    public void keepsTheBoardsSpacingOnTheHostClock() throws Exception {
+        SampleIngest ingest = newIngest();
+        long before = System.currentTimeMillis();
+        ingest.onFrame(frame(0));
+        long first = ingest.acquire().getTimestamp(0);
+        assertTrue(first >= before && first <= System.currentTimeMillis());
+
+        // The board says 5 s later, whatever the host clock did in between
+        Thread.sleep(20);
+        ingest.onFrame(frame(5_000_000));
+        assertEquals(first + 5000, ingest.acquire().getTimestamp(0));
+    }
+
+    @Test
+    public void remapsABoardWhoseClockStepsBack() {
+        SampleIngest ingest = newIngest();
+        ingest.onFrame(frame(3_600_000_000L));
+        ingest.acquire();
+
+        // Rebooted: its clock starts over, but the samples are still timed now
+        long before = System.currentTimeMillis();
+        ingest.onFrame(frame(0));
+        long timestamp = ingest.acquire().getTimestamp(0);
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+    }
+
+    @Test
+    public void takesHostTimeAsIsWhenMappingIsOff() {
+        SampleIngest ingest = newIngest();
+        ingest.setMapBoardClocks(false);
+        ingest.onFrame(frame(1_700_000_000_000_000L));
+        assertEquals(1_700_000_000_009L, ingest.acquire().getTimestamp(0));
+    }
+
+    @Test
+    public void timesFramesWithoutATimestampOnArrival() {
+        SampleIngest ingest = newIngest();
+        long before = System.currentTimeMillis();
+        ingest.onFrame(frame(SampleFrame.NO_TIMESTAMP));
+        long timestamp = ingest.acquire().getTimestamp(0);
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis());
+    }
+}
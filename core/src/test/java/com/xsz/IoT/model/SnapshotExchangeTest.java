@@ -0,0 +1,73 @@
+package com.xsz.IoT.model;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class SnapshotExchangeTest {
+
+    @Test
+    public void acquireReturnsLatestPublishedSnapshot() {
+        SnapshotExchange exchange = new SnapshotExchange(4);
+        assertEquals(0, exchange.acquire().getVersion());
+        assertTrue(Double.isNaN(exchange.acquire().getRawValue(0)));
+
+        exchange.setValue(0, 1.0, 10);
+        exchange.publish();
+        exchange.setValue(0, 2.0, 20);
+        exchange.setValue(3, 5.0, 20);
+        exchange.publish();
+
+        ValueSnapshot snapshot = exchange.acquire();
+        assertEquals(2, snapshot.getVersion());
+        assertEquals(2.0, snapshot.getRawValue(0), 0.0);
+        assertEquals(5.0, snapshot.getRawValue(3), 0.0);
+        assertEquals(20, snapshot.getTimestamp(0));
+
+        // Nothing new published: the reader keeps the same snapshot
+        assertSame(snapshot, exchange.acquire());
+    }
+
+    @Test
+    public void readerNeverSeesTornSnapshots() throws Exception {
+        int channels = 256;
+        SnapshotExchange exchange = new SnapshotExchange(channels);
+        AtomicBoolean done = new AtomicBoolean();
+
+        // Every publish writes the same value into all channels, so any mix means a torn read
+        Thread writer = new Thread(() -> {
+            for (int round = 1; round <= 200000; round++) {
+                for (int channel = 0; channel < channels; channel++) {
+                    exchange.setValue(channel, round, round);
+                }
+                exchange.publish();
+            }
+            done.set(true);
+        });
+        writer.start();
+
+        long lastVersion = 0;
+        int snapshotsSeen = 0;
+        while (!done.get() || lastVersion < 200000) {
+            ValueSnapshot snapshot = exchange.acquire();
+            long version = snapshot.getVersion();
+            assertTrue(version >= lastVersion);
+            if (version == 0) continue;
+
+            double expected = snapshot.getRawValue(0);
+            assertEquals(version, (long) expected);
+            for (int channel = 1; channel < channels; channel++) {
+                assertEquals(expected, snapshot.getRawValue(channel), 0.0);
+                assertEquals(version, snapshot.getTimestamp(channel));
+            }
+            if (version != lastVersion) snapshotsSeen++;
+            lastVersion = version;
+        }
+        writer.join();
+
+        assertEquals(200000, lastVersion);
+        assertTrue(snapshotsSeen > 1);
+    }
+}
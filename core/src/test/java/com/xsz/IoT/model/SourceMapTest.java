@@ -0,0 +1,43 @@
+package com.xsz.IoT.model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SourceMapTest {
+
+    @Test
+    public void assignsDenseSlotsAcrossManyBoards() {
+        SourceMap.Builder builder = new SourceMap.Builder(3);
+        int boards = 80;
+        for (int board = 0; board < boards; board++) {
+            for (int channel = 1; channel <= ChannelAddress.CHANNELS_PER_BOARD; channel++) {
+                assertEquals(board * ChannelAddress.CHANNELS_PER_BOARD + channel - 1, builder.add(board * 7, channel));
+            }
+        }
+        // Adding an address again returns its existing slot
+        assertEquals(0, builder.add(0, 1));
+        assertEquals(-1, builder.add(0, 0));
+
+        SourceMap map = builder.build();
+        assertEquals(boards * ChannelAddress.CHANNELS_PER_BOARD, map.size());
+        assertEquals(3, map.getGeneration());
+        for (int board = 0; board < boards; board++) {
+            for (int channel = 1; channel <= ChannelAddress.CHANNELS_PER_BOARD; channel++) {
+                assertEquals(board * ChannelAddress.CHANNELS_PER_BOARD + channel - 1, map.slotOf(board * 7, channel));
+            }
+        }
+        assertEquals(-1, map.slotOf(1, 1));
+        assertEquals(-1, map.slotOf(0, 9));
+        assertEquals(-1, map.slotOf(0xFFFF, ChannelAddress.MAX_CHANNEL));
+    }
+
+    @Test
+    public void packsAddressesIntoKeys() {
+        int key = ChannelAddress.key(0xFFFF, ChannelAddress.MAX_CHANNEL);
+        assertEquals(0xFFFF, ChannelAddress.boardOf(key));
+        assertEquals(ChannelAddress.MAX_CHANNEL, ChannelAddress.channelOf(key));
+        assertEquals(AnalogInput.InputType.VOLTAGE_0_10V, ChannelAddress.defaultInputType(4));
+        assertEquals(AnalogInput.InputType.CURRENT_4_20MA, ChannelAddress.defaultInputType(5));
+    }
+}
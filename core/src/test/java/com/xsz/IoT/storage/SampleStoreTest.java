@@ -0,0 +1,160 @@
+package com.xsz.IoT.storage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SampleStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void scansAcrossSegmentsAfterReopen() throws Exception {
+        File directory = folder.newFolder();
+        try (SampleStore store = new SampleStore(directory, 1000, Long.MAX_VALUE, 100)) {
+            for (int i = 0; i < 5500; i++) {
+                store.append(10_000 + i, i % 4, i);
+            }
+            assertEquals(6, store.getSegmentCount());
+        }
+
+        try (SampleStore store = new SampleStore(directory, 1000, Long.MAX_VALUE, 100)) {
+            assertEquals(6, store.getSegmentCount());
+            assertEquals(15_499, store.getLastTimestamp());
+
+            List<Float> values = new ArrayList<>();
+            store.scan(12_345, 14_100, (timestamp, key, value) -> {
+                assertEquals((timestamp - 10_000) % 4, key);
+                return values.add(value);
+            });
+            assertEquals(14_100 - 12_345, values.size());
+            assertEquals(2345f, values.get(0), 0f);
+            assertEquals(4099f, values.get(values.size() - 1), 0f);
+
+            // Appending continues in the recovered tail segment
+            store.append(20_000, 7, -1f);
+            assertEquals(6, store.getSegmentCount());
+
+            List<Float> newest = new ArrayList<>();
+            store.scanBackward(0, (timestamp, key, value) -> newest.add(value) && newest.size() < 3);
+            assertEquals(-1f, newest.get(0), 0f);
+            assertEquals(5499f, newest.get(1), 0f);
+            assertEquals(5498f, newest.get(2), 0f);
+        }
+    }
+
+    @Test
+    public void seeksToEveryStep() throws Exception {
+        File directory = folder.newFolder();
+        try (SampleStore store = new SampleStore(directory, 1000, Long.MAX_VALUE, 100)) {
+            // Four sources every millisecond, with nothing recorded from 2000 to 2999
+            for (int t = 0; t < 5000; t++) {
+                if (t >= 2000 && t < 3000) continue;
+                for (int key = 0; key < 4; key++) {
+                    store.append(t, key, t * 4 + key);
+                }
+            }
+
+            List<Long> timestamps = new ArrayList<>();
+            int[] visited = new int[1];
+            store.scanSteps(1900, 3100, 16, (timestamp, key, value) -> {
+                visited[0]++;
+                if (key != 2) return true;
+                timestamps.add(timestamp);
+                return false;
+            });
+            // Steps from 1900 up to 1996 start in recorded time; the step at 2988 finds 3000
+            assertEquals(Long.valueOf(1900), timestamps.get(0));
+            assertEquals(Long.valueOf(1996), timestamps.get(6));
+            assertEquals(Long.valueOf(3000), timestamps.get(7));
+            assertEquals(Long.valueOf(3084), timestamps.get(timestamps.size() - 1));
+            assertEquals(14, timestamps.size());
+            // Three records per step, not every record of the range
+            assertEquals(3 * timestamps.size(), visited[0]);
+        }
+    }
+
+    @Test
+    public void sizesTheSegmentCapForTheRetention() {
+        // Two hours at 10k samples/s in 4 MB segments, plus the one being written
+        assertEquals(276, SampleStore.maxSegmentsFor(2 * 60 * 60 * 1000L, 10_000, 1 << 18));
+        assertEquals(SampleStore.DEFAULT_MAX_SEGMENTS, SampleStore.maxSegmentsFor(
+                SampleStore.DEFAULT_RETENTION_MILLIS, SampleStore.DEFAULT_SAMPLES_PER_SECOND,
+                SampleStore.DEFAULT_SEGMENT_RECORDS));
+    }
+
+    @Test
+    public void recoversTornTail() throws Exception {
+        File directory = folder.newFolder();
+        try (SampleStore store = new SampleStore(directory, 1000, Long.MAX_VALUE, 100)) {
+            for (int i = 0; i < 300; i++) {
+                store.append(i, 1, i);
+            }
+        }
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+
+        // Corrupt the last record and claim more records than were written
+        try (RandomAccessFile raf = new RandomAccessFile(files[0], "rw")) {
+            raf.seek(Segment.HEADER_SIZE + 299L * Segment.RECORD_SIZE + 12);
+            raf.writeInt(0x12345678);
+            raf.seek(12);
+            raf.writeInt(Integer.reverseBytes(310));
+        }
+
+        try (SampleStore store = new SampleStore(directory, 1000, Long.MAX_VALUE, 100)) {
+            assertEquals(298, store.getLastTimestamp());
+            int[] count = new int[1];
+            store.scan(0, Long.MAX_VALUE, (timestamp, key, value) -> {
+                assertEquals(count[0]++, timestamp);
+                return true;
+            });
+            assertEquals(299, count[0]);
+
+            store.append(299, 1, 299f);
+            assertEquals(299, store.getLastTimestamp());
+        }
+    }
+
+    @Test
+    public void dropsSegmentsOutOfRetention() throws Exception {
+        File directory = folder.newFolder();
+        try (SampleStore store = new SampleStore(directory, 100, 1000, 100)) {
+            for (int i = 0; i < 10_000; i++) {
+                store.append(i, 0, i);
+            }
+            // Segments hold 100 ms each; everything older than 1000 ms before the newest goes
+            assertTrue(store.getSegmentCount() <= 12);
+            assertEquals(store.getSegmentCount(), directory.listFiles().length);
+
+            long[] oldest = {-1};
+            store.scan(0, Long.MAX_VALUE, (timestamp, key, value) -> {
+                oldest[0] = timestamp;
+                return false;
+            });
+            assertTrue(oldest[0] <= 9000 && oldest[0] > 8000);
+        }
+    }
+
+    @Test
+    public void sustainsHighSampleRates() throws Exception {
+        File directory = folder.newFolder();
+        int samples = 1_000_000;
+        long start = System.nanoTime();
+        try (SampleStore store = new SampleStore(directory)) {
+            for (int i = 0; i < samples; i++) {
+                store.append(i / 10, i & 7, i);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // Far above the 10k samples/s target, with plenty of headroom for slow CI machines
+        assertTrue("samples/s " + samples / seconds, samples / seconds > 100_000);
+    }
+}
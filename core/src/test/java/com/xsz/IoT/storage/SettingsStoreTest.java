@@ -0,0 +1,84 @@
+package com.xsz.IoT.storage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class SettingsStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void coalescesEditsIntoOneWritePerChannel() throws Exception {
+        File directory = new File(folder.getRoot(), "settings");
+        SettingsStore store = new SettingsStore(directory, 60_000);
+        for (int channel = 0; channel < 12; channel++) {
+            store.put(channel, "{\"input\":" + channel + "}");
+        }
+        store.flush();
+        assertTrue(store.exists());
+
+        File untouched = new File(directory, "channel-3.json");
+        assertTrue(untouched.setLastModified(1000));
+
+        // Many edits of one channel within the debounce window end up as its last version only
+        for (int i = 0; i < 100; i++) {
+            store.put(7, "{\"edit\":" + i + "}");
+        }
+        assertEquals("{\"input\":7}", store.loadAll().get(7));
+        store.flush();
+
+        assertEquals("{\"edit\":99}", store.loadAll().get(7));
+        assertEquals(1000, untouched.lastModified());
+        assertNull(store.getLastError());
+        for (String name : directory.list()) {
+            assertFalse(name, name.endsWith(".tmp"));
+        }
+    }
+
+    @Test
+    public void removesChannelsAndLoadsInChannelOrder() throws Exception {
+        File directory = new File(folder.getRoot(), "settings");
+        SettingsStore store = new SettingsStore(directory, 0);
+        for (int channel = 0; channel < 11; channel++) {
+            store.put(channel, "c" + channel);
+        }
+        store.remove(10);
+        store.remove(9);
+        store.flush();
+
+        SettingsStore reopened = new SettingsStore(directory);
+        assertEquals(Arrays.asList("c0", "c1", "c2", "c3", "c4", "c5", "c6", "c7", "c8"), reopened.loadAll());
+    }
+
+    @Test
+    public void flushAsyncWritesBeforeTheDebounceDelay() throws Exception {
+        File directory = new File(folder.getRoot(), "settings");
+        SettingsStore store = new SettingsStore(directory, 60_000);
+        store.put(0, "first");
+        store.flushAsync();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!store.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList("first"), store.loadAll());
+        assertNull(store.getLastError());
+    }
+
+    @Test
+    public void writesInTheBackgroundAfterTheDebounceDelay() throws Exception {
+        File directory = new File(folder.getRoot(), "settings");
+        SettingsStore store = new SettingsStore(directory, 20);
+        store.put(0, "first");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!store.exists() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(Arrays.asList("first"), store.loadAll());
+    }
+}
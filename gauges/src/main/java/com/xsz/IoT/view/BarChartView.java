@@ -8,6 +8,9 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
+import com.xsz.IoT.format.FixedPointFormatter;
+import com.xsz.IoT.format.FormattedText;
+
 public class BarChartView extends View {
     private Paint backgroundPaint;
     private Paint progressPaint;
@@ -19,6 +22,12 @@ public class BarChartView extends View {
     private float minValue = 0;
     private float maxValue = 100;
     private String unit = "";
+    // Labels are formatted when their value changes, never while drawing
+    private final FixedPointFormatter valueFormatter = new FixedPointFormatter(1);
+    private final FixedPointFormatter labelFormatter = new FixedPointFormatter(0);
+    private final FormattedText valueText = valueFormatter.format(0, new FormattedText());
+    private String minText = labelFormatter.format(0);
+    private String maxText = labelFormatter.format(100);
 
     private static final int colorBackground = 0xff4d5a66;
     private static final int colorProgress = 0xff727cf5;
@@ -27,6 +36,9 @@ public class BarChartView extends View {
     private static final int colorValue = 0xff0acf97;
 
     private RectF barRect;
+    // Track and range labels, redrawn only on resize or reconfiguration
+    private final StaticLayer staticLayer = new StaticLayer(this::paintStatic);
+    private final RectF progressRect = new RectF();
     private float barWidth, barHeight;
     
     public BarChartView(Context context) {
@@ -80,7 +92,15 @@ public class BarChartView extends View {
         float left = (w - barWidth) / 2f;
         float top = (h - barHeight) / 2f;
         
-        barRect = new RectF(left, top, left + barWidth, top + barHeight);
+        if (barRect == null) barRect = new RectF();
+        barRect.set(left, top, left + barWidth, top + barHeight);
+        staticLayer.setSize(w, h);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        staticLayer.release();
     }
     
     @Override
@@ -88,16 +108,16 @@ public class BarChartView extends View {
         super.onDraw(canvas);
         
         if (barRect == null) return;
+        long drawStart = DrawCost.begin();
         
-        // Draw background bar
-        canvas.drawRoundRect(barRect, 8, 8, backgroundPaint);
+        staticLayer.draw(canvas);
         
         // Calculate progress height
         float progress = (currentValue - minValue) / (maxValue - minValue);
         float progressHeight = barHeight * progress;
         
         // Draw progress bar
-        RectF progressRect = new RectF(
+        progressRect.set(
             barRect.left,
             barRect.bottom - progressHeight,
             barRect.right,
@@ -108,32 +128,46 @@ public class BarChartView extends View {
         // Title removed - already shown in card header
         
         // Draw current value
-        canvas.drawText(String.format("%.1f", currentValue), getWidth() / 2f, barRect.centerY() + 10, valuePaint);
+        canvas.drawText(valueText.getChars(), 0, valueText.length(), getWidth() / 2f, barRect.centerY() + 10, valuePaint);
         
-        // Draw unit
+        // Draw unit, over the progress bar
         if (!unit.isEmpty()) {
             canvas.drawText(unit, getWidth() / 2f, barRect.centerY() + 35, unitPaint);
         }
+        DrawCost.end(DrawCost.BAR_CHART, drawStart);
+    }
+
+    private void paintStatic(Canvas canvas) {
+        // Draw background bar
+        canvas.drawRoundRect(barRect, 8, 8, backgroundPaint);
         
         // Draw min/max values
         //textPaint.setTextSize(14);
-        canvas.drawText(String.format("%.0f", minValue), barRect.left - 30, barRect.bottom + 20, textPaint);
-        canvas.drawText(String.format("%.0f", maxValue), barRect.right + 30, barRect.bottom + 20, textPaint);
+        canvas.drawText(minText, barRect.left - 30, barRect.bottom + 20, textPaint);
+        canvas.drawText(maxText, barRect.right + 30, barRect.bottom + 20, textPaint);
         //textPaint.setTextSize(20);
     }
     
     public void setValue(float value) {
-        this.currentValue = Math.max(minValue, Math.min(maxValue, value));
+        float clamped = Math.max(minValue, Math.min(maxValue, value));
+        if (clamped == currentValue) return;
+        this.currentValue = clamped;
+        valueFormatter.format(clamped, valueText.clear());
         invalidate();
     }
     
     public void setRange(float min, float max) {
+        if (min == minValue && max == maxValue) return;
         this.minValue = min;
         this.maxValue = max;
+        minText = labelFormatter.format(min);
+        maxText = labelFormatter.format(max);
+        staticLayer.invalidate();
         invalidate();
     }
     
     public void setUnit(String unit) {
+        if (unit.equals(this.unit)) return;
         this.unit = unit;
         invalidate();
     }
@@ -0,0 +1,46 @@
+package com.xsz.IoT.view;
+
+import android.util.Log;
+
+/**
+ * Time the gauge views spend in onDraw, averaged per view type and logged every LOG_INTERVAL
+ * draws while enabled. With hardware acceleration this is the cost of recording the frame on
+ * the main thread. Run once with StaticLayer enabled and once disabled to compare.
+ *
+ * Main thread only.
+ */
+public final class DrawCost {
+    public static final int ROUND_GAUGE = 0;
+    public static final int BAR_CHART = 1;
+    public static final int TREND_CHART = 2;
+
+    private static final String TAG = "DrawCost";
+    private static final String[] NAMES = {"RoundGaugeView", "BarChartView", "TrendChartView"};
+    private static final int LOG_INTERVAL = 600;
+
+    private static boolean enabled;
+    private static final long[] totalNanos = new long[NAMES.length];
+    private static final int[] draws = new int[NAMES.length];
+
+    private DrawCost() {}
+
+    public static void setEnabled(boolean enabled) {
+        DrawCost.enabled = enabled;
+    }
+
+    // Start of an onDraw; 0 when measuring is off
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public static void end(int view, long begin) {
+        if (begin == 0) return;
+        totalNanos[view] += System.nanoTime() - begin;
+        if (++draws[view] == LOG_INTERVAL) {
+            Log.d(TAG, NAMES[view] + " onDraw " + totalNanos[view] / LOG_INTERVAL / 1000.0 + " us"
+                    + (StaticLayer.isEnabled() ? " (static layers)" : " (direct)"));
+            totalNanos[view] = 0;
+            draws[view] = 0;
+        }
+    }
+}
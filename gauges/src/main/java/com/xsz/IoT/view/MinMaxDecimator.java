@@ -0,0 +1,97 @@
+package com.xsz.IoT.view;
+
+/**
+ * Reduces a stream of samples to the minimum and maximum of each run of samplesPerColumn, which
+ * is about two points per pixel column when the run matches the chart's pixel density, while
+ * keeping every peak visible. Columns are aligned to the sample sequence, so appending only ever
+ * touches the newest column: the scrolling case costs O(1) per new sample, and the oldest columns
+ * simply fall out of a fixed ring. Never allocates after construction.
+ */
+public final class MinMaxDecimator {
+    private final int maxColumns;
+    private final float[] mins;
+    private final float[] maxs;
+    private final int[] minOffsets;
+    private final int[] maxOffsets;
+
+    private int samplesPerColumn = 1;
+    private long sampleCount;
+
+    public MinMaxDecimator(int maxColumns) {
+        this.maxColumns = maxColumns;
+        mins = new float[maxColumns];
+        maxs = new float[maxColumns];
+        minOffsets = new int[maxColumns];
+        maxOffsets = new int[maxColumns];
+    }
+
+    // Column run length for a window of the given sample count drawn across the given pixels
+    public static int samplesPerColumn(int windowSamples, float pixelWidth) {
+        return Math.max(1, (int) (windowSamples / Math.max(1f, pixelWidth)));
+    }
+
+    public void reset(int samplesPerColumn) {
+        this.samplesPerColumn = Math.max(1, samplesPerColumn);
+        sampleCount = 0;
+    }
+
+    public int getSamplesPerColumn() {
+        return samplesPerColumn;
+    }
+
+    // Samples added since the last reset
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public void add(float value) {
+        long sequence = sampleCount++;
+        long column = sequence / samplesPerColumn;
+        int offset = (int) (sequence - column * samplesPerColumn);
+        int slot = (int) (column % maxColumns);
+        if (offset == 0) {
+            mins[slot] = value;
+            maxs[slot] = value;
+            minOffsets[slot] = 0;
+            maxOffsets[slot] = 0;
+        } else if (value < mins[slot]) {
+            mins[slot] = value;
+            minOffsets[slot] = offset;
+        } else if (value > maxs[slot]) {
+            maxs[slot] = value;
+            maxOffsets[slot] = offset;
+        }
+    }
+
+    public int getColumnCount() {
+        long columns = (sampleCount + samplesPerColumn - 1) / samplesPerColumn;
+        return (int) Math.min(columns, maxColumns);
+    }
+
+    // Points held: two per column, each column's extremes in the order they arrived
+    public int size() {
+        return 2 * getColumnCount();
+    }
+
+    // Sequence number (since reset) of the sample behind the point
+    public long getSequence(int point) {
+        long column = firstColumn() + point / 2;
+        int slot = (int) (column % maxColumns);
+        return column * samplesPerColumn + (isMinPoint(slot, point) ? minOffsets[slot] : maxOffsets[slot]);
+    }
+
+    public float getValue(int point) {
+        int slot = (int) ((firstColumn() + point / 2) % maxColumns);
+        return isMinPoint(slot, point) ? mins[slot] : maxs[slot];
+    }
+
+    private long firstColumn() {
+        long columns = (sampleCount + samplesPerColumn - 1) / samplesPerColumn;
+        return columns - Math.min(columns, maxColumns);
+    }
+
+    private boolean isMinPoint(int slot, int point) {
+        boolean minFirst = minOffsets[slot] <= maxOffsets[slot];
+        return ((point & 1) == 0) == minFirst;
+    }
+}
@@ -8,6 +8,9 @@ import android.graphics.RectF;
 import android.util.AttributeSet;
 import android.view.View;
 
+import com.xsz.IoT.format.FixedPointFormatter;
+import com.xsz.IoT.format.FormattedText;
+
 public class RoundGaugeView extends View {
     private Paint backgroundPaint;
     private Paint progressPaint;
@@ -19,6 +22,12 @@ public class RoundGaugeView extends View {
     private float minValue = 0;
     private float maxValue = 100;
     private String unit = "";
+    // Labels are formatted when their value changes, never while drawing
+    private final FixedPointFormatter valueFormatter = new FixedPointFormatter(1);
+    private final FixedPointFormatter labelFormatter = new FixedPointFormatter(0);
+    private final FormattedText valueText = valueFormatter.format(0, new FormattedText());
+    private String minText = labelFormatter.format(0);
+    private String maxText = labelFormatter.format(100);
 
     private static final int colorBackground = 0xff4d5a66;
     private static final int colorProgress = 0xff727cf5;
@@ -27,6 +36,8 @@ public class RoundGaugeView extends View {
     private static final int colorValue = 0xff0acf97;
 
     private RectF gaugeRect;
+    // Track, unit and range labels, redrawn only on resize or reconfiguration
+    private final StaticLayer staticLayer = new StaticLayer(this::paintStatic);
     private float centerX, centerY, radius;
 
     public RoundGaugeView(Context context) {
@@ -81,12 +92,20 @@ public class RoundGaugeView extends View {
         centerY = h / 2f;
         radius = Math.min(w, h) / 2f - 40;
 
-        gaugeRect = new RectF(
+        if (gaugeRect == null) gaugeRect = new RectF();
+        gaugeRect.set(
                 centerX - radius,
                 centerY - radius,
                 centerX + radius,
                 centerY + radius
         );
+        staticLayer.setSize(w, h);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        staticLayer.release();
     }
 
     @Override
@@ -94,9 +113,9 @@ public class RoundGaugeView extends View {
         super.onDraw(canvas);
 
         if (gaugeRect == null) return;
+        long drawStart = DrawCost.begin();
 
-        // Draw background arc
-        canvas.drawArc(gaugeRect, 135, 270, false, backgroundPaint);
+        staticLayer.draw(canvas);
 
         // Calculate progress angle
         float progress = (currentValue - minValue) / (maxValue - minValue);
@@ -107,7 +126,13 @@ public class RoundGaugeView extends View {
 
 
         // Draw current value
-        canvas.drawText(String.format("%.1f", currentValue), centerX, centerY + 10, valuePaint);
+        canvas.drawText(valueText.getChars(), 0, valueText.length(), centerX, centerY + 10, valuePaint);
+        DrawCost.end(DrawCost.ROUND_GAUGE, drawStart);
+    }
+
+    private void paintStatic(Canvas canvas) {
+        // Draw background arc
+        canvas.drawArc(gaugeRect, 135, 270, false, backgroundPaint);
 
         // Draw unit
         if (!unit.isEmpty()) {
@@ -116,24 +141,33 @@ public class RoundGaugeView extends View {
 
         // Draw min/max values
         //textPaint.setTextSize(16);
-        canvas.drawText(String.format("%.0f", minValue), centerX - radius + 20, centerY + radius + 20, textPaint);
-        canvas.drawText(String.format("%.0f", maxValue), centerX + radius - 20, centerY + radius + 20, textPaint);
+        canvas.drawText(minText, centerX - radius + 20, centerY + radius + 20, textPaint);
+        canvas.drawText(maxText, centerX + radius - 20, centerY + radius + 20, textPaint);
         //textPaint.setTextSize(24);
     }
 
     public void setValue(float value) {
-        this.currentValue = Math.max(minValue, Math.min(maxValue, value));
+        float clamped = Math.max(minValue, Math.min(maxValue, value));
+        if (clamped == currentValue) return;
+        this.currentValue = clamped;
+        valueFormatter.format(clamped, valueText.clear());
         invalidate();
     }
 
     public void setRange(float min, float max) {
+        if (min == minValue && max == maxValue) return;
         this.minValue = min;
         this.maxValue = max;
+        minText = labelFormatter.format(min);
+        maxText = labelFormatter.format(max);
+        staticLayer.invalidate();
         invalidate();
     }
 
     public void setUnit(String unit) {
+        if (unit.equals(this.unit)) return;
         this.unit = unit;
+        staticLayer.invalidate();
         invalidate();
     }
 
@@ -0,0 +1,128 @@
+package com.xsz.IoT.view;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+/**
+ * The parts of a view that only change on resize or when the view is reconfigured (tracks, grid
+ * lines, range labels), painted once and then replayed on every frame. On API 29+ with hardware
+ * acceleration the layer is a RenderNode, whose display list is replayed by the render thread;
+ * otherwise it is a Bitmap, which hardware-accelerated canvases keep as a texture until it changes.
+ *
+ * Use from one thread only, normally the main thread. Call invalidate() whenever something the
+ * painter draws changes.
+ */
+public final class StaticLayer {
+
+    public interface Painter {
+        void paintStatic(Canvas canvas);
+    }
+
+    // Off draws everything directly, e.g. to compare draw costs with and without the layers
+    private static boolean enabled = true;
+
+    private final Painter painter;
+    private int width;
+    private int height;
+
+    private NodeLayer nodeLayer;
+    private boolean nodeValid;
+    private Bitmap bitmap;
+    private Canvas bitmapCanvas;
+    private boolean bitmapValid;
+
+    public StaticLayer(Painter painter) {
+        this.painter = painter;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        StaticLayer.enabled = enabled;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setSize(int width, int height) {
+        if (width == this.width && height == this.height) return;
+        this.width = width;
+        this.height = height;
+        invalidate();
+    }
+
+    public void invalidate() {
+        nodeValid = false;
+        bitmapValid = false;
+    }
+
+    public void draw(Canvas canvas) {
+        if (!enabled || width <= 0 || height <= 0) {
+            painter.paintStatic(canvas);
+            return;
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q && canvas.isHardwareAccelerated()) {
+            if (nodeLayer == null) nodeLayer = new NodeLayer();
+            if (!nodeValid) {
+                nodeLayer.record(painter, width, height);
+                nodeValid = true;
+            }
+            nodeLayer.draw(canvas);
+            return;
+        }
+
+        if (bitmap == null || bitmap.getWidth() != width || bitmap.getHeight() != height) {
+            if (bitmap != null) bitmap.recycle();
+            bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            bitmapCanvas = new Canvas(bitmap);
+            bitmapValid = false;
+        }
+        if (!bitmapValid) {
+            bitmap.eraseColor(0);
+            painter.paintStatic(bitmapCanvas);
+            bitmapValid = true;
+        }
+        canvas.drawBitmap(bitmap, 0, 0, null);
+    }
+
+    // Frees the cached layer, e.g. when the view is detached; it is rebuilt on the next draw
+    public void release() {
+        if (bitmap != null) {
+            bitmap.recycle();
+            bitmap = null;
+            bitmapCanvas = null;
+        }
+        if (nodeLayer != null) {
+            nodeLayer.discard();
+        }
+        invalidate();
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static final class NodeLayer {
+        private final RenderNode node = new RenderNode("StaticLayer");
+
+        void record(Painter painter, int width, int height) {
+            node.setPosition(0, 0, width, height);
+            RecordingCanvas recording = node.beginRecording(width, height);
+            try {
+                painter.paintStatic(recording);
+            } finally {
+                node.endRecording();
+            }
+        }
+
+        void draw(Canvas canvas) {
+            canvas.drawRenderNode(node);
+        }
+
+        void discard() {
+            node.discardDisplayList();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.xsz.IoT.view;
+
+/**
+ * The data behind an oscilloscope-style sweep: a fixed ring of capacity slots, one per horizontal
+ * position, written at a cursor that moves left to right and wraps around. The previous sweep
+ * stays visible to the right of the cursor behind a small gap. buildLines() turns the ring into
+ * endpoint pairs for Canvas.drawLines(); once the ring is denser than about two samples per pixel
+ * column the trace goes through min/max decimators, so the vertex count follows the pixel width
+ * and not the capacity. Never allocates after construction.
+ */
+public final class SweepTrace {
+    // Slots left blank ahead of the cursor so the sweep position stays visible
+    private static final int SWEEP_GAP_DIVISOR = 40;
+
+    private final int capacity;
+    // Slot i holds the sample drawn at the i-th horizontal position
+    private final float[] samples;
+    private int cursor;       // slot the next sample goes to
+    private int filledSlots;  // slots holding data, capacity once the first sweep completed
+
+    // One for the sweep in progress, one for the previous sweep still visible right of the cursor
+    private MinMaxDecimator sweepDecimator;
+    private MinMaxDecimator previousDecimator;
+
+    // Endpoint pairs for drawLines(), sized for the worst case
+    private final float[] vertices;
+    private int vertexCount;
+    private boolean penDown;
+    private float lastX, lastY;
+
+    public SweepTrace(int capacity) {
+        this.capacity = Math.max(4, capacity);
+        samples = new float[this.capacity];
+        // Decimation only kicks in from three samples per column, so a third of the sweep is enough
+        sweepDecimator = new MinMaxDecimator(this.capacity / 3 + 1);
+        previousDecimator = new MinMaxDecimator(this.capacity / 3 + 1);
+        // About one segment per slot at most, whether drawn directly or through the decimators
+        vertices = new float[4 * (this.capacity + 4)];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // Slots holding data
+    public int size() {
+        return filledSlots;
+    }
+
+    public void add(float value) {
+        if (cursor == capacity) {
+            // Sweep complete: start over at the left edge, keeping this sweep visible behind the cursor
+            cursor = 0;
+            MinMaxDecimator finished = sweepDecimator;
+            sweepDecimator = previousDecimator;
+            previousDecimator = finished;
+            sweepDecimator.reset(finished.getSamplesPerColumn());
+        }
+        samples[cursor++] = value;
+        if (filledSlots < cursor) filledSlots = cursor;
+        sweepDecimator.add(value);
+    }
+
+    public float getLastValue() {
+        if (filledSlots == 0) return Float.NaN;
+        return samples[(cursor + capacity - 1) % capacity];
+    }
+
+    public void clear() {
+        cursor = 0;
+        filledSlots = 0;
+        sweepDecimator.reset(sweepDecimator.getSamplesPerColumn());
+        previousDecimator.reset(previousDecimator.getSamplesPerColumn());
+    }
+
+    public float[] getVertices() {
+        return vertices;
+    }
+
+    // Fills getVertices() for a trace spanning left..right, minValue drawn at bottom and maxValue
+    // at top, and returns the number of floats written
+    public int buildLines(float left, float top, float right, float bottom, float minValue, float maxValue) {
+        vertexCount = 0;
+        float chartWidth = right - left;
+        float xStep = chartWidth / (capacity - 1);
+        float yScale = (bottom - top) / (maxValue - minValue);
+        // The previous sweep is only visible past the gap ahead of the cursor
+        int oldStart = filledSlots == capacity ? cursor + capacity / SWEEP_GAP_DIVISOR + 1 : capacity;
+
+        int samplesPerColumn = MinMaxDecimator.samplesPerColumn(capacity, chartWidth);
+        if (samplesPerColumn <= 2) {
+            penDown = false;
+            for (int i = 0; i < cursor; i++) {
+                lineTo(left + i * xStep, bottom - (samples[i] - minValue) * yScale);
+            }
+            penDown = false;
+            for (int i = oldStart; i < capacity; i++) {
+                lineTo(left + i * xStep, bottom - (samples[i] - minValue) * yScale);
+            }
+            return vertexCount;
+        }
+
+        if (sweepDecimator.getSamplesPerColumn() != samplesPerColumn) {
+            refillDecimators(samplesPerColumn);
+        }
+        penDown = false;
+        for (int i = 0; i < sweepDecimator.size(); i++) {
+            lineTo(left + sweepDecimator.getSequence(i) * xStep, bottom - (sweepDecimator.getValue(i) - minValue) * yScale);
+        }
+        penDown = false;
+        for (int i = 0; i < previousDecimator.size(); i++) {
+            long slot = previousDecimator.getSequence(i);
+            if (slot >= oldStart) {
+                lineTo(left + slot * xStep, bottom - (previousDecimator.getValue(i) - minValue) * yScale);
+            }
+        }
+        return vertexCount;
+    }
+
+    // Adds a segment from the previous point, or starts a new run after penDown was cleared
+    private void lineTo(float x, float y) {
+        if (penDown) {
+            vertices[vertexCount++] = lastX;
+            vertices[vertexCount++] = lastY;
+            vertices[vertexCount++] = x;
+            vertices[vertexCount++] = y;
+        }
+        penDown = true;
+        lastX = x;
+        lastY = y;
+    }
+
+    // Rebuilds both decimators from the ring after the pixel density changed
+    private void refillDecimators(int samplesPerColumn) {
+        sweepDecimator.reset(samplesPerColumn);
+        previousDecimator.reset(samplesPerColumn);
+        for (int i = 0; i < cursor; i++) {
+            sweepDecimator.add(samples[i]);
+        }
+        if (filledSlots == capacity) {
+            // Slots left of the cursor already belong to the new sweep, but are never drawn from here
+            for (int i = 0; i < capacity; i++) {
+                previousDecimator.add(samples[i]);
+            }
+        }
+    }
+}
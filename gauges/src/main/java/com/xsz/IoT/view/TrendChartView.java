@@ -0,0 +1,346 @@
+package com.xsz.IoT.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.xsz.IoT.format.FixedPointFormatter;
+import com.xsz.IoT.format.FormattedText;
+import com.xsz.IoT.model.HistoryWindow;
+import com.xsz.IoT.model.RollupWindow;
+
+/**
+ * Oscilloscope-style sweep chart over a SweepTrace: samples are written into a fixed ring, one
+ * slot per horizontal position, at a cursor that moves left to right and wraps around; the
+ * previous sweep stays visible to the right of the cursor behind a small gap. A new sample costs
+ * O(1) and nothing is copied or boxed; the trace is drawn with drawLines() from a vertex array
+ * that is reused between frames, decimated to the pixel width when the ring is larger.
+ *
+ * showRollup() swaps the sweep for a longer time range drawn from rollup buckets: a min/max bar
+ * per bucket under the average line. The sweep keeps recording and comes back with showLive().
+ */
+public class TrendChartView extends View {
+    private Paint linePaint;
+    private Paint bandPaint;
+    private Paint gridPaint;
+    private Paint textPaint;
+    private Paint valuePaint;
+    private Paint unitPaint;
+    
+    private float minValue = 0;
+    private float maxValue = 100;
+    private String unit = "";
+    // Labels are formatted when their value changes, never while drawing
+    private final FixedPointFormatter valueFormatter = new FixedPointFormatter(1);
+    private final FixedPointFormatter labelFormatter = new FixedPointFormatter(0);
+    private String minText = labelFormatter.format(0);
+    private String maxText = labelFormatter.format(100);
+    private final FormattedText valueText = new FormattedText();
+    private float valueTextValue = Float.NaN;
+    private static final int colorBackground = 0xff4d5a66;
+    private static final int colorProgress = 0xff727cf5;
+    private static final int colorUnit = 0xffaab8be;
+    private static final int colorText = 0xffaab8be;
+    private static final int colorValue = 0xff0acf97;
+
+    private static final float PADDING = 40;
+    private static final int DEFAULT_DATA_POINTS = 200;
+
+    private SweepTrace trace = new SweepTrace(DEFAULT_DATA_POINTS);
+
+    // Rollup range shown instead of the sweep, or null; its lines are rebuilt on resize or
+    // setRange(), never while drawing
+    private RollupWindow rollup;
+    private long rollupFrom;
+    private long rollupTo;
+    private String rollupLabel = "";
+    private float[] bandVertices = new float[0];
+    private float[] averageVertices = new float[0];
+    private int bandVertexCount;
+    private int averageVertexCount;
+
+    // Grid and range labels, redrawn only on resize or setRange()
+    private final StaticLayer staticLayer = new StaticLayer(this::paintStatic);
+
+    public TrendChartView(Context context) {
+        super(context);
+        init();
+    }
+    
+    public TrendChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init();
+    }
+    
+    public TrendChartView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init();
+    }
+    
+    private void init() {
+        linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        linePaint.setColor(colorProgress);
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(2);
+
+        bandPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        bandPaint.setColor(colorProgress);
+        bandPaint.setAlpha(0x60);
+        bandPaint.setStyle(Paint.Style.STROKE);
+        bandPaint.setStrokeWidth(2);
+        
+        gridPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        gridPaint.setColor(colorBackground);
+        gridPaint.setStyle(Paint.Style.STROKE);
+        gridPaint.setStrokeWidth(1);
+        
+        textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        textPaint.setColor(colorText);
+        textPaint.setTextSize(20);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        
+        valuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        valuePaint.setColor(colorValue);
+        valuePaint.setTextSize(40);
+        valuePaint.setTextAlign(Paint.Align.CENTER);
+        valuePaint.setFakeBoldText(true);
+        
+        unitPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        unitPaint.setColor(colorUnit);
+        unitPaint.setTextSize(24);
+        unitPaint.setTextAlign(Paint.Align.CENTER);
+    }
+    
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        staticLayer.setSize(w, h);
+        buildRollupLines();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        staticLayer.release();
+    }
+    
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        long drawStart = DrawCost.begin();
+        
+        // Always draw grid lines and axis labels regardless of data state
+        staticLayer.draw(canvas);
+        if (rollup != null) {
+            drawRollup(canvas, getWidth());
+        }
+        drawTrace(canvas, getWidth(), getHeight(), PADDING);
+        DrawCost.end(DrawCost.TREND_CHART, drawStart);
+    }
+
+    private void paintStatic(Canvas canvas) {
+        float width = getWidth();
+        float height = getHeight();
+        float padding = PADDING;
+        
+        // Draw grid lines
+        for (int i = 0; i <= 4; i++) {
+            float y = padding + (height - 2 * padding) * i / 4;
+            canvas.drawLine(padding, y, width - padding, y, gridPaint);
+        }
+        
+        // Draw min/max values
+        textPaint.setTextSize(12);
+        canvas.drawText(minText, padding - 20, height - padding, textPaint);
+        canvas.drawText(maxText, padding - 20, padding + 10, textPaint);
+        textPaint.setTextSize(16);
+    }
+
+    private void drawTrace(Canvas canvas, float width, float height, float padding) {
+        if (trace.size() == 0) return;
+        
+        // Draw trend line
+        if (rollup == null && trace.size() > 1) {
+            int vertexCount = trace.buildLines(padding, padding, width - padding, height - padding, minValue, maxValue);
+            canvas.drawLines(trace.getVertices(), 0, vertexCount, linePaint);
+        }
+        
+        // Draw current value
+        float currentValue = trace.getLastValue();
+        if (!Float.isNaN(currentValue)) {
+            if (currentValue != valueTextValue) {
+                valueTextValue = currentValue;
+                valueFormatter.format(currentValue, valueText.clear());
+            }
+            
+            // Calculate text widths for proper positioning
+            float valueWidth = valuePaint.measureText(valueText.getChars(), 0, valueText.length());
+            float unitWidth = !unit.isEmpty() ? unitPaint.measureText(unit) : 0;
+            
+            // Calculate starting position to center both texts together
+            float totalWidth = valueWidth + (unitWidth > 0 ? unitWidth + 8 : 0); // 8px spacing
+            float startX = (width - totalWidth) / 2f;
+            
+            // Draw value text
+            valuePaint.setTextAlign(Paint.Align.LEFT);
+            canvas.drawText(valueText.getChars(), 0, valueText.length(), startX, height - 8, valuePaint);
+            
+            // Draw unit text to the right of value
+            if (!unit.isEmpty()) {
+                unitPaint.setTextAlign(Paint.Align.LEFT);
+                canvas.drawText(unit, startX + valueWidth + 8, height - 8, unitPaint);
+            }
+            
+            // Reset text alignment for other uses
+            valuePaint.setTextAlign(Paint.Align.CENTER);
+            unitPaint.setTextAlign(Paint.Align.CENTER);
+        }
+    }
+
+    private void drawRollup(Canvas canvas, float width) {
+        canvas.drawLines(bandVertices, 0, bandVertexCount, bandPaint);
+        canvas.drawLines(averageVertices, 0, averageVertexCount, linePaint);
+        textPaint.setTextAlign(Paint.Align.RIGHT);
+        canvas.drawText(rollupLabel, width - PADDING, PADDING - 8, textPaint);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    // Draws the buckets of [fromTimestamp, toTimestamp) across the chart, labelled with the range,
+    // until showLive(). The window is read again on resize or setRange(), so keep it unchanged
+    // until the next call.
+    public void showRollup(RollupWindow window, long fromTimestamp, long toTimestamp, String label) {
+        rollup = window;
+        rollupFrom = fromTimestamp;
+        rollupTo = Math.max(fromTimestamp + 1, toTimestamp);
+        rollupLabel = label;
+        buildRollupLines();
+        invalidate();
+    }
+
+    public void showLive() {
+        if (rollup == null) return;
+        rollup = null;
+        invalidate();
+    }
+
+    public boolean isShowingRollup() {
+        return rollup != null;
+    }
+
+    private void buildRollupLines() {
+        bandVertexCount = 0;
+        averageVertexCount = 0;
+        if (rollup == null || getWidth() == 0) return;
+        int size = rollup.size();
+        if (bandVertices.length < 4 * size) {
+            bandVertices = new float[4 * size];
+            averageVertices = new float[4 * size];
+        }
+        float left = PADDING;
+        float bottom = getHeight() - PADDING;
+        float xScale = (getWidth() - 2 * PADDING) / (float) (rollupTo - rollupFrom);
+        float yScale = (bottom - PADDING) / (maxValue - minValue);
+        float lastX = 0, lastY = 0;
+        for (int i = 0; i < size; i++) {
+            // Buckets are drawn at their middle, clamped to the chart
+            long middle = rollup.getStart(i) + rollup.getResolution() / 2;
+            float x = left + Math.max(0, Math.min(rollupTo - rollupFrom, middle - rollupFrom)) * xScale;
+            float y = bottom - (rollup.getAverage(i) - minValue) * yScale;
+            bandVertices[bandVertexCount++] = x;
+            bandVertices[bandVertexCount++] = bottom - (rollup.getMin(i) - minValue) * yScale;
+            bandVertices[bandVertexCount++] = x;
+            bandVertices[bandVertexCount++] = bottom - (rollup.getMax(i) - minValue) * yScale;
+            if (i > 0) {
+                averageVertices[averageVertexCount++] = lastX;
+                averageVertices[averageVertexCount++] = lastY;
+                averageVertices[averageVertexCount++] = x;
+                averageVertices[averageVertexCount++] = y;
+            }
+            lastX = x;
+            lastY = y;
+        }
+    }
+
+    public void addDataPoint(float value) {
+        trace.add(value);
+        invalidate();
+    }
+    
+    public void setCurrentValue(float value) {
+        if (isNewValue(value)) {
+            addDataPoint(value);
+        }
+    }
+
+    private boolean isNewValue(float value) {
+        // Only add if this is a new value (not the same as the last one)
+        float lastValue = trace.getLastValue();
+        // Use a smaller threshold relative to the range, or always add if range is small
+        float threshold = Math.max(0.01f, (maxValue - minValue) * 0.001f);
+        return Float.isNaN(lastValue) || Math.abs(lastValue - value) > threshold;
+    }
+
+    // Rebuilds the trace from the data layer's history, e.g. after the view was recycled or the
+    // gauge type changed, applying the same filtering as live updates
+    public void setHistory(HistoryWindow window) {
+        trace.clear();
+
+        for (int i = 0; i < window.size(); i++) {
+            float value = window.getValue(i);
+            if (isNewValue(value)) {
+                trace.add(value);
+            }
+        }
+        invalidate();
+    }
+
+    public int getMaxDataPoints() {
+        return trace.getCapacity();
+    }
+
+    // Points kept across the chart; large windows are decimated to the pixel width when drawn.
+    // Starts an empty trace when the count changes.
+    public void setMaxDataPoints(int maxDataPoints) {
+        if (Math.max(4, maxDataPoints) == trace.getCapacity()) return;
+        trace = new SweepTrace(maxDataPoints);
+        invalidate();
+    }
+    
+    public void forceAddDataPoint(float value) {
+        // Force add data point without filtering - useful for testing or continuous updates
+        addDataPoint(value);
+    }
+    
+    public void setRange(float min, float max) {
+        if (min == minValue && max == maxValue) return;
+        this.minValue = min;
+        this.maxValue = max;
+        minText = labelFormatter.format(min);
+        maxText = labelFormatter.format(max);
+        buildRollupLines();
+        staticLayer.invalidate();
+        invalidate();
+    }
+    
+    public void setUnit(String unit) {
+        if (unit.equals(this.unit)) return;
+        this.unit = unit;
+        invalidate();
+    }
+
+    public void setLineColor(int color) {
+        linePaint.setColor(color);
+        invalidate();
+    }
+    
+    public void clearData() {
+        trace.clear();
+        invalidate();
+    }
+    
+    public int getDataPointsCount() {
+        return trace.size();
+    }
+}
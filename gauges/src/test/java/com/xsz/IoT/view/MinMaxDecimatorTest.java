@@ -0,0 +1,69 @@
+package com.xsz.IoT.view;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MinMaxDecimatorTest {
+
+    @Test
+    public void keepsPeaksInArrivalOrder() {
+        MinMaxDecimator decimator = new MinMaxDecimator(16);
+        decimator.reset(MinMaxDecimator.samplesPerColumn(40, 4));
+        assertEquals(10, decimator.getSamplesPerColumn());
+
+        for (int i = 0; i < 40; i++) {
+            float value = i == 13 ? 99f : i == 17 ? -99f : i == 22 ? -50f : i == 26 ? 50f : 0f;
+            decimator.add(value);
+        }
+        assertEquals(8, decimator.size());
+        // Column 1: the peak came before the dip
+        assertEquals(13, decimator.getSequence(2));
+        assertEquals(99f, decimator.getValue(2), 0f);
+        assertEquals(17, decimator.getSequence(3));
+        assertEquals(-99f, decimator.getValue(3), 0f);
+        // Column 2: the dip came first
+        assertEquals(-50f, decimator.getValue(4), 0f);
+        assertEquals(50f, decimator.getValue(5), 0f);
+    }
+
+    @Test
+    public void incrementalMatchesFullRecomputation() {
+        Random random = new Random(7);
+        float[] samples = new float[5000];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) random.nextGaussian();
+        }
+
+        MinMaxDecimator incremental = new MinMaxDecimator(64);
+        incremental.reset(25);
+        for (int n = 0; n < samples.length; n += 37) {
+            for (int i = (int) incremental.getSampleCount(); i < Math.min(n, samples.length); i++) {
+                incremental.add(samples[i]);
+            }
+        }
+        for (int i = (int) incremental.getSampleCount(); i < samples.length; i++) {
+            incremental.add(samples[i]);
+        }
+
+        // Only the newest 64 columns are kept; check them against a brute-force scan
+        assertEquals(128, incremental.size());
+        for (int point = 0; point < incremental.size(); point += 2) {
+            long start = incremental.getSequence(point) / 25 * 25;
+            float min = Float.MAX_VALUE;
+            float max = -Float.MAX_VALUE;
+            for (long i = start; i < start + 25; i++) {
+                min = Math.min(min, samples[(int) i]);
+                max = Math.max(max, samples[(int) i]);
+            }
+            float a = incremental.getValue(point);
+            float b = incremental.getValue(point + 1);
+            assertEquals(min, Math.min(a, b), 0f);
+            assertEquals(max, Math.max(a, b), 0f);
+            assertTrue(incremental.getSequence(point) <= incremental.getSequence(point + 1));
+        }
+        assertEquals(samples.length - 25 * 64, incremental.getSequence(0) / 25 * 25);
+    }
+}
@@ -0,0 +1,58 @@
+package com.xsz.IoT.view;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SweepTraceTest {
+
+    @Test
+    public void drawsEverySampleWhenSparse() {
+        SweepTrace trace = new SweepTrace(200);
+        for (int i = 0; i < 50; i++) {
+            trace.add(i);
+        }
+        // One segment between each pair of neighbours, across 400 px
+        int vertexCount = trace.buildLines(0, 0, 400, 100, 0, 100);
+        assertEquals(4 * 49, vertexCount);
+        float[] vertices = trace.getVertices();
+        assertEquals(0f, vertices[0], 1e-3f);
+        assertEquals(100f, vertices[1], 1e-3f);
+        assertEquals(49 * 400f / 199, vertices[vertexCount - 2], 1e-3f);
+        assertEquals(51f, vertices[vertexCount - 1], 1e-3f);
+    }
+
+    @Test
+    public void decimatesLargeHistoryToThePixelWidthAndKeepsPeaks() {
+        int capacity = 4096;
+        float width = 400;
+        assertTrue(MinMaxDecimator.samplesPerColumn(capacity, width) > 2);
+
+        SweepTrace trace = new SweepTrace(capacity);
+        // More than one sweep, so the previous sweep is drawn behind the cursor as well
+        for (int i = 0; i < capacity + 1000; i++) {
+            float value = i == 3000 ? 95 : i == capacity + 300 ? 3 : 50;
+            trace.add(value);
+        }
+        assertEquals(capacity, trace.size());
+        assertEquals(50f, trace.getLastValue(), 0f);
+
+        int vertexCount = trace.buildLines(0, 0, width, 100, 0, 100);
+        // Two points per pixel column at most, against one per slot undecimated
+        int columns = capacity / MinMaxDecimator.samplesPerColumn(capacity, width) + 1;
+        assertTrue(vertexCount > 0);
+        assertTrue(vertexCount <= 4 * 2 * columns);
+        assertTrue(vertexCount < capacity);
+
+        float[] vertices = trace.getVertices();
+        boolean previousPeak = false;
+        boolean currentDip = false;
+        for (int i = 1; i < vertexCount; i += 2) {
+            // y = 100 - value
+            if (Math.abs(vertices[i] - 5) < 1e-3f) previousPeak = true;
+            if (Math.abs(vertices[i] - 97) < 1e-3f) currentDip = true;
+        }
+        assertTrue(previousPeak);
+        assertTrue(currentDip);
+    }
+}
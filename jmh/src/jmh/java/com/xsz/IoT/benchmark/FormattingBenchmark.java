@@ -0,0 +1,59 @@
+package com.xsz.IoT.benchmark;
+
+import com.xsz.IoT.format.FixedPointFormatter;
+import com.xsz.IoT.format.FormattedText;
+import com.xsz.IoT.model.AnalogInput;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+// Value labels: the String API, the allocation-free path the gauges use, and String.format as
+// the baseline getFormattedValue() used to be
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FormattingBenchmark {
+    @Param({"0.15", "7.3456", "-0.0042"})
+    public double rawValue;
+
+    private AnalogInput input;
+    private final FixedPointFormatter formatter = new FixedPointFormatter(2, Locale.US);
+    private final FormattedText text = new FormattedText();
+
+    @Setup
+    public void setUp() {
+        Locale.setDefault(Locale.US);
+        input = new AnalogInput(1);
+        input.setUnit("bar");
+        input.setRawValue(rawValue);
+    }
+
+    @Benchmark
+    public String getFormattedValue() {
+        return input.getFormattedValue();
+    }
+
+    @Benchmark
+    public FormattedText formatValue() {
+        return input.formatValue(text.clear());
+    }
+
+    @Benchmark
+    public FormattedText fixedPoint() {
+        return formatter.format(input.getMappedValue(), text.clear());
+    }
+
+    @Benchmark
+    public String stringFormat() {
+        return String.format(Locale.US, "%.2f %s", input.getMappedValue(), input.getUnit());
+    }
+}
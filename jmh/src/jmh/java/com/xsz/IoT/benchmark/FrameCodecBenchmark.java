@@ -0,0 +1,75 @@
+package com.xsz.IoT.benchmark;
+
+import com.xsz.IoT.acquisition.FrameCodec;
+import com.xsz.IoT.acquisition.SampleFrame;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.TimeUnit;
+
+// Wire format of a typical board frame, 8 channels x 125 samples (1 kHz, 8 frames/s), encoded
+// and decoded a batch of frames at a time from a direct buffer, as the I/O thread reads them
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FrameCodecBenchmark {
+    private static final int CHANNELS = 8;
+    private static final int SAMPLES_PER_CHANNEL = 125;
+    private static final int FRAMES_PER_BATCH = 64;
+
+    private final SampleFrame frame = new SampleFrame();
+    private final SampleFrame decoded = new SampleFrame();
+    private ByteBuffer encoded;
+    private ByteBuffer scratch;
+
+    @Setup
+    public void setUp() {
+        frame.boardId = 1;
+        frame.channelCount = CHANNELS;
+        frame.samplesPerChannel = SAMPLES_PER_CHANNEL;
+        frame.sampleIntervalMicros = 1000;
+        for (int i = 0; i < CHANNELS * SAMPLES_PER_CHANNEL; i++) {
+            frame.samples[i] = (float) Math.sin(i * 0.01) * 5 + 5;
+        }
+
+        int batchSize = FrameCodec.frameSize(CHANNELS, SAMPLES_PER_CHANNEL) * FRAMES_PER_BATCH;
+        encoded = ByteBuffer.allocateDirect(batchSize).order(ByteOrder.LITTLE_ENDIAN);
+        scratch = ByteBuffer.allocateDirect(batchSize).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < FRAMES_PER_BATCH; i++) {
+            frame.sequence = i;
+            FrameCodec.encode(encoded, frame);
+        }
+        encoded.flip();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES_PER_BATCH)
+    public float decode() {
+        encoded.position(0);
+        float checksum = 0;
+        while (FrameCodec.decode(encoded, decoded) > 0) {
+            checksum += decoded.latest(CHANNELS - 1);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FRAMES_PER_BATCH)
+    public ByteBuffer encode() {
+        scratch.clear();
+        for (int i = 0; i < FRAMES_PER_BATCH; i++) {
+            frame.sequence = i;
+            FrameCodec.encode(scratch, frame);
+        }
+        return scratch;
+    }
+}
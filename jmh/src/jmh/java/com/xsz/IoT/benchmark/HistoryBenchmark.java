@@ -0,0 +1,90 @@
+package com.xsz.IoT.benchmark;
+
+import com.xsz.IoT.model.ChannelHistory;
+import com.xsz.IoT.model.ChannelRollup;
+import com.xsz.IoT.model.HistoryWindow;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-sample history work: the channel rings fed on every applied value, the rollups fed a
+// frame's run of every acquired sample, reading a trend chart's window back, and the trend
+// chart's own sweep ring next to the array shift it replaced
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HistoryBenchmark {
+    private static final int CHANNELS = 200;
+    private static final int CAPACITY = 1024;
+    // One channel of a 1 kHz board frame
+    private static final int RUN_SAMPLES = 125;
+
+    private ChannelHistory history;
+    private ChannelRollup rollup;
+    private ChannelRollup.Source[] rollupSources;
+    private final float[] run = new float[RUN_SAMPLES];
+    private final HistoryWindow window = new HistoryWindow();
+    private final float[] sweep = new float[CAPACITY];
+    private final float[] shifted = new float[CAPACITY];
+    private int cursor;
+    private long timestamp;
+
+    @Setup
+    public void setUp() {
+        history = new ChannelHistory(CHANNELS, CAPACITY);
+        rollup = new ChannelRollup();
+        rollupSources = new ChannelRollup.Source[CHANNELS];
+        for (int i = 0; i < CHANNELS; i++) {
+            rollupSources[i] = rollup.source(i);
+        }
+        for (int i = 0; i < RUN_SAMPLES; i++) {
+            run[i] = (float) Math.sin(i * 0.01);
+        }
+        for (int i = 0; i < CAPACITY; i++) {
+            history.append(0, i, (float) Math.sin(i * 0.01));
+        }
+        timestamp = CAPACITY;
+    }
+
+    @Benchmark
+    public long historyAppend() {
+        long time = timestamp++;
+        history.append((int) (time % CHANNELS), time, (float) time);
+        return time;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RUN_SAMPLES)
+    public long rollupAddRun() {
+        long time = timestamp += RUN_SAMPLES;
+        rollup.addRun(rollupSources[(int) (time % CHANNELS)], time, 1000, run, 0, 1, RUN_SAMPLES);
+        return time;
+    }
+
+    @Benchmark
+    public HistoryWindow historyLatest() {
+        return history.latest(0, CAPACITY, window);
+    }
+
+    @Benchmark
+    public float[] sweepAppend() {
+        sweep[cursor] = cursor;
+        cursor = (cursor + 1) & (CAPACITY - 1);
+        return sweep;
+    }
+
+    @Benchmark
+    public float[] shiftAppend() {
+        System.arraycopy(shifted, 1, shifted, 0, CAPACITY - 1);
+        shifted[CAPACITY - 1] = cursor++;
+        return shifted;
+    }
+}
@@ -0,0 +1,108 @@
+package com.xsz.IoT.benchmark;
+
+import com.xsz.IoT.calibration.Calibration;
+import com.xsz.IoT.model.AnalogInput;
+import com.xsz.IoT.model.ChannelBank;
+import com.xsz.IoT.model.ChannelHistory;
+import com.xsz.IoT.model.SnapshotExchange;
+import com.xsz.IoT.model.ValueSnapshot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Raw to engineering units: one sample through an unattached and an attached AnalogInput, a run
+// through ChannelBank, and a whole dashboard snapshot applied with history, as on every display
+// frame
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MappingBenchmark {
+    private static final int CHANNELS = 200;
+    private static final int SAMPLES = 1024;
+
+    @Param({"LINEAR", "TABLE", "POLYNOMIAL"})
+    public String calibration;
+
+    private AnalogInput input;
+    private AnalogInput unattachedInput;
+    private ChannelBank bank;
+    private ValueSnapshot snapshot;
+    private final double[] rawValues = new double[SAMPLES];
+    private final double[] mappedValues = new double[SAMPLES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        bank = new ChannelBank(CHANNELS);
+        bank.setHistory(new ChannelHistory(CHANNELS, 1024));
+        SnapshotExchange exchange = new SnapshotExchange(CHANNELS);
+        Random random = new Random(42);
+        for (int i = 0; i < CHANNELS; i++) {
+            AnalogInput channelInput = new AnalogInput(i + 1);
+            channelInput.setCalibration(createCalibration());
+            channelInput.attach(bank, i);
+            bank.setSource(i, i);
+            exchange.setValue(i, random.nextDouble() * 10, 1000);
+        }
+        exchange.publish();
+        snapshot = exchange.acquire();
+        input = new AnalogInput(1);
+        input.setCalibration(createCalibration());
+        input.attach(bank, 0);
+        unattachedInput = new AnalogInput(1);
+        unattachedInput.setCalibration(createCalibration());
+        for (int i = 0; i < SAMPLES; i++) {
+            rawValues[i] = random.nextDouble() * 10;
+        }
+    }
+
+    private Calibration createCalibration() {
+        switch (calibration) {
+            case "TABLE":
+                return Calibration.table(new double[]{0, 2, 5, 10}, new double[]{0, 30, 60, 100});
+            case "POLYNOMIAL":
+                return Calibration.polynomial(0, 9, 0.1);
+            default:
+                return null;
+        }
+    }
+
+    @Benchmark
+    public double setRawValueUnattached() {
+        unattachedInput.setRawValue(rawValues[next++ & (SAMPLES - 1)]);
+        return unattachedInput.getMappedValue();
+    }
+
+    @Benchmark
+    public double setRawValue() {
+        input.setRawValue(rawValues[next++ & (SAMPLES - 1)]);
+        return input.getMappedValue();
+    }
+
+    @Benchmark
+    public double mapRawValue() {
+        return bank.mapRawValue(0, rawValues[next++ & (SAMPLES - 1)]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public double[] mapRawValues() {
+        bank.mapRawValues(0, rawValues, 0, mappedValues, 0, SAMPLES);
+        return mappedValues;
+    }
+
+    @Benchmark
+    public int applySnapshot() {
+        return bank.applySnapshot(snapshot);
+    }
+}
@@ -0,0 +1,92 @@
+package com.xsz.IoT.benchmark;
+
+import com.xsz.IoT.model.AnalogInput;
+import com.xsz.IoT.model.AnalogInputCodec;
+import com.xsz.IoT.storage.SettingsStore;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// What IoTDataManager.saveSettings() + flushSettings() and the settings load do, minus Android:
+// JSON per input, and the per-input files written atomically or read back
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SettingsBenchmark {
+    @Param({"8", "200"})
+    public int inputCount;
+
+    private final List<AnalogInput> inputs = new ArrayList<>();
+    private final List<String> json = new ArrayList<>();
+    private File directory;
+    private SettingsStore store;
+
+    @Setup
+    public void setUp() throws IOException {
+        for (int i = 1; i <= inputCount; i++) {
+            AnalogInput input = new AnalogInput(i);
+            input.setName("Pressure " + i);
+            input.setUnit("bar");
+            input.setDescription("Line " + i + " discharge");
+            input.setMaxMappedValue(16);
+            inputs.add(input);
+            json.add(AnalogInputCodec.toJson(input));
+        }
+        directory = Files.createTempDirectory("settings-benchmark").toFile();
+        store = new SettingsStore(directory);
+        saveSettings();
+    }
+
+    @TearDown
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) file.delete();
+        }
+        directory.delete();
+    }
+
+    @Benchmark
+    public void encode(Blackhole blackhole) {
+        for (int i = 0; i < inputs.size(); i++) {
+            blackhole.consume(AnalogInputCodec.toJson(inputs.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws IOException {
+        for (int i = 0; i < json.size(); i++) {
+            blackhole.consume(AnalogInputCodec.fromJson(json.get(i)));
+        }
+    }
+
+    @Benchmark
+    public void saveSettings() {
+        for (int i = 0; i < inputs.size(); i++) {
+            store.put(i, AnalogInputCodec.toJson(inputs.get(i)));
+        }
+        store.flush();
+    }
+
+    @Benchmark
+    public void loadSettings(Blackhole blackhole) throws IOException {
+        for (String content : store.loadAll()) {
+            blackhole.consume(AnalogInputCodec.fromJson(content));
+        }
+    }
+}
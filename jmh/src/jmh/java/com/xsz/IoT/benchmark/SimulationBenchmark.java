@@ -0,0 +1,61 @@
+package com.xsz.IoT.benchmark;
+
+import com.xsz.IoT.acquisition.LoadSimulator;
+import com.xsz.IoT.acquisition.SampleFrame;
+import com.xsz.IoT.model.ChannelAddress;
+import com.xsz.IoT.model.SampleIngest;
+import com.xsz.IoT.model.SourceMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Simulated data: generating one board frame, and generating it plus the ingest path up to the
+// published snapshot (without a sample store). Times are per frame of getSamplesPerFrame() samples.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SimulationBenchmark {
+    @Param({"1000", "20000"})
+    public int sampleRateHz;
+
+    private LoadSimulator simulator;
+    private SampleIngest ingest;
+    private final SampleFrame frame = new SampleFrame();
+    private int samplesPerFrame;
+    private long sample;
+
+    @Setup
+    public void setUp() {
+        ingest = new SampleIngest(ChannelAddress.CHANNELS_PER_BOARD);
+        SourceMap.Builder sources = new SourceMap.Builder(1);
+        for (int channel = 1; channel <= ChannelAddress.CHANNELS_PER_BOARD; channel++) {
+            sources.add(0, channel);
+        }
+        ingest.setSourceMap(sources.build());
+        simulator = new LoadSimulator(1, ChannelAddress.CHANNELS_PER_BOARD, sampleRateHz, 42, ingest);
+        samplesPerFrame = simulator.getSamplesPerFrame();
+    }
+
+    @Benchmark
+    public SampleFrame fillFrame() {
+        simulator.fillFrame(frame, 0, sample, samplesPerFrame);
+        sample += samplesPerFrame;
+        return frame;
+    }
+
+    @Benchmark
+    public SampleFrame fillAndIngest() {
+        simulator.fillFrame(frame, 0, sample, samplesPerFrame);
+        sample += samplesPerFrame;
+        ingest.onFrame(frame);
+        return frame;
+    }
+}
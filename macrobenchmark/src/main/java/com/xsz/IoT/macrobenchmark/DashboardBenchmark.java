@@ -0,0 +1,60 @@
+package com.xsz.IoT.macrobenchmark;
+
+import android.os.SystemClock;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing of the gauge grid in steady state: the simulation feeds every channel and the
+ * grid redraws once per display frame with new samples. Startup is left out of the measurement.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DashboardBenchmark {
+    private static final int ITERATIONS = 5;
+    private static final long TIMEOUT_MILLIS = 10_000;
+    // Long enough for several hundred frames per iteration
+    private static final long MEASURE_MILLIS = 10_000;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void liveGrid() {
+        benchmarkRule.measureRepeated(
+                StartupBenchmark.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                null,
+                ITERATIONS,
+                scope -> {
+                    // A fresh process, so the simulation toggle always starts it
+                    scope.killProcess();
+                    scope.startActivityAndWait();
+                    UiDevice device = scope.getDevice();
+                    device.wait(Until.hasObject(By.res(StartupBenchmark.PACKAGE_NAME, "recycler_gauges")), TIMEOUT_MILLIS);
+                    UiObject2 simulation = device.wait(
+                            Until.findObject(By.res(StartupBenchmark.PACKAGE_NAME, "action_simulation")), TIMEOUT_MILLIS);
+                    simulation.click();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    SystemClock.sleep(MEASURE_MILLIS);
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,61 @@
+package com.xsz.IoT.macrobenchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of MainActivity until first frame and until the saved gauges are shown
+ * (reportFullyDrawn), without and with the app's baseline compilation.
+ */
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+    static final String PACKAGE_NAME = "com.xsz.IoT";
+    private static final int ITERATIONS = 10;
+
+    @Parameterized.Parameters(name = "compilation={0}")
+    public static List<Object[]> parameters() {
+        return Arrays.asList(
+                new Object[]{new CompilationMode.None()},
+                new Object[]{CompilationMode.DEFAULT});
+    }
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    private final CompilationMode compilationMode;
+
+    public StartupBenchmark(CompilationMode compilationMode) {
+        this.compilationMode = compilationMode;
+    }
+
+    @Test
+    public void coldStart() {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
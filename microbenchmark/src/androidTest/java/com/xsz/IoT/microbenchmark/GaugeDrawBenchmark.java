@@ -0,0 +1,143 @@
+package com.xsz.IoT.microbenchmark;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.RecordingCanvas;
+import android.graphics.RenderNode;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.RequiresApi;
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.xsz.IoT.view.BarChartView;
+import com.xsz.IoT.view.RoundGaugeView;
+import com.xsz.IoT.view.StaticLayer;
+import com.xsz.IoT.view.TrendChartView;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One onDraw of each gauge type at grid-cell size, with and without the static layers. The
+ * "renderNode" canvas records a display list like a hardware-accelerated window does (API 29+);
+ * "bitmap" rasterizes in software.
+ */
+@RunWith(Parameterized.class)
+public class GaugeDrawBenchmark {
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 360;
+
+    @Parameterized.Parameters(name = "{0}_{1}_staticLayer={2}")
+    public static List<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (String gauge : new String[]{"round", "bar", "trend"}) {
+            for (String canvas : new String[]{"renderNode", "bitmap"}) {
+                parameters.add(new Object[]{gauge, canvas, true});
+                parameters.add(new Object[]{gauge, canvas, false});
+            }
+        }
+        return parameters;
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final String gauge;
+    private final String canvasType;
+    private final boolean staticLayer;
+    private View view;
+    private Bitmap bitmap;
+
+    public GaugeDrawBenchmark(String gauge, String canvasType, boolean staticLayer) {
+        this.gauge = gauge;
+        this.canvasType = canvasType;
+        this.staticLayer = staticLayer;
+    }
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(canvasType.equals("bitmap") || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q);
+        StaticLayer.setEnabled(staticLayer);
+        view = createGauge(InstrumentationRegistry.getInstrumentation().getTargetContext(), gauge);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @After
+    public void tearDown() {
+        StaticLayer.setEnabled(true);
+        if (bitmap != null) bitmap.recycle();
+    }
+
+    // Configured like the adapter binds a 0-10 bar input halfway up its range
+    static View createGauge(Context context, String gauge) {
+        switch (gauge) {
+            case "round": {
+                RoundGaugeView round = new RoundGaugeView(context);
+                round.setRange(0, 10);
+                round.setUnit("bar");
+                round.setValue(5.25f);
+                return round;
+            }
+            case "bar": {
+                BarChartView bar = new BarChartView(context);
+                bar.setRange(0, 10);
+                bar.setUnit("bar");
+                bar.setValue(5.25f);
+                return bar;
+            }
+            default: {
+                TrendChartView trend = new TrendChartView(context);
+                trend.setRange(0, 10);
+                trend.setUnit("bar");
+                // A full sweep plus part of the next, so both traces are drawn
+                int points = trend.getMaxDataPoints() * 3 / 2;
+                for (int i = 0; i < points; i++) {
+                    trend.forceAddDataPoint(5 + 4 * (float) Math.sin(i * 0.05));
+                }
+                return trend;
+            }
+        }
+    }
+
+    @Test
+    public void draw() {
+        BenchmarkState state = benchmarkRule.getState();
+        if (canvasType.equals("bitmap")) {
+            bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            while (state.keepRunning()) {
+                view.draw(canvas);
+            }
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            RenderNodeDraw.run(state, view);
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.Q)
+    private static final class RenderNodeDraw {
+        static void run(BenchmarkState state, View view) {
+            RenderNode node = new RenderNode("gauge");
+            node.setPosition(0, 0, WIDTH, HEIGHT);
+            while (state.keepRunning()) {
+                RecordingCanvas canvas = node.beginRecording(WIDTH, HEIGHT);
+                view.draw(canvas);
+                node.endRecording();
+            }
+            node.discardDisplayList();
+        }
+    }
+}
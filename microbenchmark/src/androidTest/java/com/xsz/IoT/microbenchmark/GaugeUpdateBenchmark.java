@@ -0,0 +1,93 @@
+package com.xsz.IoT.microbenchmark;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.xsz.IoT.model.ChannelHistory;
+import com.xsz.IoT.model.HistoryWindow;
+import com.xsz.IoT.view.BarChartView;
+import com.xsz.IoT.view.RoundGaugeView;
+import com.xsz.IoT.view.TrendChartView;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * The per-sample update paths the adapter calls on the main thread. The views are not attached,
+ * so invalidate() returns early and only the views' own work is measured.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GaugeUpdateBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+
+    @Test
+    public void roundGaugeSetValue() {
+        RoundGaugeView view = (RoundGaugeView) GaugeDrawBenchmark.createGauge(context, "round");
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            // Alternating values, so the unchanged-value shortcut never applies
+            view.setValue((i++ & 1) == 0 ? 4.75f : 5.25f);
+        }
+    }
+
+    @Test
+    public void barChartSetValue() {
+        BarChartView view = (BarChartView) GaugeDrawBenchmark.createGauge(context, "bar");
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            view.setValue((i++ & 1) == 0 ? 4.75f : 5.25f);
+        }
+    }
+
+    @Test
+    public void trendChartAddDataPoint() {
+        TrendChartView view = (TrendChartView) GaugeDrawBenchmark.createGauge(context, "trend");
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            view.addDataPoint(5 + 4 * ((i++ & 63) / 64f));
+        }
+    }
+
+    @Test
+    public void trendChartSetCurrentValue() {
+        TrendChartView view = (TrendChartView) GaugeDrawBenchmark.createGauge(context, "trend");
+        BenchmarkState state = benchmarkRule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            view.setCurrentValue(5 + 4 * ((i++ & 63) / 64f));
+        }
+    }
+
+    // Rebinding a recycled trend chart from the channel history
+    @Test
+    public void trendChartSetHistory() {
+        TrendChartView view = (TrendChartView) GaugeDrawBenchmark.createGauge(context, "trend");
+        int size = view.getMaxDataPoints();
+        ChannelHistory history = new ChannelHistory(1, size);
+        for (int i = 0; i < size; i++) {
+            history.append(0, i, 5 + 4 * (float) Math.sin(i * 0.05));
+        }
+        HistoryWindow window = history.latest(0, size, new HistoryWindow());
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            view.setHistory(window);
+        }
+    }
+}